@@ -0,0 +1,15 @@
+package ObjectronExceptions.builderExceptions;
+
+/**
+ * Thrown to indicate a grid file could not be read. Unlike other invalid grid
+ * files, the same file may be read successfully later.
+ */
+public class GridFileReadException extends InvalidGridFileException {
+	
+	private static final long	serialVersionUID	= -2215986354829312374L;
+	
+	@SuppressWarnings("javadoc")
+	public GridFileReadException(String message) {
+		super(message);
+	}
+}
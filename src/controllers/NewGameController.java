@@ -69,6 +69,21 @@ public class NewGameController {
 		this.gameRunner.newGame(mode, width, height);
 	}
 	
+	/**
+	 * Start building grids with the specified dimensions in the background,
+	 * so a new game on an automatically generated grid with these dimensions
+	 * can start at once. Dimensions that are smaller than the minima are
+	 * ignored.
+	 * 
+	 * @param width
+	 *        The width of the game grid.
+	 * @param height
+	 *        The height of the game grid.
+	 */
+	public void prepareRandomGames(int width, int height) {
+		this.gameRunner.prepareGrids(width, height);
+	}
+	
 	/**
 	 * Create a new Race game on on a grid loaded from the specified file.
 	 * 
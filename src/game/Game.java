@@ -1,11 +1,10 @@
 package game;
 
+import grid.Coordinate;
 import grid.Grid;
-import grid.GridIterator;
 import item.Flag;
 import item.IItem;
 import item.forcefieldgenerator.ForceFieldGenerator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
@@ -66,32 +65,32 @@ public class Game extends Observable implements Observer {
 		// players in the grid file. This will also remove ALL flags if
 		// the game mode is not CTF. This method will also start to activate
 		// force fields that are present at the start of the game.
-		GridIterator gridIterator = (GridIterator) grid.getGridIterator();
-		while (gridIterator.hasNext()) {
-			SquareContainer square = gridIterator.next();
-			
-			for (IItem item : square.getAllItems()) {
-				if (item instanceof Flag) {
-					if (!(mode instanceof CTFMode)) {
-						square.remove(item);
-					}
-					else if (!square.hasPlayer()) {
-						square.remove(item);
-					}
-				}
-				if (item instanceof ForceFieldGenerator) {
+		for (Coordinate coordinate : grid.getCoordinatesWithItem(Flag.class)) {
+			SquareContainer square = grid.getSquareAt(coordinate);
+			for (IItem item : square.getAllItems())
+				if (item instanceof Flag && (!(mode instanceof CTFMode) || !square.hasPlayer()))
+					square.remove(item);
+		}
+		for (Coordinate coordinate : grid.getCoordinatesWithItem(ForceFieldGenerator.class)) {
+			SquareContainer square = grid.getSquareAt(coordinate);
+			for (IItem item : square.getAllItems())
+				if (item instanceof ForceFieldGenerator)
 					((ForceFieldGenerator) item).findAndCreateForceFields(square);
-				}
-			}
 		}
+		
+		grid.publishSnapshot();
 	}
 	
 	private void fixObserversPlayerDB(Grid grid, PlayerDataBase playerDB) {
 		playerDB.deleteObservers();
+		// publish a snapshot of the grid after each action, this observer is
+		// added first so it is notified after the squares
+		playerDB.addObserver((o, arg) -> {
+			if (arg instanceof TurnEvent)
+				grid.publishSnapshot();
+		});
 		// make all the squares in the new grid observer of the db
-		Iterator<SquareContainer> gridIterator = grid.getGridIterator();
-		while (gridIterator.hasNext())
-			playerDB.addObserver(gridIterator.next());
+		grid.squares().forEach(playerDB::addObserver);
 		playerDB.addObserver(this);
 	}
 	
@@ -1,11 +1,16 @@
 package game;
 
+import effects.CTFEffectFactory;
+import effects.RaceEffectFactory;
 import grid.Grid;
 import grid.GuiGridAdapter;
 import grid.builder.FileGridBuilderDirector;
+import grid.builder.GridFilePool;
 import grid.builder.RandomGridBuilderDirector;
+import grid.builder.RandomGridPool;
 import grid.builder.TronGridBuilder;
 import gui.GUI;
+import java.io.File;
 import java.io.FileNotFoundException;
 import player.PlayerDataBase;
 import ObjectronExceptions.builderExceptions.InvalidGridFileException;
@@ -23,6 +28,11 @@ import controllers.UseItemController;
  */
 public class GameRunner {
 	
+	/** The width of the grids that are prepared when the game starts. */
+	public static final int			DEFAULT_GRID_WIDTH	= 12;
+	/** The height of the grids that are prepared when the game starts. */
+	public static final int			DEFAULT_GRID_HEIGHT	= 12;
+	
 	protected PlayerDataBase		playerDB;
 	protected Game					game;
 	protected GUIDataController		guiDataCont;
@@ -32,14 +42,51 @@ public class GameRunner {
 	protected EndTurnController		endTurnCont;
 	protected NewGameController		newGameCont;
 	protected GUI					gui;
+	protected RandomGridPool		gridPool;
+	
+	/*
+	 * The grid that was last read from a file, without the items that are
+	 * placed at random and before any game was played on it. Starting a new
+	 * game on the same file places new random items on a copy of this
+	 * prototype instead of parsing and building the grid again.
+	 */
+	private Grid					gridPrototype;
+	private FileGridBuilderDirector	prototypeDirector;
+	private Class<?>				prototypeMode;
+	private String					prototypeFile;
+	private long					prototypeLastModified;
+	private long					prototypeLength;
+	
+	/*
+	 * The path of the directory in the home directory of the user in which
+	 * grid files are compiled.
+	 */
+	private static final String		COMPILED_GRIDS	= ".tron/compiled-grids";
 	
 	/**
 	 * main method, will create a new GameRunner instance and start the gui
 	 * 
 	 * @param args
-	 *        arguments are ignored
+	 *        the first argument, if any, is a directory of grid files that are
+	 *        {@link GridFilePool loaded and validated} before the gui starts;
+	 *        other arguments are ignored; valid grid files are compiled into
+	 *        a directory in the home directory of the user. If the
+	 *        directory of grid files does not exist, this is reported and the
+	 *        gui starts anyway.
 	 */
 	public static void main(String[] args) {
+		File compiledGrids = new File(System.getProperty("user.home"), COMPILED_GRIDS);
+		if (compiledGrids.isDirectory() || compiledGrids.mkdirs())
+			FileGridBuilderDirector.setCompiledGridDirectory(compiledGrids);
+		if (args.length > 0)
+			try {
+				System.out.print(GridFilePool.load(new File(args[0]), new RaceEffectFactory())
+						.getReport());
+			}
+			catch (FileNotFoundException e) {
+				System.err.println("The directory of grid files could not be found: "
+						+ e.getMessage());
+			}
 		new GameRunner().showGUI();
 	}
 	
@@ -48,6 +95,8 @@ public class GameRunner {
 	 */
 	public GameRunner() {
 		this.playerDB = new PlayerDataBase();
+		this.gridPool = new RandomGridPool();
+		prepareGrids(DEFAULT_GRID_WIDTH, DEFAULT_GRID_HEIGHT);
 		
 		moveCont = new MoveController(this.playerDB);
 		pickUpCont = new PickUpItemController(this.playerDB);
@@ -72,7 +121,8 @@ public class GameRunner {
 	
 	/**
 	 * Start a new {@link Game} with specified board dimensions and specified
-	 * mode.
+	 * mode. The grid is taken from a {@link RandomGridPool pool} of grids that
+	 * are built in the background, so large boards do not block the caller.
 	 * 
 	 * @param mode
 	 *        the mode for the new game
@@ -91,14 +141,27 @@ public class GameRunner {
 		if (mode == null)
 			throw new IllegalArgumentException("the mode cannot be null");
 		
-		// Construct the grid
-		TronGridBuilder builder = new TronGridBuilder(mode.getEffectFactory());
-		RandomGridBuilderDirector director = new RandomGridBuilderDirector(builder);
-		director.setHeight(height);
-		director.setWidth(width);
-		director.construct();
-		
-		createGame(mode, builder.getResult());
+		// Take a grid that was built in the background, if there is one
+		createGame(mode, gridPool.take(mode.getEffectFactory(), width, height));
+	}
+	
+	/**
+	 * Start building random grids with the specified dimensions in the
+	 * background, for each game mode, so a new game with these dimensions
+	 * does not have to build its grid on the calling thread. Dimensions that
+	 * are smaller than the minima are ignored.
+	 * 
+	 * @param width
+	 *        the width of the grids
+	 * @param height
+	 *        the height of the grids
+	 */
+	public void prepareGrids(int width, int height) {
+		if (width < RandomGridBuilderDirector.MINIMUM_GRID_WIDTH
+				|| height < RandomGridBuilderDirector.MINIMUM_GRID_HEIGHT)
+			return;
+		gridPool.fill(new RaceEffectFactory(), width, height);
+		gridPool.fill(new CTFEffectFactory(), width, height);
 	}
 	
 	/**
@@ -123,15 +186,39 @@ public class GameRunner {
 			throw new IllegalArgumentException("The game mode must be set");
 		if (file == null)
 			throw new IllegalArgumentException("The file must be set");
-	
 		
-		TronGridBuilder builder = new TronGridBuilder(mode.getEffectFactory());
-		FileGridBuilderDirector director = new FileGridBuilderDirector(builder, file);
-		director.construct();
 		
+		File gridFile = new File(file);
+		if (!isPrototypeOf(mode, gridFile)) {
+			TronGridBuilder builder = new TronGridBuilder(mode.getEffectFactory());
+			FileGridBuilderDirector director = new FileGridBuilderDirector(builder, file);
+			director.constructWithoutRandomItems();
+			
+			gridPrototype = builder.getResult();
+			prototypeDirector = director;
+			prototypeMode = mode.getClass();
+			prototypeFile = gridFile.getAbsolutePath();
+			prototypeLastModified = gridFile.lastModified();
+			prototypeLength = gridFile.length();
+		}
+		
+		TronGridBuilder builder = new TronGridBuilder(mode.getEffectFactory(), false,
+				gridPrototype.copy(), prototypeDirector.getStartingCoordinates());
+		prototypeDirector.placeRandomItems(builder);
 		createGame(mode, builder.getResult());
 	}
 	
+	/**
+	 * Returns whether the grid prototype was built from the specified file, in
+	 * the specified mode, and the file has not changed since.
+	 */
+	private boolean isPrototypeOf(GameMode mode, File file) {
+		return gridPrototype != null && mode.getClass() == prototypeMode
+				&& file.getAbsolutePath().equals(prototypeFile)
+				&& file.lastModified() == prototypeLastModified
+				&& file.length() == prototypeLength;
+	}
+	
 	/**
 	 * Creates a game with a specified mode and grid. This method will also set
 	 * all references to the grid and fix the observers of the game.
@@ -0,0 +1,223 @@
+package grid;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import square.SquareContainer;
+
+/**
+ * A {@link GridStorage} for large grids of which only a fraction of the
+ * bounding box is covered with squares. The bounding box is divided in
+ * {@value #CHUNK_SIZE}x{@value #CHUNK_SIZE} chunks, and each chunk keeps its
+ * squares in a flat array in row-major order. Chunks without any squares are
+ * never allocated.
+ */
+class ChunkedGridStorage implements GridStorage {
+	
+	/** The number of bits of a coordinate that index inside a chunk. */
+	static final int				CHUNK_SHIFT	= 5;
+	/** The number of columns and rows of a chunk. */
+	static final int				CHUNK_SIZE	= 1 << CHUNK_SHIFT;
+	private static final int		CHUNK_MASK	= CHUNK_SIZE - 1;
+	
+	private final SquareContainer[][]	chunks;
+	private final int					chunkColumns;
+	private final int					width;
+	private final int					height;
+	private final int					size;
+	private final CoordinateCache		coordinates;
+	
+	/**
+	 * Create a new chunked storage with the specified squares and dimensions.
+	 * All the coordinates in the specified map must lie within
+	 * <code>(0, 0)</code> (included) and <code>(width, height)</code>
+	 * (excluded).
+	 * 
+	 * @param squares
+	 *        a map that maps the coordinates of each square to the actual
+	 *        square itself
+	 * @param width
+	 *        the number of columns of the grid
+	 * @param height
+	 *        the number of rows of the grid
+	 * @param coordinates
+	 *        the cache used to hand out the coordinates of the squares
+	 * @throws IllegalArgumentException
+	 *         A coordinate of the map lies outside the specified dimensions.
+	 */
+	ChunkedGridStorage(Map<Coordinate, SquareContainer> squares, int width, int height,
+			CoordinateCache coordinates) {
+		this.width = width;
+		this.height = height;
+		this.chunkColumns = getNumberOfChunks(width);
+		this.chunks = new SquareContainer[chunkColumns * getNumberOfChunks(height)][];
+		
+		for (Map.Entry<Coordinate, SquareContainer> entry : squares.entrySet()) {
+			Coordinate coordinate = entry.getKey();
+			int x = coordinate.getX();
+			int y = coordinate.getY();
+			if (!isInBounds(x, y))
+				throw new IllegalArgumentException(coordinate + " lies outside the grid bounds");
+			
+			int chunk = chunkIndexOf(x, y);
+			if (chunks[chunk] == null)
+				chunks[chunk] = new SquareContainer[CHUNK_SIZE * CHUNK_SIZE];
+			chunks[chunk][indexInChunk(x, y)] = entry.getValue();
+		}
+		this.size = squares.size();
+		this.coordinates = coordinates;
+	}
+	
+	private ChunkedGridStorage(ChunkedGridStorage storage,
+			Function<SquareContainer, SquareContainer> copyOf, CoordinateCache coordinates) {
+		this.width = storage.width;
+		this.height = storage.height;
+		this.chunkColumns = storage.chunkColumns;
+		this.chunks = new SquareContainer[storage.chunks.length][];
+		for (int chunk = 0; chunk < chunks.length; chunk++) {
+			if (storage.chunks[chunk] == null)
+				continue;
+			chunks[chunk] = new SquareContainer[CHUNK_SIZE * CHUNK_SIZE];
+			for (int index = 0; index < chunks[chunk].length; index++)
+				if (storage.chunks[chunk][index] != null)
+					chunks[chunk][index] = copyOf.apply(storage.chunks[chunk][index]);
+		}
+		this.size = storage.size;
+		this.coordinates = coordinates;
+	}
+	
+	@Override
+	public ChunkedGridStorage copy(Function<SquareContainer, SquareContainer> copyOf,
+			CoordinateCache coordinates) {
+		return new ChunkedGridStorage(this, copyOf, coordinates);
+	}
+	
+	/**
+	 * Returns the number of chunks needed to cover the specified number of
+	 * columns (or rows).
+	 * 
+	 * @param length
+	 *        the number of columns (or rows)
+	 * @return the number of chunks
+	 */
+	static int getNumberOfChunks(int length) {
+		return (length + CHUNK_MASK) >>> CHUNK_SHIFT;
+	}
+	
+	private boolean isInBounds(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
+	}
+	
+	private int chunkIndexOf(int x, int y) {
+		return (y >>> CHUNK_SHIFT) * chunkColumns + (x >>> CHUNK_SHIFT);
+	}
+	
+	private static int indexInChunk(int x, int y) {
+		return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+	}
+	
+	@Override
+	public SquareContainer get(Coordinate coordinate) {
+		return get(coordinate.getX(), coordinate.getY());
+	}
+	
+	@Override
+	public SquareContainer get(int x, int y) {
+		if (!isInBounds(x, y))
+			return null;
+		SquareContainer[] chunk = chunks[chunkIndexOf(x, y)];
+		if (chunk == null)
+			return null;
+		return chunk[indexInChunk(x, y)];
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns the number of chunks that are allocated by this storage.
+	 * 
+	 * @return the number of allocated chunks
+	 */
+	int getNumberOfAllocatedChunks() {
+		int allocated = 0;
+		for (SquareContainer[] chunk : chunks)
+			if (chunk != null)
+				allocated++;
+		return allocated;
+	}
+	
+	@Override
+	public Iterator<SquareContainer> iterator() {
+		return new Iterator<SquareContainer>() {
+			
+			private int	chunk	= 0;
+			private int	index	= -1;
+			
+			{
+				advance();
+			}
+			
+			/**
+			 * Move to the next square, skipping empty cells and chunks.
+			 */
+			private void advance() {
+				index++;
+				while (chunk < chunks.length) {
+					SquareContainer[] current = chunks[chunk];
+					if (current != null)
+						while (index < current.length)
+							if (current[index] != null)
+								return;
+							else
+								index++;
+					chunk++;
+					index = 0;
+				}
+			}
+			
+			@Override
+			public boolean hasNext() {
+				return chunk < chunks.length;
+			}
+			
+			@Override
+			public SquareContainer next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				SquareContainer square = chunks[chunk][index];
+				advance();
+				return square;
+			}
+			
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	@Override
+	public List<Coordinate> rowMajorCoordinates() {
+		List<Coordinate> result = new ArrayList<Coordinate>(size);
+		for (int y = 0; y < height; y++) {
+			int rowOffset = (y & CHUNK_MASK) << CHUNK_SHIFT;
+			int chunkRow = (y >>> CHUNK_SHIFT) * chunkColumns;
+			for (int cx = 0; cx < chunkColumns; cx++) {
+				SquareContainer[] chunk = chunks[chunkRow + cx];
+				if (chunk == null)
+					continue;
+				int maxX = Math.min(CHUNK_SIZE, width - (cx << CHUNK_SHIFT));
+				for (int x = 0; x < maxX; x++)
+					if (chunk[rowOffset + x] != null)
+						result.add(coordinates.get((cx << CHUNK_SHIFT) + x, y));
+			}
+		}
+		return result;
+	}
+}
@@ -3,6 +3,7 @@ package grid;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
 import square.Direction;
 
 /**
@@ -23,6 +24,60 @@ public class Coordinate {
 	/** The origin of the grid */
 	public final static Coordinate	ORIGIN	= new Coordinate(0, 0);
 	
+	/**
+	 * The offsets in the x direction of the neighbouring coordinate in each
+	 * {@link Direction}, indexed by the ordinal of the direction.
+	 */
+	private final static int[]		DELTA_X	= new int[Direction.values().length];
+	/**
+	 * The offsets in the y direction of the neighbouring coordinate in each
+	 * {@link Direction}, indexed by the ordinal of the direction.
+	 */
+	private final static int[]		DELTA_Y	= new int[Direction.values().length];
+	
+	/** The random generator used to create random coordinates. */
+	private final static Random		RANDOM	= new Random();
+	
+	/** The directions in which a random coordinate at a distance can lie. */
+	private final static Direction[]	STRAIGHT_DIRECTIONS	= { Direction.NORTH, Direction.EAST,
+			Direction.SOUTH, Direction.WEST				};
+	
+	static {
+		for (Direction direction : Direction.values()) {
+			switch (direction) {
+				case NORTH:
+					setDelta(direction, 0, -1);
+					break;
+				case EAST:
+					setDelta(direction, 1, 0);
+					break;
+				case WEST:
+					setDelta(direction, -1, 0);
+					break;
+				case SOUTH:
+					setDelta(direction, 0, 1);
+					break;
+				case NORTHEAST:
+					setDelta(direction, 1, -1);
+					break;
+				case NORTHWEST:
+					setDelta(direction, -1, -1);
+					break;
+				case SOUTHEAST:
+					setDelta(direction, 1, 1);
+					break;
+				case SOUTHWEST:
+					setDelta(direction, -1, 1);
+					break;
+			}
+		}
+	}
+	
+	private static void setDelta(Direction direction, int dx, int dy) {
+		DELTA_X[direction.ordinal()] = dx;
+		DELTA_Y[direction.ordinal()] = dy;
+	}
+	
 	/**
 	 * create a new coordinate with a specified x and y coordinate
 	 * 
@@ -71,27 +126,112 @@ public class Coordinate {
 	public Coordinate getCoordinateInDirection(Direction direction) {
 		if (direction == null)
 			throw new IllegalArgumentException();
-		switch (direction) {
-			case NORTH:
-				return new Coordinate(x, y - 1);
-			case EAST:
-				return new Coordinate(x + 1, y);
-			case WEST:
-				return new Coordinate(x - 1, y);
-			case SOUTH:
-				return new Coordinate(x, y + 1);
-			case NORTHEAST:
-				return new Coordinate(x + 1, y - 1);
-			case NORTHWEST:
-				return new Coordinate(x - 1, y - 1);
-			case SOUTHEAST:
-				return new Coordinate(x + 1, y + 1);
-			case SOUTHWEST:
-				return new Coordinate(x - 1, y + 1);
-			default:
-				// this can never happen
-				throw new IllegalArgumentException();
-		}
+		return new Coordinate(getXInDirection(x, direction), getYInDirection(y, direction));
+	}
+	
+	/**
+	 * Returns this coordinate packed in a single <code>long</code>. The x
+	 * coordinate is stored in the upper 32 bits, the y coordinate in the
+	 * lower 32 bits.
+	 * 
+	 * @return the packed representation of this coordinate
+	 */
+	public long pack() {
+		return pack(x, y);
+	}
+	
+	/**
+	 * Packs the specified x and y coordinate in a single <code>long</code>.
+	 * The x coordinate is stored in the upper 32 bits, the y coordinate in the
+	 * lower 32 bits. Packed coordinates can be used where allocating a new
+	 * {@link Coordinate} for each position would be too expensive.
+	 * 
+	 * @param x
+	 *        the x coordinate
+	 * @param y
+	 *        the y coordinate
+	 * @return the packed coordinate
+	 */
+	public static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * Returns the x coordinate of a {@link #pack(int, int) packed} coordinate.
+	 * 
+	 * @param packed
+	 *        the packed coordinate
+	 * @return the x coordinate
+	 */
+	public static int unpackX(long packed) {
+		return (int) (packed >> 32);
+	}
+	
+	/**
+	 * Returns the y coordinate of a {@link #pack(int, int) packed} coordinate.
+	 * 
+	 * @param packed
+	 *        the packed coordinate
+	 * @return the y coordinate
+	 */
+	public static int unpackY(long packed) {
+		return (int) packed;
+	}
+	
+	/**
+	 * Returns a new coordinate from a {@link #pack(int, int) packed}
+	 * coordinate.
+	 * 
+	 * @param packed
+	 *        the packed coordinate
+	 * @return the unpacked coordinate
+	 */
+	public static Coordinate unpack(long packed) {
+		return new Coordinate(unpackX(packed), unpackY(packed));
+	}
+	
+	/**
+	 * Returns the {@link #pack(int, int) packed} neighbour of a packed
+	 * coordinate in a specified direction. This is the allocation free
+	 * equivalent of {@link #getCoordinateInDirection(Direction)}.
+	 * 
+	 * @param packed
+	 *        the packed coordinate
+	 * @param direction
+	 *        the direction of the neighbour
+	 * @return the packed neighbour in the specified direction
+	 */
+	public static long getPackedInDirection(long packed, Direction direction) {
+		return pack(getXInDirection(unpackX(packed), direction),
+				getYInDirection(unpackY(packed), direction));
+	}
+	
+	/**
+	 * Returns the x coordinate of the neighbour of a coordinate with the
+	 * specified x coordinate in a specified direction.
+	 * 
+	 * @param x
+	 *        the x coordinate
+	 * @param direction
+	 *        the direction of the neighbour
+	 * @return the x coordinate of the neighbour
+	 */
+	public static int getXInDirection(int x, Direction direction) {
+		return x + DELTA_X[direction.ordinal()];
+	}
+	
+	/**
+	 * Returns the y coordinate of the neighbour of a coordinate with the
+	 * specified y coordinate in a specified direction.
+	 * 
+	 * @param y
+	 *        the y coordinate
+	 * @param direction
+	 *        the direction of the neighbour
+	 * @return the y coordinate of the neighbour
+	 */
+	public static int getYInDirection(int y, Direction direction) {
+		return y + DELTA_Y[direction.ordinal()];
 	}
 	
 	@Override
@@ -101,11 +241,16 @@ public class Coordinate {
 	
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + x;
-		result = prime * result + y;
-		return result;
+		/*
+		 * Mix all bits of the packed coordinate (the finalizer of MurmurHash3),
+		 * so neighbouring coordinates spread over a hash map whatever the
+		 * dimensions of the grid. A plain x * c + y makes whole rows collide
+		 * once a grid is higher than c.
+		 */
+		long hash = pack();
+		hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+		hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return Long.hashCode(hash ^ (hash >>> 33));
 	}
 	
 	@Override
@@ -138,7 +283,24 @@ public class Coordinate {
 	 * @return A random Coordinate between (0,0) and (x,y)
 	 */
 	public static Coordinate random(int x, int y) {
-		return new Coordinate(new Random().nextInt(x), new Random().nextInt(y));
+		return new Coordinate(RANDOM.nextInt(x), RANDOM.nextInt(y));
+	}
+	
+	/**
+	 * returns a new pseudorandom coordinate uniformly distributed between
+	 * {@code new Coordinate(0,0)} (included) and {@code new Coordinate(x, y)}
+	 * (excluded), drawn from the specified random generator.
+	 * 
+	 * @param x
+	 *        The maximum x value
+	 * @param y
+	 *        The maximum y value
+	 * @param random
+	 *        The random generator to draw the coordinate from
+	 * @return A random Coordinate between (0,0) and (x,y)
+	 */
+	public static Coordinate random(int x, int y, SplittableRandom random) {
+		return new Coordinate(random.nextInt(x), random.nextInt(y));
 	}
 	
 	/**
@@ -150,8 +312,26 @@ public class Coordinate {
 	 * @return A Coordinate on the specified distance.
 	 */
 	public Coordinate getRandomCoordinateWithDistance(int distance) {
-		Direction[] directions = { Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST };
-		Direction direction = directions[new Random().nextInt(directions.length)];
+		return getCoordinateWithDistance(distance,
+				STRAIGHT_DIRECTIONS[RANDOM.nextInt(STRAIGHT_DIRECTIONS.length)]);
+	}
+	
+	/**
+	 * Get a random Coordinate with the specified distance from this
+	 * Coordinate, drawn from the specified random generator.
+	 * 
+	 * @param distance
+	 *        The distance the new Coordinate has to have from this Coordinate
+	 * @param random
+	 *        The random generator to draw the coordinate from
+	 * @return A Coordinate on the specified distance.
+	 */
+	public Coordinate getRandomCoordinateWithDistance(int distance, SplittableRandom random) {
+		return getCoordinateWithDistance(distance,
+				STRAIGHT_DIRECTIONS[random.nextInt(STRAIGHT_DIRECTIONS.length)]);
+	}
+	
+	private Coordinate getCoordinateWithDistance(int distance, Direction direction) {
 		switch (direction) {
 			case NORTH:
 				return new Coordinate(x, y - distance);
@@ -184,10 +364,9 @@ public class Coordinate {
 	 *         coordinate, otherwise false
 	 */
 	public boolean isNeighbour(Coordinate coordinate) {
-		for (Direction direction : Direction.values())
-			if (this.getCoordinateInDirection(direction).equals(coordinate))
-				return true;
-		return false;
+		if (coordinate == null || this.equals(coordinate))
+			return false;
+		return Math.abs(x - coordinate.x) <= 1 && Math.abs(y - coordinate.y) <= 1;
 	}
 	
 	/**
@@ -0,0 +1,145 @@
+package grid;
+
+/**
+ * A cache of interned {@link Coordinate coordinates}. Looking up the same
+ * position twice returns the same coordinate object, so code that walks a
+ * grid does not have to allocate a new coordinate for every step.
+ * 
+ * A cache either has fixed dimensions, in which case positions outside those
+ * dimensions are not interned, or grows on demand. The cache is divided in
+ * {@value #CHUNK_SIZE}x{@value #CHUNK_SIZE} chunks that are only allocated
+ * when a position inside them is requested, so sparse grids with a large
+ * bounding box do not pay for the empty parts. At most
+ * {@value #MAXIMUM_DIMENSION} columns and rows are interned.
+ */
+public class CoordinateCache {
+	
+	/** The largest number of columns or rows this cache will intern. */
+	public static final int		MAXIMUM_DIMENSION	= 1 << 14;
+	
+	private static final int	CHUNK_SHIFT			= 5;
+	private static final int	CHUNK_SIZE			= 1 << CHUNK_SHIFT;
+	private static final int	CHUNK_MASK			= CHUNK_SIZE - 1;
+	
+	private Coordinate[][]		chunks;
+	private int					width;
+	private int					height;
+	private int					chunkColumns;
+	private final boolean		growable;
+	
+	/**
+	 * Create a new cache that grows when coordinates outside its current
+	 * dimensions are requested.
+	 */
+	public CoordinateCache() {
+		this(0, 0, true);
+	}
+	
+	/**
+	 * Create a new cache for a grid with the specified dimensions.
+	 * 
+	 * @param width
+	 *        the number of columns of the grid
+	 * @param height
+	 *        the number of rows of the grid
+	 * @throws IllegalArgumentException
+	 *         The dimensions cannot be negative.
+	 */
+	public CoordinateCache(int width, int height) throws IllegalArgumentException {
+		this(width, height, false);
+	}
+	
+	private CoordinateCache(int width, int height, boolean growable) {
+		if (width < 0 || height < 0)
+			throw new IllegalArgumentException("The dimensions of a cache cannot be negative");
+		this.growable = growable;
+		resize(Math.min(width, MAXIMUM_DIMENSION), Math.min(height, MAXIMUM_DIMENSION));
+	}
+	
+	/**
+	 * Returns the coordinate with the specified x and y coordinate. If the
+	 * position lies outside the dimensions of this cache (or is negative), a
+	 * new coordinate is returned.
+	 * 
+	 * @param x
+	 *        the x coordinate
+	 * @param y
+	 *        the y coordinate
+	 * @return the coordinate (x, y)
+	 */
+	public Coordinate get(int x, int y) {
+		if (x < 0 || y < 0)
+			return new Coordinate(x, y);
+		if (x >= width || y >= height) {
+			if (!growable || x >= MAXIMUM_DIMENSION || y >= MAXIMUM_DIMENSION)
+				return new Coordinate(x, y);
+			grow(x + 1, y + 1);
+		}
+		
+		int chunkIndex = (y >>> CHUNK_SHIFT) * chunkColumns + (x >>> CHUNK_SHIFT);
+		Coordinate[] chunk = chunks[chunkIndex];
+		if (chunk == null) {
+			chunk = new Coordinate[CHUNK_SIZE * CHUNK_SIZE];
+			chunks[chunkIndex] = chunk;
+		}
+		
+		int index = ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+		Coordinate coordinate = chunk[index];
+		if (coordinate == null) {
+			coordinate = new Coordinate(x, y);
+			chunk[index] = coordinate;
+		}
+		return coordinate;
+	}
+	
+	/**
+	 * Returns the coordinate of a {@link Coordinate#pack(int, int) packed}
+	 * coordinate.
+	 * 
+	 * @param packed
+	 *        the packed coordinate
+	 * @return the unpacked coordinate
+	 */
+	public Coordinate get(long packed) {
+		return get(Coordinate.unpackX(packed), Coordinate.unpackY(packed));
+	}
+	
+	/**
+	 * Returns the interned equivalent of the specified coordinate.
+	 * 
+	 * @param coordinate
+	 *        the coordinate to intern
+	 * @return an equal coordinate from this cache
+	 */
+	public Coordinate intern(Coordinate coordinate) {
+		return get(coordinate.getX(), coordinate.getY());
+	}
+	
+	/**
+	 * Grow the cache so it covers at least the specified dimensions. Both
+	 * dimensions are doubled to amortize the cost of copying.
+	 */
+	private void grow(int minimumWidth, int minimumHeight) {
+		resize(Math.min(MAXIMUM_DIMENSION, Math.max(minimumWidth, width * 2)),
+				Math.min(MAXIMUM_DIMENSION, Math.max(minimumHeight, height * 2)));
+	}
+	
+	/**
+	 * Resize the cache to the specified dimensions, keeping all the chunks
+	 * that were already allocated.
+	 */
+	private void resize(int newWidth, int newHeight) {
+		int newChunkColumns = (newWidth + CHUNK_MASK) >>> CHUNK_SHIFT;
+		int newChunkRows = (newHeight + CHUNK_MASK) >>> CHUNK_SHIFT;
+		Coordinate[][] newChunks = new Coordinate[newChunkColumns * newChunkRows][];
+		if (chunks != null)
+			for (int row = 0; row < chunks.length / Math.max(1, chunkColumns); row++)
+				System.arraycopy(chunks, row * chunkColumns, newChunks, row * newChunkColumns,
+						chunkColumns);
+		
+		this.chunks = newChunks;
+		this.chunkColumns = newChunkColumns;
+		this.width = newWidth;
+		this.height = newHeight;
+	}
+}
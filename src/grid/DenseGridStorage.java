@@ -0,0 +1,144 @@
+package grid;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import square.SquareContainer;
+
+/**
+ * A {@link GridStorage} for rectangular grids. The squares are kept in a flat
+ * array in row-major order, i.e. the square at coordinate <code>(x, y)</code>
+ * is stored at index <code>y * width + x</code>. Coordinates inside the
+ * bounds of the grid without a square are stored as <code>null</code>.
+ */
+class DenseGridStorage implements GridStorage {
+	
+	private final SquareContainer[]	squares;
+	private final int				width;
+	private final int				height;
+	private final int				size;
+	private final CoordinateCache	coordinates;
+	
+	/**
+	 * Create a new dense storage with the specified squares and dimensions.
+	 * All the coordinates in the specified map must lie within
+	 * <code>(0, 0)</code> (included) and <code>(width, height)</code>
+	 * (excluded).
+	 * 
+	 * @param squares
+	 *        a map that maps the coordinates of each square to the actual
+	 *        square itself
+	 * @param width
+	 *        the number of columns of the grid
+	 * @param height
+	 *        the number of rows of the grid
+	 * @param coordinates
+	 *        the cache used to hand out the coordinates of the squares
+	 * @throws IllegalArgumentException
+	 *         A coordinate of the map lies outside the specified dimensions.
+	 */
+	DenseGridStorage(Map<Coordinate, SquareContainer> squares, int width, int height,
+			CoordinateCache coordinates) {
+		this.width = width;
+		this.height = height;
+		this.squares = new SquareContainer[width * height];
+		
+		for (Map.Entry<Coordinate, SquareContainer> entry : squares.entrySet()) {
+			Coordinate coordinate = entry.getKey();
+			if (!isInBounds(coordinate.getX(), coordinate.getY()))
+				throw new IllegalArgumentException(coordinate + " lies outside the grid bounds");
+			this.squares[indexOf(coordinate.getX(), coordinate.getY())] = entry.getValue();
+		}
+		this.size = squares.size();
+		this.coordinates = coordinates;
+	}
+	
+	private DenseGridStorage(DenseGridStorage storage,
+			Function<SquareContainer, SquareContainer> copyOf, CoordinateCache coordinates) {
+		this.width = storage.width;
+		this.height = storage.height;
+		this.squares = new SquareContainer[storage.squares.length];
+		for (int index = 0; index < squares.length; index++)
+			if (storage.squares[index] != null)
+				this.squares[index] = copyOf.apply(storage.squares[index]);
+		this.size = storage.size;
+		this.coordinates = coordinates;
+	}
+	
+	@Override
+	public DenseGridStorage copy(Function<SquareContainer, SquareContainer> copyOf,
+			CoordinateCache coordinates) {
+		return new DenseGridStorage(this, copyOf, coordinates);
+	}
+	
+	private boolean isInBounds(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
+	}
+	
+	private int indexOf(int x, int y) {
+		return y * width + x;
+	}
+	
+	@Override
+	public SquareContainer get(Coordinate coordinate) {
+		return get(coordinate.getX(), coordinate.getY());
+	}
+	
+	@Override
+	public SquareContainer get(int x, int y) {
+		if (!isInBounds(x, y))
+			return null;
+		return squares[indexOf(x, y)];
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	@Override
+	public Iterator<SquareContainer> iterator() {
+		return new Iterator<SquareContainer>() {
+			
+			private int	index	= nextIndex(0);
+			
+			private int nextIndex(int from) {
+				while (from < squares.length && squares[from] == null)
+					from++;
+				return from;
+			}
+			
+			@Override
+			public boolean hasNext() {
+				return index < squares.length;
+			}
+			
+			@Override
+			public SquareContainer next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				SquareContainer square = squares[index];
+				index = nextIndex(index + 1);
+				return square;
+			}
+			
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	@Override
+	public List<Coordinate> rowMajorCoordinates() {
+		List<Coordinate> result = new ArrayList<Coordinate>(size);
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				if (squares[indexOf(x, y)] != null)
+					result.add(coordinates.get(x, y));
+		return result;
+	}
+}
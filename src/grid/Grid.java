@@ -2,25 +2,67 @@ package grid;
 
 import grid.builder.GridBuilder;
 import grid.builder.GridBuilderDirector;
+import grid.builder.TronFileParser;
+import item.IItem;
+import item.teleporter.Teleporter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import square.Direction;
+import square.PropertyType;
 import square.SquareContainer;
+import square.SquareListener;
 
 /**
  * A grid that consists of {@link SquareContainer squares}.
  * 
+ * Rectangular grids are stored in a {@link DenseGridStorage flat array}. Large
+ * sparse or irregular grids are divided in lazily allocated
+ * {@link ChunkedGridStorage chunks}, and only grids with very few squares in a
+ * huge bounding box fall back on a {@link HashGridStorage hash map}.
+ * 
  */
 public class Grid implements IGrid {
 	
-	private Map<Coordinate, SquareContainer>	grid;
+	/**
+	 * The minimal fraction of the bounding box of the grid that must be
+	 * covered by squares to use a dense storage. Sparser grids use a chunked
+	 * storage, as long as there are at least as many squares as chunks.
+	 */
+	static final double				MINIMUM_DENSE_FILL_RATIO	= 0.5;
+	
+	private GridStorage				grid;
 	private List<SquareContainer>	startingpositions;
+	private int						width;
+	private int						height;
+	private List<Coordinate>		rowMajorCoordinates;
+	private CoordinateCache			coordinates;
+	private PropertyBitboards		bitboards;
+	private SquareContainer[]		squareArray;
+	private ItemIndex				itemIndex;
+	private volatile SnapshotPublisher	snapshotPublisher;
+	private SquareListener			squareListener;
 	
 	/**
-	 * Create a new grid with a specified grid and player map.
+	 * Create a new grid with a specified grid and player map. The dimensions
+	 * of the grid are derived from the largest coordinates in the map.
+	 * 
+	 * Squares with a negative coordinate are accepted, the grid is then kept
+	 * in a {@link HashGridStorage hash map}. These squares can be found with
+	 * {@link #getSquareAt(Coordinate)}, but they lie outside the dimensions
+	 * of the grid, so they are left out of the queries and snapshots that
+	 * cover the area of the grid.
 	 * 
 	 * <br>
 	 * <b>One should not use this constructor. Use a {@link GridBuilder builder}
@@ -33,10 +75,153 @@ public class Grid implements IGrid {
 	 *        a sorted list of all the startingpositions on the grid (from smaller to larger).
 	 */
 	public Grid(Map<Coordinate, SquareContainer> grid, List<SquareContainer> startingpositions) {
+		this(grid, startingpositions, getMaxCoordinate(grid, true) + 1, getMaxCoordinate(grid,
+				false) + 1, false);
+	}
+	
+	/**
+	 * Create a new grid with a specified grid, player map and dimensions.
+	 * 
+	 * <br>
+	 * <b>One should not use this constructor. Use a {@link GridBuilder builder}
+	 * and a {@link GridBuilderDirector director} instead.<b>
+	 * 
+	 * @param grid
+	 *        a map that maps the coordinates of each square to the actual
+	 *        square itself
+	 * @param startingpositions
+	 *        a sorted list of all the startingpositions on the grid (from
+	 *        smaller to larger).
+	 * @param width
+	 *        the number of columns of the grid
+	 * @param height
+	 *        the number of rows of the grid
+	 * @throws IllegalArgumentException
+	 *         All the coordinates in the map must lie between
+	 *         <code>(0, 0)</code> (included) and <code>(width, height)</code>
+	 *         (excluded).
+	 */
+	public Grid(Map<Coordinate, SquareContainer> grid, List<SquareContainer> startingpositions,
+			int width, int height) throws IllegalArgumentException {
+		this(grid, startingpositions, width, height, true);
+	}
+	
+	/**
+	 * Create a new grid with the specified dimensions. If the coordinates are
+	 * not checked, squares outside the dimensions are kept in a hash map.
+	 */
+	private Grid(Map<Coordinate, SquareContainer> grid, List<SquareContainer> startingpositions,
+			int width, int height, boolean checkCoordinates) throws IllegalArgumentException {
 		if (grid == null || startingpositions == null)
 			throw new IllegalArgumentException("Null input, grid could not be created!");
+		boolean outside = false;
+		for (Coordinate c : grid.keySet())
+			if (c.getX() < 0 || c.getX() >= width || c.getY() < 0 || c.getY() >= height) {
+				if (checkCoordinates)
+					throw new IllegalArgumentException(c
+							+ " lies outside the dimensions of the grid");
+				outside = true;
+			}
+		
+		this.startingpositions = startingpositions;
+		this.width = width;
+		this.height = height;
+		this.coordinates = new CoordinateCache(width, height);
+		
+		if (outside)
+			this.grid = new HashGridStorage(grid);
+		else if (grid.size() >= MINIMUM_DENSE_FILL_RATIO * ((double) width * height))
+			this.grid = new DenseGridStorage(grid, width, height, coordinates);
+		else if (grid.size() >= (long) ChunkedGridStorage.getNumberOfChunks(width)
+				* ChunkedGridStorage.getNumberOfChunks(height))
+			this.grid = new ChunkedGridStorage(grid, width, height, coordinates);
+		else
+			this.grid = new HashGridStorage(grid);
+	}
+	
+	private Grid(GridStorage grid, List<SquareContainer> startingpositions, int width, int height,
+			CoordinateCache coordinates) {
 		this.grid = grid;
 		this.startingpositions = startingpositions;
+		this.width = width;
+		this.height = height;
+		this.coordinates = coordinates;
+	}
+	
+	/**
+	 * Returns a deep copy of this grid. The copy has new squares, linked to
+	 * each other in the same way as the squares of this grid, a copy of every
+	 * item on this grid and the same starting positions. Teleporters on the
+	 * copy lead to the copies of their destinations.
+	 * 
+	 * Only a grid on which no game was played yet can be copied, so a freshly
+	 * built grid can be kept as a prototype for new games.
+	 * 
+	 * @return a copy of this grid
+	 * @throws IllegalStateException
+	 *         There is a player on the grid, or the grid has changed since
+	 *         it was built.
+	 */
+	public Grid copy() throws IllegalStateException {
+		Map<SquareContainer, SquareContainer> copies =
+				new IdentityHashMap<SquareContainer, SquareContainer>();
+		CoordinateCache coordinatesOfCopy = new CoordinateCache(width, height);
+		GridStorage storage = grid.copy(square -> {
+			SquareContainer copy = square.copy();
+			copies.put(square, copy);
+			return copy;
+		}, coordinatesOfCopy);
+		
+		// link the copies to the copies of their neighbours
+		for (Coordinate coordinate : getRowMajorCoordinates()) {
+			SquareContainer square = grid.get(coordinate);
+			for (Direction direction : Direction.values()) {
+				SquareContainer neighbour = square.getNeighbourIn(direction);
+				if (neighbour != null && copies.containsKey(neighbour))
+					SquareContainer.link(copies.get(square), direction, copies.get(neighbour));
+			}
+		}
+		
+		// restore the destinations of the teleporters, which the squares copy
+		// in the same order as the original items
+		Map<Teleporter, Teleporter> teleporters = new IdentityHashMap<Teleporter, Teleporter>();
+		for (Map.Entry<SquareContainer, SquareContainer> entry : copies.entrySet()) {
+			List<IItem> items = entry.getKey().getAllItems();
+			List<IItem> copiedItems = entry.getValue().getAllItems();
+			for (int i = 0; i < items.size(); i++)
+				if (items.get(i) instanceof Teleporter)
+					teleporters.put((Teleporter) items.get(i), (Teleporter) copiedItems.get(i));
+		}
+		for (Map.Entry<Teleporter, Teleporter> entry : teleporters.entrySet())
+			if (entry.getKey().getDestination() != null) {
+				Teleporter destination = teleporters.get(entry.getKey().getDestination());
+				if (destination == null)
+					throw new IllegalStateException(
+							"The destination of a teleporter does not lie on the grid");
+				entry.getValue().setDestination(destination);
+			}
+		
+		List<SquareContainer> startingpositionsOfCopy = new ArrayList<SquareContainer>();
+		for (SquareContainer startingposition : startingpositions) {
+			if (!copies.containsKey(startingposition))
+				throw new IllegalStateException("A starting position does not lie on the grid");
+			startingpositionsOfCopy.add(copies.get(startingposition));
+		}
+		return new Grid(storage, startingpositionsOfCopy, width, height, coordinatesOfCopy);
+	}
+	
+	/**
+	 * Returns the largest x (or y) coordinate in the specified map, or 0 if
+	 * the map is empty.
+	 */
+	private static int getMaxCoordinate(Map<Coordinate, SquareContainer> grid, boolean x) {
+		if (grid == null)
+			throw new IllegalArgumentException("Null input, grid could not be created!");
+		
+		int max = 0;
+		for (Coordinate c : grid.keySet())
+			max = Math.max(max, x ? c.getX() : c.getY());
+		return max;
 	}
 	
 	/**
@@ -55,7 +240,10 @@ public class Grid implements IGrid {
 	 * @return returns the grid
 	 */
 	Map<Coordinate, SquareContainer> getGrid() {
-		return new HashMap<Coordinate, SquareContainer>(grid);
+		Map<Coordinate, SquareContainer> result = new HashMap<Coordinate, SquareContainer>();
+		for (Coordinate coordinate : getRowMajorCoordinates())
+			result.put(coordinate, grid.get(coordinate));
+		return result;
 	}
 	
 	/**
@@ -66,7 +254,44 @@ public class Grid implements IGrid {
 	 * @return an iterator over the squares of this grid.
 	 */
 	public Iterator<SquareContainer> getGridIterator() {
-		return new GridIterator(this.grid.values().iterator());
+		return new GridIterator(this.grid.iterator());
+	}
+	
+	/**
+	 * Returns a sequential stream over all the {@link SquareContainer squares}
+	 * in the grid, in row-major order.
+	 * 
+	 * @return a stream over the squares of this grid
+	 */
+	public Stream<SquareContainer> squares() {
+		return StreamSupport.stream(getSquareSpliterator(), false);
+	}
+	
+	/**
+	 * Returns a parallel stream over all the {@link SquareContainer squares}
+	 * in the grid. The squares are split in row-major order over the threads of
+	 * the common fork/join pool.
+	 * 
+	 * @return a parallel stream over the squares of this grid
+	 */
+	public Stream<SquareContainer> parallelSquares() {
+		return StreamSupport.stream(getSquareSpliterator(), true);
+	}
+	
+	/**
+	 * Returns a sized spliterator over the squares of this grid, which splits
+	 * in halves of exactly known size.
+	 */
+	private Spliterator<SquareContainer> getSquareSpliterator() {
+		if (squareArray == null) {
+			SquareContainer[] array = new SquareContainer[grid.size()];
+			int index = 0;
+			for (Coordinate coordinate : getRowMajorCoordinates())
+				array[index++] = grid.get(coordinate);
+			squareArray = array;
+		}
+		return Spliterators.spliterator(squareArray, Spliterator.ORDERED | Spliterator.NONNULL
+				| Spliterator.IMMUTABLE);
 	}
 	
 	@Override
@@ -76,19 +301,291 @@ public class Grid implements IGrid {
 		return grid.get(coordinate);
 	}
 	
+	/**
+	 * Returns the coordinate with the specified x and y coordinate. Within the
+	 * dimensions of this grid, the same coordinate object is returned for
+	 * every call with the same arguments.
+	 * 
+	 * @param x
+	 *        the x coordinate
+	 * @param y
+	 *        the y coordinate
+	 * @return the coordinate (x, y)
+	 */
+	public Coordinate getCoordinate(int x, int y) {
+		return coordinates.get(x, y);
+	}
+	
+	/**
+	 * Returns whether the square at the specified position has a property of
+	 * the specified type. Positions without a square never have a property.
+	 * 
+	 * @param x
+	 *        the x coordinate of the square
+	 * @param y
+	 *        the y coordinate of the square
+	 * @param type
+	 *        the type of the property
+	 * @return true if the square has the property, else false
+	 * @throws IllegalArgumentException
+	 *         The specified type cannot be <code>null</code>.
+	 * @throws IllegalStateException
+	 *         The bounding box of this grid is too large to track its
+	 *         properties.
+	 */
+	public boolean hasProperty(int x, int y, PropertyType type) throws IllegalArgumentException,
+			IllegalStateException {
+		if (type == null)
+			throw new IllegalArgumentException("the property type cannot be null");
+		return getBitboards().get(x, y, type);
+	}
+	
+	/**
+	 * Returns whether any square in the specified rectangle has a property of
+	 * the specified type. The parts of the rectangle outside the grid are
+	 * ignored.
+	 * 
+	 * @param x
+	 *        the x coordinate of the upper left corner of the rectangle
+	 * @param y
+	 *        the y coordinate of the upper left corner of the rectangle
+	 * @param width
+	 *        the number of columns of the rectangle
+	 * @param height
+	 *        the number of rows of the rectangle
+	 * @param type
+	 *        the type of the property
+	 * @return true if a square in the rectangle has the property, else false
+	 * @throws IllegalArgumentException
+	 *         The specified type cannot be <code>null</code>.
+	 * @throws IllegalStateException
+	 *         The bounding box of this grid is too large to track its
+	 *         properties.
+	 */
+	public boolean hasPropertyInArea(int x, int y, int width, int height, PropertyType type)
+			throws IllegalArgumentException, IllegalStateException {
+		if (type == null)
+			throw new IllegalArgumentException("the property type cannot be null");
+		return getBitboards().any(x, y, width, height, type);
+	}
+	
+	/**
+	 * Returns the coordinates of all the squares with a property of the
+	 * specified type, in row-major order.
+	 * 
+	 * @param type
+	 *        the type of the property
+	 * @return the coordinates of the squares with the property
+	 * @throws IllegalArgumentException
+	 *         The specified type cannot be <code>null</code>.
+	 * @throws IllegalStateException
+	 *         The bounding box of this grid is too large to track its
+	 *         properties.
+	 */
+	public List<Coordinate> getCoordinatesWithProperty(PropertyType type)
+			throws IllegalArgumentException, IllegalStateException {
+		if (type == null)
+			throw new IllegalArgumentException("the property type cannot be null");
+		return getBitboards().coordinatesWith(type, coordinates);
+	}
+	
+	/**
+	 * Returns the property bitboards of this grid, creating them the first
+	 * time they are needed.
+	 */
+	private PropertyBitboards getBitboards() {
+		if (bitboards == null) {
+			bitboards = new PropertyBitboards(this);
+			listenToSquares();
+		}
+		return bitboards;
+	}
+	
+	/**
+	 * Returns the coordinates of all the squares holding an item of the
+	 * specified type (or one of its subtypes), in row-major order.
+	 * 
+	 * @param type
+	 *        the type of the items
+	 * @return the coordinates of the squares holding such an item
+	 * @throws IllegalArgumentException
+	 *         The specified type cannot be <code>null</code>.
+	 */
+	public List<Coordinate> getCoordinatesWithItem(Class<? extends IItem> type)
+			throws IllegalArgumentException {
+		if (type == null)
+			throw new IllegalArgumentException("the item type cannot be null");
+		return getItemIndex().find(type);
+	}
+	
+	/**
+	 * Returns the coordinates of all the squares in the specified rectangle
+	 * holding an item of the specified type (or one of its subtypes), in
+	 * row-major order. The parts of the rectangle outside the grid are
+	 * ignored.
+	 * 
+	 * @param type
+	 *        the type of the items
+	 * @param x
+	 *        the x coordinate of the upper left corner of the rectangle
+	 * @param y
+	 *        the y coordinate of the upper left corner of the rectangle
+	 * @param width
+	 *        the number of columns of the rectangle
+	 * @param height
+	 *        the number of rows of the rectangle
+	 * @return the coordinates of the squares in the rectangle holding such an
+	 *         item
+	 * @throws IllegalArgumentException
+	 *         The specified type cannot be <code>null</code>, and the width
+	 *         and height cannot be negative.
+	 */
+	public List<Coordinate> getCoordinatesWithItem(Class<? extends IItem> type, int x, int y,
+			int width, int height) throws IllegalArgumentException {
+		if (type == null)
+			throw new IllegalArgumentException("the item type cannot be null");
+		return getItemIndex().find(type, x, y, width, height);
+	}
+	
+	/**
+	 * Returns the item index of this grid, creating it the first time it is
+	 * needed.
+	 */
+	private ItemIndex getItemIndex() {
+		if (itemIndex == null) {
+			itemIndex = new ItemIndex(this);
+			listenToSquares();
+		}
+		return itemIndex;
+	}
+	
+	/**
+	 * Publish a new immutable {@link GridSnapshot snapshot} of the current
+	 * state of this grid. Only the parts of the grid that changed since the
+	 * previous snapshot are copied. This method must be called by the thread
+	 * that changes the grid, e.g. when the game starts and after each action.
+	 * 
+	 * @return the published snapshot
+	 */
+	public GridSnapshot publishSnapshot() {
+		SnapshotPublisher publisher = snapshotPublisher;
+		if (publisher == null) {
+			publisher = new SnapshotPublisher(this);
+			snapshotPublisher = publisher;
+			listenToSquares();
+		}
+		return publisher.publish();
+	}
+	
+	/**
+	 * Returns the last {@link #publishSnapshot() published} snapshot of this
+	 * grid, or null if no snapshot was published yet. Snapshots are immutable
+	 * and can be read from any thread without locking.
+	 * 
+	 * @return the last published snapshot
+	 */
+	public GridSnapshot getSnapshot() {
+		SnapshotPublisher publisher = snapshotPublisher;
+		return publisher == null ? null : publisher.getCurrent();
+	}
+	
+	/**
+	 * Let the squares of this grid notify this grid of their changes, with
+	 * their index in row-major order. A single listener is shared by all the
+	 * squares, and passes the changes on to the bitboards, the item index and
+	 * the snapshot publisher of this grid.
+	 */
+	private void listenToSquares() {
+		if (squareListener != null)
+			return;
+		squareListener = new SquareChanges();
+		List<Coordinate> squareCoordinates = getRowMajorCoordinates();
+		for (int index = 0; index < squareCoordinates.size(); index++)
+			grid.get(squareCoordinates.get(index)).setSquareListener(squareListener, index);
+	}
+	
+	/**
+	 * Passes the changes of the squares of this grid on to the data
+	 * structures that track them.
+	 */
+	private class SquareChanges implements SquareListener {
+		
+		@Override
+		public void propertiesChanged(SquareContainer square, int index) {
+			if (bitboards != null)
+				bitboards.propertiesChanged(square, index);
+			if (snapshotPublisher != null)
+				snapshotPublisher.propertiesChanged(square, index);
+		}
+		
+		@Override
+		public void contentsChanged(SquareContainer square, int index) {
+			if (itemIndex != null)
+				itemIndex.contentsChanged(square, index);
+			if (snapshotPublisher != null)
+				snapshotPublisher.contentsChanged(square, index);
+		}
+	}
+	
+	/**
+	 * Returns the neighbour of the square at the specified coordinate in the
+	 * specified direction, or null if there is no square in that direction.
+	 * 
+	 * @param coordinate
+	 *        the coordinate of the square
+	 * @param direction
+	 *        the direction of the neighbour
+	 * @return the neighbouring square in the specified direction
+	 * @throws IllegalArgumentException
+	 *         The specified coordinate and direction cannot be
+	 *         <code>null</code>.
+	 */
+	public SquareContainer getSquareInDirection(Coordinate coordinate, Direction direction)
+			throws IllegalArgumentException {
+		if (coordinate == null || direction == null)
+			throw new IllegalArgumentException("the coordinate and direction cannot be null");
+		return grid.get(Coordinate.getXInDirection(coordinate.getX(), direction),
+				Coordinate.getYInDirection(coordinate.getY(), direction));
+	}
+	
+	/**
+	 * Write this grid to the specified output, in the text format that is read
+	 * by the {@link TronFileParser}. The grid is written row by row in a single
+	 * pass, so a grid written by this method can be loaded again as a grid
+	 * file.
+	 * 
+	 * @param out
+	 *        the output to write to
+	 * @throws IOException
+	 *         Writing to the output failed.
+	 * @throws IllegalArgumentException
+	 *         The specified output cannot be <code>null</code>.
+	 * @throws IllegalStateException
+	 *         The grid has more starting positions than can be written in the
+	 *         file format, a teleporter has no destination on the grid, or a
+	 *         square lies outside the dimensions of the grid.
+	 */
+	public void writeTo(Appendable out) throws IOException, IllegalArgumentException,
+			IllegalStateException {
+		if (out == null)
+			throw new IllegalArgumentException("the output cannot be null");
+		new GridFileWriter(this).write(out);
+	}
+	
 	@Override
 	public String toString() {
-		String str = "";
-		for (int i = 0; i < getHeight(); i++) {
-			for (int j = 0; j < getWidth(); j++) {
-				if (grid.get(new Coordinate(j, i)) == null)
-					str += "  ";
+		StringBuilder str = new StringBuilder(width * height * 2 + height);
+		for (int i = 0; i < height; i++) {
+			for (int j = 0; j < width; j++) {
+				SquareContainer square = grid.get(j, i);
+				if (square == null)
+					str.append("  ");
 				else
-					str += grid.get(new Coordinate(j, i)).toString();
+					str.append(square.toString());
 			}
-			str += "\n";
+			str.append('\n');
 		}
-		return str;
+		return str.toString();
 	}
 	
 	/**
@@ -97,15 +594,7 @@ public class Grid implements IGrid {
 	 * @return The number of rows in the grid.
 	 */
 	public int getHeight() {
-		Set<Coordinate> gridCoords = grid.keySet();
-		
-		int maxYCoord = 0;
-		for (Coordinate c : gridCoords) {
-			if (c.getY() > maxYCoord)
-				maxYCoord = c.getY();
-		}
-		
-		return maxYCoord + 1;
+		return height;
 	}
 	
 	/**
@@ -114,20 +603,25 @@ public class Grid implements IGrid {
 	 * @return The number of columns in the grid.
 	 */
 	public int getWidth() {
-		Set<Coordinate> gridCoords = grid.keySet();
-		
-		int maxXCoord = 0;
-		for (Coordinate c : gridCoords) {
-			if (c.getX() > maxXCoord)
-				maxXCoord = c.getX();
-		}
-		
-		return maxXCoord + 1;
+		return width;
 	}
 	
 	@Override
 	public Set<Coordinate> getAllGridCoordinates() {
-		return new HashSet<Coordinate>(this.grid.keySet());
+		return new LinkedHashSet<Coordinate>(getRowMajorCoordinates());
+	}
+	
+	/**
+	 * Returns an immutable list of the coordinates of all the squares in this
+	 * grid, in row-major order (i.e. sorted by their y-coordinate first and
+	 * then by their x-coordinate).
+	 * 
+	 * @return the coordinates of the squares in row-major order
+	 */
+	public List<Coordinate> getRowMajorCoordinates() {
+		if (rowMajorCoordinates == null)
+			rowMajorCoordinates = Collections.unmodifiableList(grid.rowMajorCoordinates());
+		return rowMajorCoordinates;
 	}
 	
 	/**
@@ -0,0 +1,141 @@
+package grid;
+
+import grid.builder.TronFileParser;
+import item.IItem;
+import item.forcefieldgenerator.ForceFieldGenerator;
+import item.identitydisk.ChargedIdentityDisk;
+import item.identitydisk.UnchargedIdentityDisk;
+import item.lightgrenade.LightGrenade;
+import item.teleporter.Teleporter;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import square.PropertyType;
+import square.SquareContainer;
+
+/**
+ * Writes a {@link Grid} in the text format read by the {@link TronFileParser}.
+ * Every square is written as a single character, optionally followed by the
+ * annotations of the items on it:
+ * <ul>
+ * <li><code>' '</code> for a normal square,</li>
+ * <li><code>'#'</code> for a wall,</li>
+ * <li><code>'*'</code> for a position without a square,</li>
+ * <li>the number of the starting position for a starting square,</li>
+ * <li><code>:LG</code>, <code>:CID</code>, <code>:UID</code>,
+ * <code>:FFG</code> and <code>:T.x.y</code> for light grenades, charged and
+ * uncharged identity disks, force field generators and teleporters with their
+ * destination.</li>
+ * </ul>
+ * The grid is written row by row, each row is followed by a newline. Items
+ * that cannot be described in the file format (e.g. flags) are left out. A
+ * grid that would be read back as a different grid (e.g. with a teleporter
+ * without a destination) is not written at all.
+ */
+class GridFileWriter {
+	
+	private final Grid								grid;
+	private final Map<SquareContainer, Integer>		startingPositions;
+	private Map<SquareContainer, Coordinate>		coordinates;
+	
+	/**
+	 * Create a new writer for the specified grid.
+	 * 
+	 * @param grid
+	 *        the grid to write
+	 */
+	GridFileWriter(Grid grid) {
+		this.grid = grid;
+		this.startingPositions = new IdentityHashMap<SquareContainer, Integer>();
+		List<SquareContainer> starts = grid.getAllStartingPositions();
+		for (int i = 0; i < starts.size(); i++)
+			startingPositions.put(starts.get(i), i + 1);
+	}
+	
+	/**
+	 * Write the grid to the specified output. The squares are written in a
+	 * single pass, using one row buffer for the whole grid.
+	 * 
+	 * @param out
+	 *        the output to write to
+	 * @throws IOException
+	 *         Writing to the output failed.
+	 * @throws IllegalStateException
+	 *         A starting position has a number that does not fit in a single
+	 *         digit, a teleporter has no destination on the grid, or a square
+	 *         lies outside the dimensions of the grid.
+	 */
+	void write(Appendable out) throws IOException, IllegalStateException {
+		for (Coordinate coordinate : grid.getRowMajorCoordinates())
+			if (coordinate.getX() < 0 || coordinate.getY() < 0)
+				throw new IllegalStateException("the square at " + coordinate
+						+ " lies outside the dimensions of the grid");
+		
+		StringBuilder row = new StringBuilder(grid.getWidth() * 2);
+		for (int y = 0; y < grid.getHeight(); y++) {
+			row.setLength(0);
+			for (int x = 0; x < grid.getWidth(); x++)
+				appendSquare(row, grid.getSquareAt(grid.getCoordinate(x, y)));
+			row.append('\n');
+			out.append(row);
+		}
+	}
+	
+	private void appendSquare(StringBuilder row, SquareContainer square) {
+		if (square == null) {
+			row.append('*');
+			return;
+		}
+		if (square.hasProperty(PropertyType.WALL)) {
+			row.append('#');
+			return;
+		}
+		
+		Integer start = startingPositions.get(square);
+		if (start != null && square.hasProperty(PropertyType.STARTING_POSITION)) {
+			if (start > 9)
+				throw new IllegalStateException("starting position " + start
+						+ " cannot be written as a single digit");
+			row.append((char) ('0' + start));
+		}
+		else
+			row.append(' ');
+		
+		for (IItem item : square.getAllItems())
+			appendItem(row, item);
+	}
+	
+	private void appendItem(StringBuilder row, IItem item) {
+		if (item instanceof LightGrenade)
+			row.append(":LG");
+		else if (item instanceof ChargedIdentityDisk)
+			row.append(":CID");
+		else if (item instanceof UnchargedIdentityDisk)
+			row.append(":UID");
+		else if (item instanceof ForceFieldGenerator)
+			row.append(":FFG");
+		else if (item instanceof Teleporter) {
+			Teleporter destination = ((Teleporter) item).getDestination();
+			Coordinate coordinate = destination == null ? null : getCoordinateOf(destination
+					.getSquare());
+			if (coordinate == null)
+				throw new IllegalStateException("a teleporter without a destination on the grid"
+						+ " cannot be written");
+			row.append(":T.").append(coordinate.getX()).append('.').append(coordinate.getY());
+		}
+	}
+	
+	/**
+	 * Returns the coordinate of the specified square. The coordinates of all
+	 * the squares are looked up once, the first time a teleporter is written.
+	 */
+	private Coordinate getCoordinateOf(SquareContainer square) {
+		if (coordinates == null) {
+			coordinates = new IdentityHashMap<SquareContainer, Coordinate>(grid.size());
+			for (Coordinate coordinate : grid.getRowMajorCoordinates())
+				coordinates.put(grid.getSquareAt(coordinate), coordinate);
+		}
+		return coordinates.get(square);
+	}
+}
@@ -0,0 +1,120 @@
+package grid;
+
+import java.util.Set;
+
+/**
+ * An immutable version of the state of a {@link Grid}, as published by
+ * {@link Grid#publishSnapshot()}. Snapshots only hold values, no live game
+ * objects, so they can be read from any thread without locking, while the
+ * game keeps changing the grid itself.
+ * 
+ * The squares of a snapshot are stored in the same
+ * {@value ChunkedGridStorage#CHUNK_SIZE}x{@value ChunkedGridStorage#CHUNK_SIZE}
+ * chunks as a {@link ChunkedGridStorage}. Chunks in which nothing changed
+ * between two versions are shared by both snapshots, chunks without squares
+ * are not stored at all.
+ */
+public class GridSnapshot {
+	
+	private final long					epoch;
+	private final int					width;
+	private final int					height;
+	private final int					chunkColumns;
+	private final SquareSnapshot[][]	chunks;
+	private final Set<Coordinate>		coordinates;
+	
+	/**
+	 * Create a new snapshot with the specified chunks.
+	 * 
+	 * @param epoch
+	 *        the version number of this snapshot
+	 * @param width
+	 *        the number of columns of the grid
+	 * @param height
+	 *        the number of rows of the grid
+	 * @param chunks
+	 *        the chunks of square snapshots, in row-major order
+	 * @param coordinates
+	 *        an immutable set of the coordinates of all the squares
+	 */
+	GridSnapshot(long epoch, int width, int height, SquareSnapshot[][] chunks,
+			Set<Coordinate> coordinates) {
+		this.epoch = epoch;
+		this.width = width;
+		this.height = height;
+		this.chunkColumns = ChunkedGridStorage.getNumberOfChunks(width);
+		this.chunks = chunks;
+		this.coordinates = coordinates;
+	}
+	
+	/**
+	 * Returns the version number of this snapshot. Each snapshot published by
+	 * a grid has a higher number than the previous one.
+	 * 
+	 * @return the version number of this snapshot
+	 */
+	public long getEpoch() {
+		return epoch;
+	}
+	
+	/**
+	 * Returns the square at the specified coordinate, or null if there was no
+	 * square at that coordinate.
+	 * 
+	 * @param coordinate
+	 *        the coordinate of the square
+	 * @return the square at the coordinate
+	 * @throws IllegalArgumentException
+	 *         The specified coordinate cannot be <code>null</code>.
+	 */
+	public SquareSnapshot getSquareAt(Coordinate coordinate) throws IllegalArgumentException {
+		if (coordinate == null)
+			throw new IllegalArgumentException("the specified coordinate cannot be null");
+		int x = coordinate.getX();
+		int y = coordinate.getY();
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			return null;
+		SquareSnapshot[] chunk = getChunk(x, y);
+		if (chunk == null)
+			return null;
+		int mask = ChunkedGridStorage.CHUNK_SIZE - 1;
+		return chunk[((y & mask) << ChunkedGridStorage.CHUNK_SHIFT) | (x & mask)];
+	}
+	
+	/**
+	 * Returns the chunk containing the specified position, or null if there
+	 * are no squares in that chunk.
+	 */
+	SquareSnapshot[] getChunk(int x, int y) {
+		return chunks[(y >>> ChunkedGridStorage.CHUNK_SHIFT) * chunkColumns
+				+ (x >>> ChunkedGridStorage.CHUNK_SHIFT)];
+	}
+	
+	/**
+	 * Returns an immutable set of the coordinates of all the squares, in
+	 * row-major order.
+	 * 
+	 * @return the coordinates of the squares
+	 */
+	public Set<Coordinate> getAllGridCoordinates() {
+		return coordinates;
+	}
+	
+	/**
+	 * Returns the number of columns of the grid.
+	 * 
+	 * @return the width of the grid
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Returns the number of rows of the grid.
+	 * 
+	 * @return the height of the grid
+	 */
+	public int getHeight() {
+		return height;
+	}
+}
@@ -0,0 +1,71 @@
+package grid;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import square.SquareContainer;
+
+/**
+ * The backing store of a {@link Grid}. A storage maps the coordinates of a
+ * grid on the {@link SquareContainer squares} placed on them. Different
+ * implementations can be used depending on the shape of the grid.
+ */
+interface GridStorage {
+	
+	/**
+	 * Returns the square at the specified coordinate or null if there is no
+	 * square at that coordinate.
+	 * 
+	 * @param coordinate
+	 *        the coordinate of the square
+	 * @return the square at the specified coordinate
+	 */
+	SquareContainer get(Coordinate coordinate);
+	
+	/**
+	 * Returns the square at the specified position or null if there is no
+	 * square at that position.
+	 * 
+	 * @param x
+	 *        the x coordinate of the square
+	 * @param y
+	 *        the y coordinate of the square
+	 * @return the square at the specified position
+	 */
+	SquareContainer get(int x, int y);
+	
+	/**
+	 * Returns the number of squares in this storage.
+	 * 
+	 * @return the number of squares
+	 */
+	int size();
+	
+	/**
+	 * Returns an iterator over all the squares in this storage.
+	 * 
+	 * @return an iterator over the squares
+	 */
+	Iterator<SquareContainer> iterator();
+	
+	/**
+	 * Returns a new list with the coordinates of all the squares in this
+	 * storage, sorted in row-major order.
+	 * 
+	 * @return the coordinates of the squares in row-major order
+	 */
+	List<Coordinate> rowMajorCoordinates();
+	
+	/**
+	 * Returns a new storage of the same shape, in which each square is
+	 * replaced by its copy.
+	 * 
+	 * @param copyOf
+	 *        the function that returns the copy of each square
+	 * @param coordinates
+	 *        the cache used by the new storage to hand out coordinates
+	 * @return a copy of this storage
+	 */
+	GridStorage copy(Function<SquareContainer, SquareContainer> copyOf,
+			CoordinateCache coordinates);
+}
@@ -0,0 +1,79 @@
+package grid;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import square.SquareContainer;
+
+/**
+ * A {@link GridStorage} that keeps the squares in a hash map. This storage is
+ * used as a fallback for grids with so few squares in such a large bounding
+ * box that even a {@link ChunkedGridStorage chunked storage} would waste too
+ * much memory.
+ */
+class HashGridStorage implements GridStorage {
+	
+	private Map<Coordinate, SquareContainer>	squares;
+	
+	/**
+	 * Create a new hash storage with the specified squares.
+	 * 
+	 * @param squares
+	 *        a map that maps the coordinates of each square to the actual
+	 *        square itself
+	 */
+	HashGridStorage(Map<Coordinate, SquareContainer> squares) {
+		this.squares = new HashMap<Coordinate, SquareContainer>(squares);
+	}
+	
+	@Override
+	public HashGridStorage copy(Function<SquareContainer, SquareContainer> copyOf,
+			CoordinateCache coordinates) {
+		Map<Coordinate, SquareContainer> copies = new HashMap<Coordinate, SquareContainer>();
+		for (Map.Entry<Coordinate, SquareContainer> entry : squares.entrySet())
+			copies.put(entry.getKey(), copyOf.apply(entry.getValue()));
+		return new HashGridStorage(copies);
+	}
+	
+	@Override
+	public SquareContainer get(Coordinate coordinate) {
+		return squares.get(coordinate);
+	}
+	
+	@Override
+	public SquareContainer get(int x, int y) {
+		return squares.get(new Coordinate(x, y));
+	}
+	
+	@Override
+	public int size() {
+		return squares.size();
+	}
+	
+	@Override
+	public Iterator<SquareContainer> iterator() {
+		return squares.values().iterator();
+	}
+	
+	@Override
+	public List<Coordinate> rowMajorCoordinates() {
+		List<Coordinate> coordinates = new ArrayList<Coordinate>(squares.keySet());
+		Collections.sort(coordinates, new Comparator<Coordinate>() {
+			
+			@Override
+			public int compare(Coordinate c1, Coordinate c2) {
+				if (c1.getY() != c2.getY())
+					return c1.getY() < c2.getY() ? -1 : 1;
+				if (c1.getX() != c2.getX())
+					return c1.getX() < c2.getX() ? -1 : 1;
+				return 0;
+			}
+		});
+		return coordinates;
+	}
+}
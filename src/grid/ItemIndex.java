@@ -0,0 +1,156 @@
+package grid;
+
+import item.IItem;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import square.SquareContainer;
+import square.SquareListener;
+
+/**
+ * An index of the squares of a {@link Grid} by the classes of the items on
+ * them. For every item class the coordinates of the squares holding such an
+ * item are kept sorted in row-major order. The index is kept in sync by the
+ * grid, which passes the changes of its squares on to it whenever an item is
+ * added to or removed from a square.
+ */
+class ItemIndex implements SquareListener {
+	
+	private final Grid											grid;
+	private final List<Coordinate>								squareCoordinates;
+	private final Map<Class<?>, TreeMap<Long, Coordinate>>		squaresByClass;
+	private final Map<Coordinate, Set<Class<?>>>				classesByCoordinate;
+	
+	/**
+	 * Create the index for the current state of the specified grid.
+	 * 
+	 * @param grid
+	 *        the grid of which the items will be indexed
+	 */
+	ItemIndex(Grid grid) {
+		this.grid = grid;
+		this.squaresByClass = new HashMap<Class<?>, TreeMap<Long, Coordinate>>();
+		this.classesByCoordinate = new HashMap<Coordinate, Set<Class<?>>>();
+		this.squareCoordinates = grid.getRowMajorCoordinates();
+		
+		for (Coordinate coordinate : squareCoordinates)
+			update(coordinate, grid.getSquareAt(coordinate));
+	}
+	
+	/**
+	 * Returns a key for the specified position, such that the natural order of
+	 * the keys is the row-major order of the positions.
+	 */
+	private static long keyOf(int x, int y) {
+		return ((long) y << 32) + x;
+	}
+	
+	/**
+	 * Returns the coordinates of all the squares holding an item of the
+	 * specified type, in row-major order.
+	 */
+	List<Coordinate> find(Class<? extends IItem> type) {
+		List<TreeMap<Long, Coordinate>> matches = getMatchingClasses(type);
+		if (matches.size() == 1)
+			return new ArrayList<Coordinate>(matches.get(0).values());
+		
+		TreeMap<Long, Coordinate> merged = new TreeMap<Long, Coordinate>();
+		for (TreeMap<Long, Coordinate> squares : matches)
+			merged.putAll(squares);
+		return new ArrayList<Coordinate>(merged.values());
+	}
+	
+	/**
+	 * Returns the coordinates of all the squares in the specified rectangle
+	 * holding an item of the specified type, in row-major order. The squares
+	 * of each item class are looked up in a single range, from the first to
+	 * the last corner of the rectangle, and the squares of that range outside
+	 * the columns of the rectangle are skipped.
+	 * 
+	 * @throws IllegalArgumentException
+	 *         The width and height cannot be negative.
+	 */
+	List<Coordinate> find(Class<? extends IItem> type, int x, int y, int width, int height)
+			throws IllegalArgumentException {
+		if (width < 0 || height < 0)
+			throw new IllegalArgumentException("The size of the rectangle cannot be negative");
+		
+		int fromX = Math.max(0, x);
+		int toX = (int) Math.min(grid.getWidth(), (long) x + width) - 1;
+		int fromY = Math.max(0, y);
+		int toY = (int) Math.min(grid.getHeight(), (long) y + height) - 1;
+		
+		List<Coordinate> result = new ArrayList<Coordinate>();
+		if (fromX > toX || fromY > toY)
+			return result;
+		
+		List<TreeMap<Long, Coordinate>> matches = getMatchingClasses(type);
+		TreeMap<Long, Coordinate> merged = matches.size() > 1 ? new TreeMap<Long, Coordinate>()
+				: null;
+		for (TreeMap<Long, Coordinate> squares : matches)
+			for (Coordinate coordinate : squares.subMap(keyOf(fromX, fromY), true,
+					keyOf(toX, toY), true).values()) {
+				if (coordinate.getX() < fromX || coordinate.getX() > toX)
+					continue;
+				if (merged == null)
+					result.add(coordinate);
+				else
+					merged.put(keyOf(coordinate.getX(), coordinate.getY()), coordinate);
+			}
+		
+		if (merged != null)
+			result.addAll(merged.values());
+		return result;
+	}
+	
+	private List<TreeMap<Long, Coordinate>> getMatchingClasses(Class<? extends IItem> type) {
+		List<TreeMap<Long, Coordinate>> matches = new ArrayList<TreeMap<Long, Coordinate>>();
+		for (Map.Entry<Class<?>, TreeMap<Long, Coordinate>> entry : squaresByClass.entrySet())
+			if (type.isAssignableFrom(entry.getKey()))
+				matches.add(entry.getValue());
+		return matches;
+	}
+	
+	private void update(Coordinate coordinate, SquareContainer square) {
+		Set<Class<?>> classes = new HashSet<Class<?>>();
+		for (IItem item : square.getAllItems())
+			classes.add(item.getClass());
+		
+		Set<Class<?>> previous = classesByCoordinate.remove(coordinate);
+		if (previous != null)
+			for (Class<?> type : previous)
+				if (!classes.contains(type)) {
+					TreeMap<Long, Coordinate> squares = squaresByClass.get(type);
+					squares.remove(keyOf(coordinate.getX(), coordinate.getY()));
+					if (squares.isEmpty())
+						squaresByClass.remove(type);
+				}
+		
+		for (Class<?> type : classes) {
+			TreeMap<Long, Coordinate> squares = squaresByClass.get(type);
+			if (squares == null) {
+				squares = new TreeMap<Long, Coordinate>();
+				squaresByClass.put(type, squares);
+			}
+			squares.put(keyOf(coordinate.getX(), coordinate.getY()), coordinate);
+		}
+		if (!classes.isEmpty())
+			classesByCoordinate.put(coordinate, classes);
+	}
+	
+	@Override
+	public void propertiesChanged(SquareContainer square, int index) {}
+	
+	/**
+	 * Update the index for the items of the square with the specified
+	 * row-major index.
+	 */
+	@Override
+	public void contentsChanged(SquareContainer square, int index) {
+		update(squareCoordinates.get(index), square);
+	}
+}
@@ -0,0 +1,68 @@
+package grid;
+
+import item.IItem;
+import item.lightgrenade.LightGrenade;
+import item.lightgrenade.LightGrenadeState;
+
+/**
+ * An immutable copy of the state of a single item, as it lay on a square at the
+ * moment a {@link GridSnapshot} was published.
+ */
+public final class ItemSnapshot {
+	
+	private final int						id;
+	private final Class<? extends IItem>	type;
+	private final boolean					carriable;
+	private final LightGrenadeState			lightGrenadeState;
+	
+	/**
+	 * Create a new snapshot of the current state of the specified item.
+	 * 
+	 * @param item
+	 *        the item to copy
+	 */
+	ItemSnapshot(IItem item) {
+		this.id = item.getId();
+		this.type = item.getClass();
+		this.carriable = item.isCarriable();
+		this.lightGrenadeState = item instanceof LightGrenade ? ((LightGrenade) item).getState()
+				: null;
+	}
+	
+	/**
+	 * Returns the id of the item.
+	 * 
+	 * @return the id of the item
+	 */
+	public int getId() {
+		return id;
+	}
+	
+	/**
+	 * Returns the class of the item.
+	 * 
+	 * @return the class of the item
+	 */
+	public Class<? extends IItem> getType() {
+		return type;
+	}
+	
+	/**
+	 * Returns whether the item could be picked up by a player.
+	 * 
+	 * @return true if the item could be picked up, else false
+	 */
+	public boolean isCarriable() {
+		return carriable;
+	}
+	
+	/**
+	 * Returns the state of the item if it is a light grenade, or null
+	 * otherwise.
+	 * 
+	 * @return the state of the light grenade
+	 */
+	public LightGrenadeState getLightGrenadeState() {
+		return lightGrenadeState;
+	}
+}
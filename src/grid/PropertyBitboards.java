@@ -0,0 +1,146 @@
+package grid;
+
+import java.util.ArrayList;
+import java.util.List;
+import square.PropertyType;
+import square.SquareContainer;
+import square.SquareListener;
+
+/**
+ * One bitboard per {@link PropertyType} for all the cells of the bounding box
+ * of a {@link Grid}. The bit of the cell at <code>(x, y)</code> is bit
+ * <code>y * width + x</code> of the board, stored in a <code>long[]</code>.
+ * Bits are numbered with longs, so bounding boxes with more than
+ * {@link Integer#MAX_VALUE} cells are supported, as long as each board fits
+ * in a single array.
+ * 
+ * The bitboards are kept in sync with the squares by the grid, which passes
+ * the changes of its squares on to them.
+ */
+class PropertyBitboards implements SquareListener {
+	
+	private static final PropertyType[]	PROPERTY_TYPES			= PropertyType.values();
+	/** The largest number of words of a board, i.e. the largest array size. */
+	private static final int			MAXIMUM_NUMBER_OF_WORDS	= Integer.MAX_VALUE - 8;
+	
+	private final List<Coordinate>		squareCoordinates;
+	private final long[][]				boards;
+	private final int					width;
+	private final int					height;
+	
+	/**
+	 * Create the bitboards for the current state of the specified grid.
+	 * 
+	 * @param grid
+	 *        the grid of which the properties will be tracked
+	 * @throws IllegalStateException
+	 *         The bounding box of the grid is too large for a bitboard.
+	 */
+	PropertyBitboards(Grid grid) throws IllegalStateException {
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+		long words = ((long) width * height + 63) >>> 6;
+		if (words > MAXIMUM_NUMBER_OF_WORDS)
+			throw new IllegalStateException("The grid is too large to track its properties");
+		this.boards = new long[PROPERTY_TYPES.length][(int) words];
+		this.squareCoordinates = grid.getRowMajorCoordinates();
+		
+		for (int index = 0; index < squareCoordinates.size(); index++)
+			propertiesChanged(grid.getSquareAt(squareCoordinates.get(index)), index);
+	}
+	
+	/**
+	 * Returns whether the cell at the specified position has a property of the
+	 * specified type. Positions outside the grid never have a property.
+	 */
+	boolean get(int x, int y, PropertyType type) {
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			return false;
+		long bit = bitOf(x, y);
+		return (boards[type.ordinal()][(int) (bit >>> 6)] & (1L << bit)) != 0;
+	}
+	
+	private long bitOf(int x, int y) {
+		return (long) y * width + x;
+	}
+	
+	/**
+	 * Returns whether any cell in the specified rectangle has a property of the
+	 * specified type. The parts of the rectangle outside the grid are ignored.
+	 */
+	boolean any(int x, int y, int areaWidth, int areaHeight, PropertyType type) {
+		int fromX = Math.max(0, x);
+		int toX = (int) Math.min(width, (long) x + areaWidth) - 1;
+		int fromY = Math.max(0, y);
+		int toY = (int) Math.min(height, (long) y + areaHeight) - 1;
+		if (fromX > toX || fromY > toY)
+			return false;
+		
+		long[] board = boards[type.ordinal()];
+		for (int row = fromY; row <= toY; row++)
+			if (anyInRange(board, bitOf(fromX, row), bitOf(toX, row)))
+				return true;
+		return false;
+	}
+	
+	/**
+	 * Returns whether any bit between the specified bits (both included) is
+	 * set.
+	 */
+	private static boolean anyInRange(long[] board, long from, long to) {
+		int fromWord = (int) (from >>> 6);
+		int toWord = (int) (to >>> 6);
+		long firstMask = -1L << from;
+		long lastMask = -1L >>> (63 - (to & 63));
+		if (fromWord == toWord)
+			return (board[fromWord] & firstMask & lastMask) != 0;
+		
+		if ((board[fromWord] & firstMask) != 0)
+			return true;
+		for (int word = fromWord + 1; word < toWord; word++)
+			if (board[word] != 0)
+				return true;
+		return (board[toWord] & lastMask) != 0;
+	}
+	
+	/**
+	 * Returns the coordinates of all the cells with a property of the
+	 * specified type, in row-major order.
+	 */
+	List<Coordinate> coordinatesWith(PropertyType type, CoordinateCache coordinates) {
+		List<Coordinate> result = new ArrayList<Coordinate>();
+		long[] board = boards[type.ordinal()];
+		for (int word = 0; word < board.length; word++) {
+			long bits = board[word];
+			while (bits != 0) {
+				long bit = ((long) word << 6) + Long.numberOfTrailingZeros(bits);
+				result.add(coordinates.get((int) (bit % width), (int) (bit / width)));
+				bits &= bits - 1;
+			}
+		}
+		return result;
+	}
+	
+	private void update(long bit, SquareContainer square) {
+		int word = (int) (bit >>> 6);
+		for (PropertyType type : PROPERTY_TYPES)
+			if (square.hasProperty(type))
+				boards[type.ordinal()][word] |= 1L << bit;
+			else
+				boards[type.ordinal()][word] &= ~(1L << bit);
+	}
+	
+	/**
+	 * Update the bits of the square with the specified row-major index.
+	 */
+	@Override
+	public void propertiesChanged(SquareContainer square, int index) {
+		Coordinate coordinate = squareCoordinates.get(index);
+		// squares outside the dimensions have no bit
+		if (coordinate.getX() >= 0 && coordinate.getY() >= 0)
+			update(bitOf(coordinate.getX(), coordinate.getY()), square);
+	}
+	
+	@Override
+	public void contentsChanged(SquareContainer square, int index) {}
+}
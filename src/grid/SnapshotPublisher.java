@@ -0,0 +1,127 @@
+package grid;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import square.PropertyType;
+import square.SquareContainer;
+import square.SquareListener;
+
+/**
+ * Publishes {@link GridSnapshot snapshots} of a {@link Grid}. The grid passes
+ * the changes of its squares on to the publisher, which remembers which chunks
+ * changed since the last snapshot. A new snapshot only copies the changed
+ * chunks and shares all the other chunks with the previous snapshot.
+ */
+class SnapshotPublisher implements SquareListener {
+	
+	private static final int		CHUNK_SHIFT	= ChunkedGridStorage.CHUNK_SHIFT;
+	private static final int		CHUNK_SIZE	= ChunkedGridStorage.CHUNK_SIZE;
+	
+	private final Grid				grid;
+	private final int				chunkColumns;
+	private final BitSet			dirtyChunks;
+	private final Set<Coordinate>	coordinates;
+	private final List<Coordinate>	squareCoordinates;
+	private volatile GridSnapshot	current;
+	
+	/**
+	 * Create a new publisher for the specified grid.
+	 * 
+	 * @param grid
+	 *        the grid of which snapshots will be published
+	 */
+	SnapshotPublisher(Grid grid) {
+		this.grid = grid;
+		this.chunkColumns = ChunkedGridStorage.getNumberOfChunks(grid.getWidth());
+		this.dirtyChunks = new BitSet();
+		Set<Coordinate> coordinates = new LinkedHashSet<Coordinate>();
+		for (Coordinate coordinate : grid.getRowMajorCoordinates()) {
+			// squares outside the dimensions are not part of the snapshots
+			if (coordinate.getX() < 0 || coordinate.getY() < 0)
+				continue;
+			coordinates.add(coordinate);
+			dirtyChunks.set(chunkIndexOf(coordinate.getX(), coordinate.getY()));
+		}
+		this.coordinates = Collections.unmodifiableSet(coordinates);
+		this.squareCoordinates = grid.getRowMajorCoordinates();
+	}
+	
+	private int chunkIndexOf(int x, int y) {
+		return (y >>> CHUNK_SHIFT) * chunkColumns + (x >>> CHUNK_SHIFT);
+	}
+	
+	/**
+	 * Returns the last published snapshot, or null if no snapshot was
+	 * published yet. This method can be called by any thread.
+	 */
+	GridSnapshot getCurrent() {
+		return current;
+	}
+	
+	/**
+	 * Publish a new snapshot of the current state of the grid. This method
+	 * must be called by the thread that changes the grid.
+	 */
+	GridSnapshot publish() {
+		// the state of a force field changes without notifying its squares
+		for (Coordinate coordinate : grid.getCoordinatesWithProperty(PropertyType.FORCE_FIELD))
+			dirtyChunks.set(chunkIndexOf(coordinate.getX(), coordinate.getY()));
+		
+		int numberOfChunks = chunkColumns
+				* ChunkedGridStorage.getNumberOfChunks(grid.getHeight());
+		GridSnapshot previous = current;
+		SquareSnapshot[][] chunks = new SquareSnapshot[numberOfChunks][];
+		for (int chunk = 0; chunk < numberOfChunks; chunk++)
+			if (dirtyChunks.get(chunk))
+				chunks[chunk] = copyChunk(chunk);
+			else if (previous != null)
+				chunks[chunk] = previous.getChunk((chunk % chunkColumns) << CHUNK_SHIFT,
+						(chunk / chunkColumns) << CHUNK_SHIFT);
+		dirtyChunks.clear();
+		
+		long epoch = previous == null ? 0 : previous.getEpoch() + 1;
+		current = new GridSnapshot(epoch, grid.getWidth(), grid.getHeight(), chunks,
+				coordinates);
+		return current;
+	}
+	
+	private SquareSnapshot[] copyChunk(int chunk) {
+		int fromX = (chunk % chunkColumns) << CHUNK_SHIFT;
+		int fromY = (chunk / chunkColumns) << CHUNK_SHIFT;
+		int toX = Math.min(fromX + CHUNK_SIZE, grid.getWidth());
+		int toY = Math.min(fromY + CHUNK_SIZE, grid.getHeight());
+		
+		SquareSnapshot[] squares = new SquareSnapshot[CHUNK_SIZE * CHUNK_SIZE];
+		for (int y = fromY; y < toY; y++)
+			for (int x = fromX; x < toX; x++) {
+				SquareContainer square = grid.getSquareAt(grid.getCoordinate(x, y));
+				if (square != null)
+					squares[((y - fromY) << CHUNK_SHIFT) | (x - fromX)] = new SquareSnapshot(square);
+			}
+		return squares;
+	}
+	
+	/**
+	 * Mark the chunk of the square with the specified row-major index as
+	 * changed. Squares are changed by the thread that changes the grid.
+	 */
+	private void markDirty(int index) {
+		Coordinate coordinate = squareCoordinates.get(index);
+		// squares outside the dimensions are not part of the snapshots
+		if (coordinate.getX() >= 0 && coordinate.getY() >= 0)
+			dirtyChunks.set(chunkIndexOf(coordinate.getX(), coordinate.getY()));
+	}
+	
+	@Override
+	public void propertiesChanged(SquareContainer square, int index) {
+		markDirty(index);
+	}
+	
+	@Override
+	public void contentsChanged(SquareContainer square, int index) {
+		markDirty(index);
+	}
+}
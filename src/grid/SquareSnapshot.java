@@ -0,0 +1,142 @@
+package grid;
+
+import item.IItem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import player.Player;
+import square.SquareContainer;
+
+/**
+ * An immutable copy of the state of a single square, at the moment a
+ * {@link GridSnapshot} was published. The player and the items on the square
+ * are copied as values (the id of the player and a {@link ItemSnapshot
+ * snapshot} of each item), so a snapshot never refers to the live game
+ * objects.
+ */
+public final class SquareSnapshot {
+	
+	/** The player id of a square without a player. */
+	public static final int				NO_PLAYER	= -1;
+	
+	private final boolean				lightTrail;
+	private final boolean				powerFailure;
+	private final boolean				forceField;
+	private final boolean				wall;
+	private final boolean				startingPosition;
+	private final int					playerId;
+	private final List<ItemSnapshot>	items;
+	private final List<ItemSnapshot>	carryableItems;
+	
+	/**
+	 * Create a new snapshot of the current state of the specified square.
+	 * 
+	 * @param square
+	 *        the square to copy
+	 */
+	SquareSnapshot(SquareContainer square) {
+		GuiSquareAdapter adapter = new GuiSquareAdapter(square);
+		this.lightTrail = adapter.hasLightTrail();
+		this.powerFailure = adapter.hasPowerFailure();
+		this.forceField = adapter.hasForceField();
+		this.wall = adapter.isWall();
+		this.startingPosition = adapter.isStartingPosition();
+		Player player = square.getPlayer();
+		this.playerId = player == null ? NO_PLAYER : player.getID();
+		this.items = copy(square.getAllItems());
+		this.carryableItems = copy(square.getCarryableItems());
+	}
+	
+	private static List<ItemSnapshot> copy(List<IItem> items) {
+		if (items.isEmpty())
+			return Collections.emptyList();
+		List<ItemSnapshot> copies = new ArrayList<ItemSnapshot>(items.size());
+		for (IItem item : items)
+			copies.add(new ItemSnapshot(item));
+		return Collections.unmodifiableList(copies);
+	}
+	
+	/**
+	 * Returns the items on the square that could be picked up by a player.
+	 * 
+	 * @return the carryable items on the square
+	 */
+	public List<ItemSnapshot> getCarryableItems() {
+		return carryableItems;
+	}
+	
+	/**
+	 * Returns the id of the player on the square, or {@value #NO_PLAYER} if
+	 * there was no player.
+	 * 
+	 * @return the id of the player on the square
+	 */
+	public int getPlayerId() {
+		return playerId;
+	}
+	
+	/**
+	 * Returns whether the square had a light trail.
+	 */
+	public boolean hasLightTrail() {
+		return lightTrail;
+	}
+	
+	/**
+	 * Returns whether there was a player on the square.
+	 */
+	public boolean hasPlayer() {
+		return playerId != NO_PLAYER;
+	}
+	
+	/**
+	 * Returns whether the square had a power failure.
+	 */
+	public boolean hasPowerFailure() {
+		return powerFailure;
+	}
+	
+	/**
+	 * Returns whether the square had a force field.
+	 */
+	public boolean hasForceField() {
+		return forceField;
+	}
+	
+	/**
+	 * Returns whether the square was a wall.
+	 */
+	public boolean isWall() {
+		return wall;
+	}
+	
+	/**
+	 * Returns whether the square is a starting position.
+	 */
+	public boolean isStartingPosition() {
+		return startingPosition;
+	}
+	
+	/**
+	 * Returns whether the item with the specified id lay on the square.
+	 * 
+	 * @param id
+	 *        the id of the item
+	 * @return true if the item lay on the square, else false
+	 */
+	public boolean containsItem(int id) {
+		for (ItemSnapshot item : items)
+			if (item.getId() == id)
+				return true;
+		return false;
+	}
+	
+	/**
+	 * Returns the items on the square.
+	 * 
+	 * @return the items on the square
+	 */
+	public List<ItemSnapshot> getItems() {
+		return items;
+	}
+}
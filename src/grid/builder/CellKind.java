@@ -0,0 +1,23 @@
+package grid.builder;
+
+/**
+ * The kinds of cells that can be added to a grid at once with
+ * {@link GridBuilder#addCells(CellKind[], int, int)}.
+ */
+public enum CellKind {
+	
+	/**
+	 * A position of the grid without a square.
+	 */
+	NONE,
+	
+	/**
+	 * A square on which a player can move.
+	 */
+	SQUARE,
+	
+	/**
+	 * A part of a wall.
+	 */
+	WALL;
+}
@@ -0,0 +1,454 @@
+package grid.builder;
+
+import grid.Coordinate;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import ObjectronExceptions.builderExceptions.GridBuildException;
+
+/**
+ * A compact binary version of a validated grid file. A compiled grid contains
+ * the calls a {@link FileGridBuilderDirector} made to its builder while
+ * reading the text file: the squares, walls and starting positions and the
+ * items specified in the file. Each call is stored as a single byte
+ * instruction followed by the coordinates it applies to, as variable length
+ * numbers.
+ * 
+ * A compiled grid is stored in the
+ * {@link FileGridBuilderDirector#setCompiledGridDirectory(File) compiled grid
+ * directory}, together with a hash of the text file and a checksum of the
+ * instructions. As long as the text file does not change, the compiled grid
+ * can be {@link #replay(GridBuilder, Map) replayed} instead of parsing the
+ * text file again.
+ */
+class CompiledGrid {
+	
+	/**
+	 * The extension of the files in which compiled grids are stored.
+	 */
+	static final String			EXTENSION				= ".compiled";
+	
+	private static final int	MAGIC					= 0x54524f4e;
+	private static final int	VERSION					= 2;
+	private static final String	HASH_ALGORITHM			= "SHA-256";
+	
+	private static final byte	SQUARE					= 0;
+	private static final byte	WALL					= 1;
+	private static final byte	STARTING_POSITION		= 2;
+	private static final byte	LIGHT_GRENADE			= 3;
+	private static final byte	UNCHARGED_IDENTITY_DISC	= 4;
+	private static final byte	CHARGED_IDENTITY_DISC	= 5;
+	private static final byte	TELEPORTER				= 6;
+	private static final byte	FORCE_FIELD_GENERATOR	= 7;
+	
+	private final int			width;
+	private final int			height;
+	private final byte[]		instructions;
+	
+	private CompiledGrid(int width, int height, byte[] instructions) {
+		this.width = width;
+		this.height = height;
+		this.instructions = instructions;
+	}
+	
+	/**
+	 * Returns the width of the grid, as it was passed to
+	 * {@link Recorder#compile(int, int)}.
+	 */
+	int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Returns the height of the grid, as it was passed to
+	 * {@link Recorder#compile(int, int)}.
+	 */
+	int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Make the same calls to the specified builder as the builder that was
+	 * recorded.
+	 * 
+	 * @param builder
+	 *        the builder to replay the grid on
+	 * @param startingCoordinates
+	 *        the map to which the starting positions of the grid will be added
+	 * @throws RuntimeException
+	 *         The instructions are corrupt.
+	 */
+	void replay(GridBuilder builder, Map<Integer, Coordinate> startingCoordinates) {
+		replay(builder, startingCoordinates, null);
+	}
+	
+	/**
+	 * Make the same calls to the specified builder as the builder that was
+	 * recorded, and collect the coordinates of the squares that are not walls.
+	 * 
+	 * @param builder
+	 *        the builder to replay the grid on
+	 * @param startingCoordinates
+	 *        the map to which the starting positions of the grid will be added
+	 * @param squares
+	 *        the collection to which the coordinates of the squares and the
+	 *        starting positions will be added, or null
+	 * @throws RuntimeException
+	 *         The instructions are corrupt.
+	 */
+	void replay(GridBuilder builder, Map<Integer, Coordinate> startingCoordinates,
+			Collection<Coordinate> squares) {
+		ByteBuffer input = ByteBuffer.wrap(instructions);
+		while (input.hasRemaining()) {
+			byte instruction = input.get();
+			Coordinate coordinate = readCoordinate(input);
+			switch (instruction) {
+				case SQUARE:
+					builder.addSquare(coordinate);
+					if (squares != null)
+						squares.add(coordinate);
+					break;
+				case WALL:
+					builder.addWall(coordinate);
+					break;
+				case STARTING_POSITION:
+					int number = readNumber(input);
+					builder.addPlayerStartingPosition(coordinate, number);
+					startingCoordinates.put(number, coordinate);
+					if (squares != null)
+						squares.add(coordinate);
+					break;
+				case LIGHT_GRENADE:
+					builder.placeLightGrenade(coordinate);
+					break;
+				case UNCHARGED_IDENTITY_DISC:
+					builder.placeUnchargedIdentityDisc(coordinate);
+					break;
+				case CHARGED_IDENTITY_DISC:
+					builder.placeChargedIdentityDisc(coordinate);
+					break;
+				case TELEPORTER:
+					builder.placeTeleporter(coordinate, readCoordinate(input));
+					break;
+				case FORCE_FIELD_GENERATOR:
+					builder.placeForceFieldGenerator(coordinate);
+					break;
+				default:
+					throw new IllegalStateException("unknown instruction " + instruction);
+			}
+		}
+	}
+	
+	private static Coordinate readCoordinate(ByteBuffer input) {
+		int x = readNumber(input);
+		int y = readNumber(input);
+		return new Coordinate(x, y);
+	}
+	
+	/**
+	 * Read a number that was {@link Recorder#record(int) recorded} in groups
+	 * of seven bits, the least significant group first.
+	 */
+	private static int readNumber(ByteBuffer input) {
+		int number = 0;
+		for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+			byte group = input.get();
+			number |= (group & 0x7f) << shift;
+			if (group >= 0)
+				return number;
+		}
+		throw new IllegalStateException("The compiled grid contains a number that is too long");
+	}
+	
+	private static long checksum(byte[] instructions) {
+		CRC32 checksum = new CRC32();
+		checksum.update(instructions);
+		return checksum.getValue();
+	}
+	
+	/**
+	 * Write this compiled grid to the specified file. The file is replaced
+	 * atomically, so other readers never see a partially written file.
+	 * 
+	 * @param file
+	 *        the file to write to
+	 * @param hash
+	 *        the {@link #hash(File) hash} of the text file that was compiled
+	 * @throws IOException
+	 *         The file could not be written.
+	 */
+	void write(File file, byte[] hash) throws IOException {
+		File temporary = File.createTempFile(file.getName(), null, file.getAbsoluteFile()
+				.getParentFile());
+		try {
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(temporary)));
+			try {
+				output.writeInt(MAGIC);
+				output.writeByte(VERSION);
+				output.writeByte(hash.length);
+				output.write(hash);
+				output.writeInt(width);
+				output.writeInt(height);
+				output.writeInt(instructions.length);
+				output.write(instructions);
+				output.writeLong(checksum(instructions));
+			}
+			finally {
+				output.close();
+			}
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			temporary.delete();
+		}
+	}
+	
+	/**
+	 * Read a compiled grid from the specified file.
+	 * 
+	 * @param file
+	 *        the file to read from
+	 * @param hash
+	 *        the {@link #hash(File) hash} of the current version of the text
+	 *        file
+	 * @return the compiled grid, or null if the file does not exist, is not a
+	 *         compiled grid, is damaged or was compiled from another version of
+	 *         the text file
+	 * @throws IOException
+	 *         The file could not be read.
+	 */
+	static CompiledGrid read(File file, byte[] hash) throws IOException {
+		DataInputStream input;
+		try {
+			input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		}
+		catch (FileNotFoundException e) {
+			return null;
+		}
+		
+		try {
+			if (input.readInt() != MAGIC || input.readByte() != VERSION)
+				return null;
+			byte[] compiledHash = new byte[input.readUnsignedByte()];
+			input.readFully(compiledHash);
+			if (!Arrays.equals(hash, compiledHash))
+				return null;
+			
+			int width = input.readInt();
+			int height = input.readInt();
+			int length = input.readInt();
+			if (length < 0 || length > file.length())
+				return null;
+			byte[] instructions = new byte[length];
+			input.readFully(instructions);
+			if (input.readLong() != checksum(instructions))
+				return null;
+			return new CompiledGrid(width, height, instructions);
+		}
+		catch (EOFException e) {
+			// the file was truncated
+			return null;
+		}
+		finally {
+			input.close();
+		}
+	}
+	
+	/**
+	 * Returns the file in the specified directory in which the compiled
+	 * version of the specified grid file is stored. Grid files with the same
+	 * name in different directories are stored in different files.
+	 */
+	static File getCompiledFile(File directory, File file) {
+		return new File(directory, file.getName() + "-"
+				+ Integer.toHexString(file.getAbsolutePath().hashCode()) + EXTENSION);
+	}
+	
+	/**
+	 * Returns a hash of the contents of the specified file.
+	 * 
+	 * @param file
+	 *        the file to hash
+	 * @return the hash of the contents of the file
+	 * @throws IOException
+	 *         The file could not be read.
+	 */
+	static byte[] hash(File file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+		
+		InputStream input = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = input.read(buffer)) != -1)
+				digest.update(buffer, 0, read);
+		}
+		finally {
+			input.close();
+		}
+		return digest.digest();
+	}
+	
+	/**
+	 * A builder that passes all the calls to another builder and records them,
+	 * so they can be {@link #compile(int, int) compiled}.
+	 */
+	static class Recorder implements GridBuilder {
+		
+		private final GridBuilder			builder;
+		private final ByteArrayOutputStream	instructions;
+		
+		/**
+		 * Create a new recorder for the specified builder.
+		 * 
+		 * @param builder
+		 *        the builder to pass all the calls to
+		 */
+		Recorder(GridBuilder builder) {
+			this.builder = builder;
+			this.instructions = new ByteArrayOutputStream();
+		}
+		
+		/**
+		 * Returns a compiled grid with all the calls recorded so far.
+		 * 
+		 * @param width
+		 *        the width of the grid
+		 * @param height
+		 *        the height of the grid
+		 * @return the compiled grid
+		 */
+		CompiledGrid compile(int width, int height) {
+			return new CompiledGrid(width, height, instructions.toByteArray());
+		}
+		
+		private void record(byte instruction, Coordinate coordinate) {
+			instructions.write(instruction);
+			record(coordinate);
+		}
+		
+		private void record(Coordinate coordinate) {
+			record(coordinate.getX());
+			record(coordinate.getY());
+		}
+		
+		/**
+		 * Record the specified number in groups of seven bits, the least
+		 * significant group first. The highest bit of each byte is set if
+		 * another group follows.
+		 */
+		private void record(int number) {
+			while ((number & ~0x7f) != 0) {
+				instructions.write(number & 0x7f | 0x80);
+				number >>>= 7;
+			}
+			instructions.write(number);
+		}
+		
+		@Override
+		public void createNewEmptyGrid() {
+			builder.createNewEmptyGrid();
+			instructions.reset();
+		}
+		
+		@Override
+		public void addSquare(Coordinate coordinate) {
+			builder.addSquare(coordinate);
+			record(SQUARE, coordinate);
+		}
+		
+		@Override
+		public void addWall(Coordinate coordinate) {
+			builder.addWall(coordinate);
+			record(WALL, coordinate);
+		}
+		
+		@Override
+		public void addPlayerStartingPosition(Coordinate coordinate, int number)
+				throws IllegalArgumentException {
+			builder.addPlayerStartingPosition(coordinate, number);
+			record(STARTING_POSITION, coordinate);
+			record(number);
+		}
+		
+		@Override
+		public void placeFlag(Coordinate coordinate, int id) {
+			// flags are placed by the director, not by the grid file
+			builder.placeFlag(coordinate, id);
+		}
+		
+		@Override
+		public void placeLightGrenade(Coordinate coordinate) throws GridBuildException {
+			builder.placeLightGrenade(coordinate);
+			record(LIGHT_GRENADE, coordinate);
+		}
+		
+		@Override
+		public void placeUnchargedIdentityDisc(Coordinate coordinate) throws GridBuildException {
+			builder.placeUnchargedIdentityDisc(coordinate);
+			record(UNCHARGED_IDENTITY_DISC, coordinate);
+		}
+		
+		@Override
+		public void placeChargedIdentityDisc(Coordinate coordinate) throws GridBuildException {
+			builder.placeChargedIdentityDisc(coordinate);
+			record(CHARGED_IDENTITY_DISC, coordinate);
+		}
+		
+		@Override
+		public void placeTeleporter(Coordinate from, Coordinate to) throws GridBuildException {
+			builder.placeTeleporter(from, to);
+			record(TELEPORTER, from);
+			record(to);
+		}
+		
+		@Override
+		public void placeForceFieldGenerator(Coordinate coordinate) throws GridBuildException {
+			builder.placeForceFieldGenerator(coordinate);
+			record(FORCE_FIELD_GENERATOR, coordinate);
+		}
+		
+		@Override
+		public boolean canPlaceItem(Coordinate coordinate) {
+			return builder.canPlaceItem(coordinate);
+		}
+		
+		@Override
+		public List<Coordinate> getAllReachableNeighboursOf(Coordinate coordinate) {
+			return builder.getAllReachableNeighboursOf(coordinate);
+		}
+		
+		@Override
+		public int getNumberOfSquares() {
+			return builder.getNumberOfSquares();
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package grid.builder;
+
+import grid.Coordinate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the travel distances between the squares of a grid under
+ * construction. Every step to a neighbouring square costs one move. A player
+ * who steps on a teleporter is moved to its destination without any extra
+ * cost.
+ * 
+ * The engine asks the builder for the neighbours of each square only once,
+ * and stores the resulting graph in int arrays. A distance field is then a
+ * breadth-first search over these arrays, which returns an <code>int[]</code>
+ * with the distance to each square, indexed by {@link #indexOf(Coordinate)}.
+ */
+class DistanceEngine {
+	
+	/**
+	 * The distance to a square that cannot be reached.
+	 */
+	static final int						UNREACHABLE	= Integer.MAX_VALUE;
+	
+	private static final int				NONE		= -1;
+	
+	private final List<Coordinate>			coordinates;
+	private final Map<Coordinate, Integer>	indices;
+	private final int[]						firstNeighbour;
+	private final int[]						neighbours;
+	private final int[]						destinations;
+	
+	/**
+	 * Create a new distance engine for all the squares that can be reached
+	 * from the specified sources.
+	 * 
+	 * @param builder
+	 *        the builder of the grid
+	 * @param sources
+	 *        the coordinates from which the squares are reached
+	 * @param teleporters
+	 *        the locations of the teleporters on the grid, mapped to their
+	 *        destinations
+	 */
+	DistanceEngine(GridBuilder builder, Collection<Coordinate> sources,
+			Map<Coordinate, Coordinate> teleporters) {
+		this.coordinates = new ArrayList<Coordinate>();
+		this.indices = new HashMap<Coordinate, Integer>();
+		for (Coordinate source : sources)
+			add(source);
+		
+		// discover all the reachable squares and the edges between them
+		int[] first = new int[16];
+		int[] edges = new int[16];
+		int numberOfEdges = 0;
+		for (int index = 0; index < coordinates.size(); index++) {
+			if (index + 1 >= first.length)
+				first = Arrays.copyOf(first, first.length * 2);
+			first[index] = numberOfEdges;
+			Coordinate coordinate = coordinates.get(index);
+			for (Coordinate neighbour : builder.getAllReachableNeighboursOf(coordinate)) {
+				if (numberOfEdges == edges.length)
+					edges = Arrays.copyOf(edges, edges.length * 2);
+				edges[numberOfEdges++] = add(neighbour);
+			}
+			if (teleporters.containsKey(coordinate))
+				add(teleporters.get(coordinate));
+		}
+		first[coordinates.size()] = numberOfEdges;
+		this.firstNeighbour = Arrays.copyOf(first, coordinates.size() + 1);
+		this.neighbours = Arrays.copyOf(edges, numberOfEdges);
+		
+		this.destinations = new int[coordinates.size()];
+		Arrays.fill(destinations, NONE);
+		for (Map.Entry<Coordinate, Coordinate> teleporter : teleporters.entrySet())
+			if (indices.containsKey(teleporter.getKey()))
+				destinations[indexOf(teleporter.getKey())] = indexOf(teleporter.getValue());
+	}
+	
+	private int add(Coordinate coordinate) {
+		Integer index = indices.get(coordinate);
+		if (index == null) {
+			index = coordinates.size();
+			indices.put(coordinate, index);
+			coordinates.add(coordinate);
+		}
+		return index;
+	}
+	
+	/**
+	 * Returns the number of squares known by this engine.
+	 */
+	int size() {
+		return coordinates.size();
+	}
+	
+	/**
+	 * Returns the index of the specified coordinate in the distance fields of
+	 * this engine, or -1 if the square cannot be reached.
+	 */
+	int indexOf(Coordinate coordinate) {
+		Integer index = indices.get(coordinate);
+		return index == null ? NONE : index;
+	}
+	
+	/**
+	 * Returns the coordinate of the square with the specified index in the
+	 * distance fields of this engine.
+	 */
+	Coordinate getCoordinate(int index) {
+		return coordinates.get(index);
+	}
+	
+	/**
+	 * Returns the travel distance from the specified source to each square.
+	 * 
+	 * @param source
+	 *        the coordinate to start from
+	 * @return the distance to each square, indexed by
+	 *         {@link #indexOf(Coordinate)}, or {@value #UNREACHABLE} for the
+	 *         squares that cannot be reached
+	 */
+	int[] getDistances(Coordinate source) {
+		int[] distances = new int[size()];
+		Arrays.fill(distances, UNREACHABLE);
+		int sourceIndex = indexOf(source);
+		if (sourceIndex == NONE)
+			return distances;
+		
+		// the squares from which a player continues, in the order of the
+		// distance at which the player continues from them
+		int[] queue = new int[size()];
+		int[] continuesAt = new int[size()];
+		Arrays.fill(continuesAt, UNREACHABLE);
+		int head = 0, tail = 0;
+		distances[sourceIndex] = 0;
+		continuesAt[sourceIndex] = 0;
+		queue[tail++] = sourceIndex;
+		
+		while (head < tail) {
+			int current = queue[head++];
+			int distance = continuesAt[current] + 1;
+			for (int i = firstNeighbour[current]; i < firstNeighbour[current + 1]; i++) {
+				int neighbour = neighbours[i];
+				if (distance < distances[neighbour])
+					distances[neighbour] = distance;
+				
+				// a player on a teleporter continues from its destination
+				int next = destinations[neighbour] == NONE ? neighbour : destinations[neighbour];
+				if (distance < distances[next])
+					distances[next] = distance;
+				if (continuesAt[next] == UNREACHABLE) {
+					continuesAt[next] = distance;
+					queue[tail++] = next;
+				}
+			}
+		}
+		return distances;
+	}
+	
+	/**
+	 * Returns the distance fields of all the specified sources. The fields are
+	 * computed in parallel.
+	 * 
+	 * @param sources
+	 *        the coordinates to start from
+	 * @return the {@link #getDistances(Coordinate) distances} from each source,
+	 *         in the order of the sources
+	 */
+	List<int[]> getDistances(List<Coordinate> sources) {
+		return sources.parallelStream().map(this::getDistances).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,173 @@
+package grid.builder;
+
+import effects.EffectFactory;
+import grid.Grid;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import ObjectronExceptions.builderExceptions.GridBuildException;
+
+/**
+ * Generates random grids until one is found that satisfies all the
+ * {@link FairnessCriterion fairness criteria} of the generator.
+ * 
+ * A number of candidates are built at the same time on a
+ * {@link ForkJoinPool}, each by its own {@link RandomGridBuilderDirector}. The
+ * first candidate that is accepted is returned, and the builds of the other
+ * candidates are stopped. Each worker keeps building new candidates until a
+ * grid is accepted, or the maximum number of attempts is reached.
+ */
+public class FairGridGenerator {
+	
+	/** The default maximum number of candidates that are built. */
+	public static final int					DEFAULT_MAXIMUM_NUMBER_OF_ATTEMPTS	= 100;
+	
+	private final EffectFactory				effectFactory;
+	private final int						width;
+	private final int						height;
+	private final List<FairnessCriterion>	criteria;
+	private int								numberOfCandidates;
+	private int								maximumNumberOfAttempts;
+	
+	/**
+	 * Create a new generator for grids with the specified dimensions. By
+	 * default, the generator builds as many candidates at the same time as
+	 * there are processors.
+	 * 
+	 * @param effectFactory
+	 *        the effect factory for the items on the grids
+	 * @param width
+	 *        the width of the grids
+	 * @param height
+	 *        the height of the grids
+	 * @throws IllegalArgumentException
+	 *         The effect factory cannot be null, and the dimensions must be
+	 *         greater than the minima of a {@link RandomGridBuilderDirector}.
+	 */
+	public FairGridGenerator(EffectFactory effectFactory, int width, int height)
+			throws IllegalArgumentException {
+		if (effectFactory == null)
+			throw new IllegalArgumentException("The effect factory cannot be null");
+		if (width < RandomGridBuilderDirector.MINIMUM_GRID_WIDTH
+				|| height < RandomGridBuilderDirector.MINIMUM_GRID_HEIGHT)
+			throw new IllegalArgumentException("The dimensions are smaller than the minima");
+		
+		this.effectFactory = effectFactory;
+		this.width = width;
+		this.height = height;
+		this.criteria = new ArrayList<FairnessCriterion>();
+		this.numberOfCandidates = Runtime.getRuntime().availableProcessors();
+		this.maximumNumberOfAttempts = DEFAULT_MAXIMUM_NUMBER_OF_ATTEMPTS;
+	}
+	
+	/**
+	 * Add a criterion that every generated grid must satisfy.
+	 * 
+	 * @param criterion
+	 *        the criterion to add
+	 * @throws IllegalArgumentException
+	 *         The criterion cannot be null.
+	 */
+	public void addCriterion(FairnessCriterion criterion) throws IllegalArgumentException {
+		if (criterion == null)
+			throw new IllegalArgumentException("The criterion cannot be null");
+		criteria.add(criterion);
+	}
+	
+	/**
+	 * Set the number of candidates that are built at the same time.
+	 * 
+	 * @param numberOfCandidates
+	 *        the number of candidates
+	 * @throws IllegalArgumentException
+	 *         The number of candidates must be positive.
+	 */
+	public void setNumberOfCandidates(int numberOfCandidates) throws IllegalArgumentException {
+		if (numberOfCandidates < 1)
+			throw new IllegalArgumentException("The number of candidates must be positive");
+		this.numberOfCandidates = numberOfCandidates;
+	}
+	
+	/**
+	 * Set the maximum number of candidates that are built before the generator
+	 * gives up.
+	 * 
+	 * @param maximumNumberOfAttempts
+	 *        the maximum number of candidates
+	 * @throws IllegalArgumentException
+	 *         The maximum number of candidates must be positive.
+	 */
+	public void setMaximumNumberOfAttempts(int maximumNumberOfAttempts)
+			throws IllegalArgumentException {
+		if (maximumNumberOfAttempts < 1)
+			throw new IllegalArgumentException("The maximum number of attempts must be positive");
+		this.maximumNumberOfAttempts = maximumNumberOfAttempts;
+	}
+	
+	/**
+	 * Generate a grid that satisfies all the criteria of this generator.
+	 * 
+	 * @return the first generated grid that was accepted
+	 * @throws GridBuildException
+	 *         None of the candidates was accepted within the maximum number of
+	 *         attempts.
+	 */
+	public Grid generate() throws GridBuildException {
+		AtomicInteger attempts = new AtomicInteger();
+		AtomicBoolean accepted = new AtomicBoolean();
+		List<Callable<Grid>> workers = new ArrayList<Callable<Grid>>(numberOfCandidates);
+		for (int i = 0; i < numberOfCandidates; i++)
+			workers.add(() -> {
+				while (!accepted.get() && attempts.incrementAndGet() <= maximumNumberOfAttempts) {
+					Grid grid = buildCandidate();
+					if (grid != null && accepted.compareAndSet(false, true))
+						return grid;
+				}
+				throw new GridBuildException("No fair grid was found");
+			});
+		
+		try {
+			return ForkJoinPool.commonPool().invokeAny(workers);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException
+					&& !(e.getCause() instanceof GridBuildException))
+				throw (RuntimeException) e.getCause();
+			throw new GridBuildException("No fair grid was found in " + maximumNumberOfAttempts
+					+ " attempts");
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GridBuildException("The generation of a fair grid was interrupted");
+		}
+		finally {
+			// stop the workers that are still building candidates
+			accepted.set(true);
+		}
+	}
+	
+	/**
+	 * Build a new candidate, and returns its grid if it satisfies all the
+	 * criteria, or null otherwise.
+	 */
+	private Grid buildCandidate() {
+		TronGridBuilder builder = new TronGridBuilder(effectFactory);
+		RandomGridBuilderDirector director = new RandomGridBuilderDirector(builder);
+		director.setWidth(width);
+		director.setHeight(height);
+		director.construct();
+		Grid grid = builder.getResult();
+		if (criteria.isEmpty())
+			return grid;
+		
+		GridCandidate candidate = new GridCandidate(builder, grid);
+		for (FairnessCriterion criterion : criteria)
+			if (!criterion.accepts(candidate))
+				return null;
+		return grid;
+	}
+}
@@ -0,0 +1,92 @@
+package grid.builder;
+
+import grid.Coordinate;
+import java.util.List;
+
+/**
+ * A criterion that decides whether a generated grid is fair enough to play
+ * on. The criteria for the most common problems of random grids are offered as
+ * static factory methods.
+ */
+@FunctionalInterface
+public interface FairnessCriterion {
+	
+	/**
+	 * Returns whether the specified candidate is fair.
+	 * 
+	 * @param candidate
+	 *        the grid to judge
+	 * @return true if the grid is fair, else false
+	 */
+	boolean accepts(GridCandidate candidate);
+	
+	/**
+	 * Returns a criterion that accepts a grid when each player can reach the
+	 * starting position of every other player, and the distance there and back
+	 * differs by at most the specified number of moves. One-way teleporters
+	 * make these distances differ.
+	 * 
+	 * @param maximumDifference
+	 *        the maximum difference between the two distances
+	 * @return the criterion
+	 */
+	static FairnessCriterion startingDistanceSymmetry(int maximumDifference) {
+		return candidate -> {
+			List<Coordinate> starts = candidate.getStartingPositions();
+			for (int i = 0; i < starts.size(); i++)
+				for (int j = i + 1; j < starts.size(); j++) {
+					int there = candidate.getDistance(starts.get(i), starts.get(j));
+					int back = candidate.getDistance(starts.get(j), starts.get(i));
+					if (there == GridCandidate.UNREACHABLE || back == GridCandidate.UNREACHABLE
+							|| Math.abs(there - back) > maximumDifference)
+						return false;
+				}
+			return true;
+		};
+	}
+	
+	/**
+	 * Returns a criterion that accepts a grid when it holds a charged identity
+	 * disk that every player can reach, and the distances of the players to the
+	 * disk differ by at most the specified number of moves.
+	 * 
+	 * @param maximumDifference
+	 *        the maximum difference between the distances of the players
+	 * @return the criterion
+	 */
+	static FairnessCriterion chargedIdentityDiskReachable(int maximumDifference) {
+		return candidate -> {
+			for (Coordinate disk : candidate.getChargedIdentityDisks())
+				if (candidate.getDistanceSpread(disk) <= maximumDifference)
+					return true;
+			return false;
+		};
+	}
+	
+	/**
+	 * Returns a criterion that accepts a grid when the distances of the
+	 * players to their nearest teleporter differ by at most the specified
+	 * number of moves. A grid without teleporters is always accepted.
+	 * 
+	 * @param maximumDifference
+	 *        the maximum difference between the distances of the players
+	 * @return the criterion
+	 */
+	static FairnessCriterion teleporterBalance(int maximumDifference) {
+		return candidate -> {
+			if (candidate.getTeleporters().isEmpty())
+				return true;
+			
+			int min = GridCandidate.UNREACHABLE;
+			int max = 0;
+			for (Coordinate start : candidate.getStartingPositions()) {
+				int nearest = GridCandidate.UNREACHABLE;
+				for (Coordinate teleporter : candidate.getTeleporters().keySet())
+					nearest = Math.min(nearest, candidate.getDistance(start, teleporter));
+				min = Math.min(min, nearest);
+				max = Math.max(max, nearest);
+			}
+			return max != GridCandidate.UNREACHABLE && max - min <= maximumDifference;
+		};
+	}
+}
@@ -2,15 +2,23 @@ package grid.builder;
 
 import grid.Coordinate;
 import grid.Grid;
+import grid.builder.expressions.CombinedExpression;
 import grid.builder.expressions.Expression;
+import grid.builder.expressions.SquareExpression;
 import grid.builder.expressions.StartingSquareExpression;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import ObjectronExceptions.builderExceptions.GridBuildException;
+import ObjectronExceptions.builderExceptions.GridFileReadException;
 import ObjectronExceptions.builderExceptions.InvalidGridFileException;
 
 /**
@@ -22,10 +30,21 @@ import ObjectronExceptions.builderExceptions.InvalidGridFileException;
 @SuppressWarnings("javadoc")
 public class FileGridBuilderDirector extends RandomItemGridBuilderDirector {
 	
+	/*
+	 * The directory in which compiled grids are stored, or null if grid files
+	 * are not compiled.
+	 */
+	private static volatile File		compiledGridDirectory;
+	
 	private Map<Coordinate, Expression>	grid;
 	private Map<Integer, Coordinate>	startingCoordinates;
-	private TronFileParser				parser;
 	private File						file;
+	/** Whether the construction places items at random. */
+	private boolean						randomItems	= true;
+	/** Whether a grid was constructed since the last reset. */
+	private boolean						constructed;
+	private int							width;
+	private int							height;
 	
 	/**
 	 * Create a new GridBuilderDirector which will use the specified builder to
@@ -44,107 +63,364 @@ public class FileGridBuilderDirector extends RandomItemGridBuilderDirector {
 		startingCoordinates = new HashMap<Integer, Coordinate>();
 		grid = new HashMap<Coordinate, Expression>();
 		File file = new File(filepath);
-		parser = new TronFileParser(file);
+		if (!file.isFile())
+			throw new FileNotFoundException(filepath + " (No such file)");
 		this.file = file;
 	}
 	
+	/**
+	 * Set the directory in which the {@link CompiledGrid compiled versions} of
+	 * valid grid files are stored. By default there is no such directory, and
+	 * nothing is written to disk when a grid file is read.
+	 * 
+	 * @param directory
+	 *        the directory for compiled grids, or null to stop storing them
+	 * @throws IllegalArgumentException
+	 *         The specified file is not a directory.
+	 */
+	public static void setCompiledGridDirectory(File directory) throws IllegalArgumentException {
+		if (directory != null && !directory.isDirectory())
+			throw new IllegalArgumentException(directory + " is not a directory");
+		compiledGridDirectory = directory;
+	}
+	
+	/**
+	 * Returns the directory in which compiled grids are stored, or null if
+	 * they are not stored.
+	 * 
+	 * @return the directory for compiled grids
+	 */
+	public static File getCompiledGridDirectory() {
+		return compiledGridDirectory;
+	}
+	
 	/**
 	 * Construct the grid specified in the file given in the constructor. This
 	 * method will also {@link RandomItemGridBuilderDirector} <i>randomly</i>
 	 * (i.e. as specified by the Tron game constraints) place items on the grid.
 	 * 
+	 * If a {@link #setCompiledGridDirectory(File) compiled grid directory} is
+	 * set, a valid grid file is {@link CompiledGrid compiled} to a file in that
+	 * directory. As long as the grid file does not change, later calls read
+	 * the compiled grid and do not parse the grid file again. The
+	 * compiled grids of recently used files are also kept in memory as a
+	 * {@link GridTemplate}. So is the reason why a grid file is not valid,
+	 * unless the grid file could not be read.
+	 * 
 	 * @throws InvalidGridFileException
 	 *         The grid file must adhere the correct rules and it cannot contain
 	 *         invalid characters.
+	 * @throws GridFileReadException
+	 *         The grid file could not be read.
 	 */
 	@Override
 	public void construct() throws InvalidGridFileException {
+		reset();
+		
+		File directory = compiledGridDirectory;
+		BasicFileAttributes attributes;
+		byte[] hash;
+		try {
+			attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+			GridTemplate template = GridTemplate.get(file, attributes);
+			if (template != null) {
+				template.build(builder, startingCoordinates);
+				finish(template.getWidth(), template.getHeight());
+				return;
+			}
+			hash = directory == null ? null : CompiledGrid.hash(file);
+		}
+		catch (IOException e) {
+			throw new GridFileReadException("The grid file could not be read");
+		}
+		
+		try {
+			GridTemplate.put(file, new GridTemplate(attributes, compile(directory, hash)));
+		}
+		catch (GridFileReadException e) {
+			throw e;
+		}
+		catch (InvalidGridFileException e) {
+			GridTemplate.put(file, new GridTemplate(attributes, e.getMessage()));
+			throw e;
+		}
+	}
+	
+	/**
+	 * Construct the grid by replaying the compiled version of the grid file,
+	 * or by parsing and validating the grid file itself.
+	 * 
+	 * @param directory
+	 *        the directory of the compiled grids, or null if the grid file
+	 *        must not be compiled to disk
+	 * @param hash
+	 *        the hash of the grid file, if there is a directory
+	 * @return the compiled version of the grid file
+	 * @throws InvalidGridFileException
+	 *         The grid file is not valid.
+	 */
+	private CompiledGrid compile(File directory, byte[] hash) throws InvalidGridFileException {
+		File compiledFile = directory == null ? null : CompiledGrid.getCompiledFile(directory,
+				file);
+		CompiledGrid compiledGrid = compiledFile == null ? null : replay(compiledFile, hash);
+		if (compiledGrid != null) {
+			finish(compiledGrid.getWidth(), compiledGrid.getHeight());
+			return compiledGrid;
+		}
+		
+		TronFileParser parser;
+		try {
+			parser = new TronFileParser(file);
+		}
+		catch (IOException e) {
+			throw new GridFileReadException("The grid file could not be read");
+		}
+		
+		CompiledGrid.Recorder recorder = new CompiledGrid.Recorder(builder);
+		GridDimension gridDim;
 		try {
+			gridDim = readGridFromFile(parser, recorder);
+		}
+		catch (InvalidGridFileException e) {
 			reset();
+			throw e;
 		}
-		catch (FileNotFoundException e1) {
-			throw new InvalidGridFileException("file not found");
+		catch (GridBuildException e) {
+			// e.g. a teleporter that leads to a wall
+			reset();
+			throw new InvalidGridFileException(e.getMessage());
 		}
+		finish(gridDim.getWidth(), gridDim.getHeight());
 		
-		GridDimension gridDim = readGridFromFile();
-		placeItemsOnBoard(startingCoordinates, gridDim.getWidth(), gridDim.getHeight());
+		try {
+			validateGrid(getSquares());
+		}
+		catch (InvalidGridFileException e) {
+			reset();
+			throw e;
+		}
 		
-		if (!isValidGrid()) {
+		compiledGrid = recorder.compile(gridDim.getWidth(), gridDim.getHeight());
+		if (compiledFile != null)
 			try {
-				reset();
+				compiledGrid.write(compiledFile, hash);
 			}
-			catch (FileNotFoundException e) {
-				// Do nothing because we're already throwing an exception
+			catch (IOException e) {
+				// the grid file will be parsed again next time
 			}
-			throw new InvalidGridFileException("The specified grid was not valid");
+		return compiledGrid;
+	}
+	
+	/**
+	 * Replay the specified compiled version of the grid file. A compiled grid
+	 * that cannot be read, replayed or validated is deleted, and the builder
+	 * is reset, so the grid file can be parsed instead.
+	 * 
+	 * @param compiledFile
+	 *        the file of the compiled grid
+	 * @param hash
+	 *        the hash of the grid file
+	 * @return the replayed compiled grid, or null if there is no valid
+	 *         compiled grid for the current version of the grid file
+	 */
+	private CompiledGrid replay(File compiledFile, byte[] hash) {
+		try {
+			CompiledGrid compiledGrid = CompiledGrid.read(compiledFile, hash);
+			if (compiledGrid != null) {
+				List<Coordinate> squares = new ArrayList<Coordinate>();
+				compiledGrid.replay(builder, startingCoordinates, squares);
+				validateGrid(squares);
+			}
+			return compiledGrid;
+		}
+		catch (IOException | RuntimeException e) {
+			// the compiled grid is damaged, so the grid file is parsed again
+			reset();
+			compiledFile.delete();
+			return null;
+		}
+	}
+	
+	/**
+	 * Construct the grid specified in the file, like {@link #construct()},
+	 * but without the items that are placed at random. They can be placed
+	 * later with {@link #placeRandomItems(GridBuilder)}, on the constructed
+	 * grid or on a {@link Grid#copy() copy} of it, so a grid file that is
+	 * played several times only has to be built once.
+	 * 
+	 * @throws InvalidGridFileException
+	 *         The grid file must adhere the correct rules and it cannot contain
+	 *         invalid characters.
+	 */
+	public void constructWithoutRandomItems() throws InvalidGridFileException {
+		randomItems = false;
+		try {
+			construct();
+		}
+		finally {
+			randomItems = true;
 		}
 	}
 	
-	private void reset() throws FileNotFoundException {
+	/**
+	 * Place items at random, as {@link #construct()} does, on the grid of the
+	 * specified builder. The builder must continue the construction of the
+	 * grid that this director constructed last
+	 * {@link #constructWithoutRandomItems() without random items}, or of a
+	 * copy of that grid. Each call makes new random choices, unless a
+	 * {@link #setSeed(long) seed} is set.
+	 * 
+	 * @param builder
+	 *        the builder of the grid to place the items on
+	 * @throws IllegalStateException
+	 *         This director has not constructed a grid yet.
+	 */
+	public void placeRandomItems(GridBuilder builder) throws IllegalStateException {
+		if (builder == null)
+			throw new IllegalArgumentException("The specified builder cannot be null");
+		if (!constructed)
+			throw new IllegalStateException("No grid was constructed yet");
+		
+		GridBuilder constructingBuilder = this.builder;
+		this.builder = builder;
+		try {
+			placeRandomItems(startingCoordinates, width, height, newRandom());
+		}
+		finally {
+			this.builder = constructingBuilder;
+		}
+	}
+	
+	/**
+	 * Returns the coordinates of the starting positions of the grid that this
+	 * director constructed last, by their number in the grid file.
+	 * 
+	 * @return the starting coordinates of the constructed grid
+	 * @throws IllegalStateException
+	 *         This director has not constructed a grid yet.
+	 */
+	public Map<Integer, Coordinate> getStartingCoordinates() throws IllegalStateException {
+		if (!constructed)
+			throw new IllegalStateException("No grid was constructed yet");
+		return Collections.unmodifiableMap(startingCoordinates);
+	}
+	
+	/**
+	 * Finish the construction of the grid once the part of it that is
+	 * specified in the file is built.
+	 */
+	private void finish(int width, int height) {
+		this.width = width;
+		this.height = height;
+		placeStartingPositions(startingCoordinates);
+		if (randomItems)
+			placeRandomItems(startingCoordinates, width, height, newRandom());
+		constructed = true;
+	}
+	
+	private void reset() {
+		constructed = false;
 		builder.createNewEmptyGrid();
 		grid = new HashMap<Coordinate, Expression>();
-		parser = new TronFileParser(file);
 		startingCoordinates = new HashMap<Integer, Coordinate>();
 	}
 	
-	private boolean isValidGrid() {
-		if (gridHasUnreachableIslands())
-			return false;
-		else if (hasDoubleStartingPositions())
-			return false;
+	/**
+	 * Check whether the grid that was read from the file is valid.
+	 * 
+	 * @param squares
+	 *        the coordinates of the squares and starting positions of the grid
+	 * @throws InvalidGridFileException
+	 *         The grid is not valid.
+	 */
+	private void validateGrid(Collection<Coordinate> squares) throws InvalidGridFileException {
+		List<IslandFinder.Island> islands = getIslands(squares);
+		if (islands.size() > 1)
+			throw new InvalidGridFileException("The specified grid has unreachable islands: "
+					+ islands);
 		else if (hasSingleOrNoStartingPosition())
-			return false;
-		else
-			return true;
+			throw new InvalidGridFileException(
+					"The specified grid must have at least two starting positions");
 	}
 	
 	private boolean hasSingleOrNoStartingPosition() {
 		return (startingCoordinates.size() <= 1);
 	}
 	
-	private boolean hasDoubleStartingPositions() {
-		Set<Integer> values = new HashSet<Integer>();
-		for (Coordinate startingCoordinate : startingCoordinates.values()) {
-			if (values.contains(((StartingSquareExpression) grid.get(startingCoordinate)).getId()))
-				return true;
-			values.add(((StartingSquareExpression) grid.get(startingCoordinate)).getId());
-		}
-		return false;
-		
-	}
-	
 	/**
-	 * This method will construct the grid as specified in the gridFile.
+	 * This method will construct the grid as specified in the gridFile. All
+	 * the squares are built before the items, so teleporters can refer to
+	 * squares further in the file.
 	 * 
+	 * @param parser
+	 *        the parser of the grid file
+	 * @param builder
+	 *        the builder to construct the grid with
 	 * @return The dimensions of the read grid.
 	 * 
 	 * @throws InvalidGridFileException
-	 *         When the gridfile contains an invalid character.
-	 */
-	private GridDimension readGridFromFile() throws InvalidGridFileException {
-		int i = 0, j = 0;
-		while (parser.hasNextValidStatement()) {
-			j = 0;
-			while (!parser.isAtEndOfLine()) {
-				if (!parser.hasNextValidStatement()) {
-					throw new InvalidGridFileException("invalid grid symbol");
-				}
-				Expression expression = parser.nextExpression();
-				if (expression != null) {
-					expression.build(builder, new Coordinate(j, i));
-					grid.put(new Coordinate(j, i), expression);
-				}
+	 *         When the gridfile contains an invalid character or a starting
+	 *         position number more than once.
+	 */
+	private GridDimension readGridFromFile(TronFileParser parser, GridBuilder builder)
+			throws InvalidGridFileException {
+		List<Expression[]> rows = parser.readRows();
+		for (int i = 0; i < rows.size(); i++)
+			for (int j = 0; j < rows.get(i).length; j++) {
+				Expression expression = getSquareExpression(rows.get(i)[j]);
 				if (expression instanceof StartingSquareExpression) {
 					int id = ((StartingSquareExpression) expression).getId();
+					if (startingCoordinates.containsKey(id))
+						throw new InvalidGridFileException("The specified grid has double "
+								+ "starting positions: " + id);
 					startingCoordinates.put(id, new Coordinate(j, i));
 				}
-				j++;
-				
+				expression.build(builder, new Coordinate(j, i));
+				grid.put(new Coordinate(j, i), expression);
 			}
-			parser.readEndOfLine();
-			i++;
+		
+		for (int i = 0; i < rows.size(); i++)
+			for (int j = 0; j < rows.get(i).length; j++)
+				buildItems(rows.get(i)[j], builder, new Coordinate(j, i));
+		
+		int width = 0;
+		for (Expression[] row : rows)
+			width = Math.max(width, row.length);
+		return new GridDimension(width, rows.size());
+	}
+	
+	/**
+	 * Returns the expression of the square itself, without its items.
+	 */
+	private static Expression getSquareExpression(Expression expression) {
+		while (expression instanceof CombinedExpression)
+			expression = ((CombinedExpression) expression).getExpression();
+		return expression;
+	}
+	
+	/**
+	 * Build the items of the specified expression, in the order of the file.
+	 */
+	private static void buildItems(Expression expression, GridBuilder builder,
+			Coordinate coordinate) {
+		if (expression instanceof CombinedExpression) {
+			CombinedExpression combined = (CombinedExpression) expression;
+			buildItems(combined.getExpression(), builder, coordinate);
+			combined.getItemExpression().build(builder, coordinate);
 		}
-		return new GridDimension(i, j);
+	}
+	
+	/**
+	 * Returns the coordinates of the squares and starting positions that were
+	 * read from the file.
+	 */
+	private List<Coordinate> getSquares() {
+		List<Coordinate> squares = new ArrayList<Coordinate>();
+		for (Map.Entry<Coordinate, Expression> entry : grid.entrySet())
+			if (entry.getValue() instanceof SquareExpression
+					|| entry.getValue() instanceof StartingSquareExpression)
+				squares.add(entry.getKey());
+		return squares;
 	}
 	
 	/**
@@ -155,23 +431,21 @@ public class FileGridBuilderDirector extends RandomItemGridBuilderDirector {
 	 * The grid having no unreachable islands also means there is a path between
 	 * the two starting locations.
 	 * 
-	 * @return Whether or not the creates grid has unreachable islands.
+	 * @param squares
+	 *        the coordinates of the squares and starting positions of the grid
+	 * @return The islands of the created grid, in row-major order.
 	 */
-	private boolean gridHasUnreachableIslands() {
-		Set<Coordinate> squaresReachableFromStart = new HashSet<Coordinate>();
-		List<Coordinate> coordinatesToVisit = builder
-				.getAllReachableNeighboursOf(this.startingCoordinates.get(1));
-		
-		while (!coordinatesToVisit.isEmpty()) {
-			Coordinate curCoordinate = coordinatesToVisit.remove(0);
-			List<Coordinate> coordsToAdd = builder.getAllReachableNeighboursOf(curCoordinate);
-			for (Coordinate coordinate : coordsToAdd)
-				if (squaresReachableFromStart.add(coordinate)) {
-					coordinatesToVisit.add(coordinate);
-				}
+	private static List<IslandFinder.Island> getIslands(Collection<Coordinate> squares) {
+		int width = 0, height = 0;
+		for (Coordinate coordinate : squares) {
+			width = Math.max(width, coordinate.getX() + 1);
+			height = Math.max(height, coordinate.getY() + 1);
 		}
 		
-		return (squaresReachableFromStart.size() != builder.getNumberOfSquares());
+		IslandFinder islandFinder = new IslandFinder(width, height);
+		for (Coordinate coordinate : squares)
+			islandFinder.addSquare(coordinate.getX(), coordinate.getY());
+		return islandFinder.getIslands();
 	}
 	
 	/**
@@ -42,6 +42,36 @@ public interface GridBuilder {
 	 */
 	void addWall(Coordinate coordinate);
 	
+	/**
+	 * Add the squares and walls of a rectangular area, starting at coordinate
+	 * (0, 0). The cells are specified row by row. This is the same as
+	 * {@link #addSquare(Coordinate) adding a square} or
+	 * {@link #addWall(Coordinate) a wall} for each cell in that order, but
+	 * builders can add all the cells at once.
+	 * 
+	 * @param cells
+	 *        the kind of each cell of the area, in row-major order
+	 * @param width
+	 *        the width of the area
+	 * @param height
+	 *        the height of the area
+	 * @throws IllegalArgumentException
+	 *         The number of cells does not match the dimensions of the area.
+	 */
+	default void addCells(CellKind[] cells, int width, int height)
+			throws IllegalArgumentException {
+		if (cells == null || width < 0 || height < 0 || cells.length != width * height)
+			throw new IllegalArgumentException("The cells do not match the dimensions of the area");
+		
+		for (int index = 0; index < cells.length; index++) {
+			Coordinate coordinate = new Coordinate(index % width, index / width);
+			if (cells[index] == CellKind.SQUARE)
+				addSquare(coordinate);
+			else if (cells[index] == CellKind.WALL)
+				addWall(coordinate);
+		}
+	}
+	
 	/**
 	 * Add a player startingposition at the specified coordinate.
 	 * 
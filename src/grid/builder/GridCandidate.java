@@ -0,0 +1,145 @@
+package grid.builder;
+
+import grid.Coordinate;
+import grid.Grid;
+import item.identitydisk.ChargedIdentityDisk;
+import item.teleporter.Teleporter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import square.SquareContainer;
+
+/**
+ * A grid built by a {@link FairGridGenerator}, which is judged by the
+ * {@link FairnessCriterion fairness criteria} of the generator. A candidate
+ * offers the travel distances between the squares of the grid, as computed by
+ * a {@link DistanceEngine}, so the criteria do not have to search the grid
+ * themselves.
+ */
+public class GridCandidate {
+	
+	/**
+	 * The distance between two squares when the second square cannot be
+	 * reached from the first.
+	 */
+	public static final int					UNREACHABLE	= DistanceEngine.UNREACHABLE;
+	
+	private final Grid						grid;
+	private final List<Coordinate>			startingPositions;
+	private final Map<Coordinate, Coordinate>	teleporters;
+	private final DistanceEngine			engine;
+	private final Map<Coordinate, int[]>	distances;
+	
+	/**
+	 * Create a new candidate for a grid that was just built.
+	 * 
+	 * @param builder
+	 *        the builder that built the grid
+	 * @param grid
+	 *        the grid built by the builder
+	 */
+	GridCandidate(GridBuilder builder, Grid grid) {
+		this.grid = grid;
+		
+		Map<SquareContainer, Coordinate> coordinates =
+				new IdentityHashMap<SquareContainer, Coordinate>();
+		for (Coordinate coordinate : grid.getRowMajorCoordinates())
+			coordinates.put(grid.getSquareAt(coordinate), coordinate);
+		
+		List<Coordinate> startingPositions = new ArrayList<Coordinate>();
+		for (SquareContainer square : grid.getAllStartingPositions())
+			startingPositions.add(coordinates.get(square));
+		this.startingPositions = Collections.unmodifiableList(startingPositions);
+		
+		Map<Coordinate, Coordinate> teleporters = new HashMap<Coordinate, Coordinate>();
+		for (Coordinate coordinate : grid.getCoordinatesWithItem(Teleporter.class))
+			for (Object item : grid.getSquareAt(coordinate).getAllItems())
+				if (item instanceof Teleporter && ((Teleporter) item).getDestination() != null)
+					teleporters.put(coordinate, coordinates.get(((Teleporter) item)
+							.getDestination().getSquare()));
+		this.teleporters = Collections.unmodifiableMap(teleporters);
+		
+		this.engine = new DistanceEngine(builder, startingPositions, teleporters);
+		this.distances = new HashMap<Coordinate, int[]>();
+	}
+	
+	/**
+	 * Returns the grid of this candidate.
+	 */
+	public Grid getGrid() {
+		return grid;
+	}
+	
+	/**
+	 * Returns the coordinates of the starting positions of the grid, sorted by
+	 * their number.
+	 */
+	public List<Coordinate> getStartingPositions() {
+		return startingPositions;
+	}
+	
+	/**
+	 * Returns the locations of the teleporters on the grid, mapped to the
+	 * locations of their destinations.
+	 */
+	public Map<Coordinate, Coordinate> getTeleporters() {
+		return teleporters;
+	}
+	
+	/**
+	 * Returns the locations of the charged identity disks on the grid.
+	 */
+	public List<Coordinate> getChargedIdentityDisks() {
+		return grid.getCoordinatesWithItem(ChargedIdentityDisk.class);
+	}
+	
+	/**
+	 * Returns the number of moves a player needs to travel from one square to
+	 * another. Teleporters are taken into account.
+	 * 
+	 * @param from
+	 *        the square to start from
+	 * @param to
+	 *        the square to travel to
+	 * @return the travel distance, or {@value #UNREACHABLE} if the second
+	 *         square cannot be reached from the first
+	 */
+	public synchronized int getDistance(Coordinate from, Coordinate to) {
+		int index = engine.indexOf(to);
+		if (from == null || index < 0)
+			return UNREACHABLE;
+		
+		int[] field = distances.get(from);
+		if (field == null) {
+			field = engine.getDistances(from);
+			distances.put(from, field);
+		}
+		return field[index];
+	}
+	
+	/**
+	 * Returns how much the distances of the players to the specified square
+	 * differ, i.e. the distance of the player furthest from the square minus
+	 * the distance of the player nearest to it.
+	 * 
+	 * @param target
+	 *        the square the players travel to
+	 * @return the difference between the distances, or {@value #UNREACHABLE}
+	 *         if a player cannot reach the square
+	 */
+	public int getDistanceSpread(Coordinate target) {
+		int min = UNREACHABLE;
+		int max = 0;
+		for (Coordinate start : startingPositions) {
+			int distance = getDistance(start, target);
+			if (distance == UNREACHABLE)
+				return UNREACHABLE;
+			min = Math.min(min, distance);
+			max = Math.max(max, distance);
+		}
+		return startingPositions.isEmpty() ? 0 : max - min;
+	}
+}
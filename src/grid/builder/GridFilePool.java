@@ -0,0 +1,181 @@
+package grid.builder;
+
+import effects.EffectFactory;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import ObjectronExceptions.builderExceptions.GridBuildException;
+
+/**
+ * A pool of grid files that are loaded and validated together, typically when
+ * the game starts. All the grid files in a directory are read in parallel,
+ * each by its own {@link FileGridBuilderDirector}, so an invalid grid file is
+ * found before a player picks it.
+ * 
+ * The {@link GridTemplate templates} of the files in the pool are pinned in
+ * memory, so later games on these files do not read them again, as long as
+ * they are not modified. The pool keeps a {@link LoadResult result} for each
+ * file, with the time it took to load the file and the reason why it is not
+ * valid, if it is not.
+ */
+public class GridFilePool {
+	
+	private final List<LoadResult>	results;
+	
+	private GridFilePool(List<LoadResult> results) {
+		this.results = Collections.unmodifiableList(results);
+	}
+	
+	/**
+	 * Load and validate all the grid files in the specified directory. The
+	 * compiled versions of grid files in the directory are skipped.
+	 * 
+	 * @param directory
+	 *        the directory with the grid files
+	 * @param effectFactory
+	 *        the effect factory for the items on the grids
+	 * @return the pool of the grid files in the directory
+	 * @throws FileNotFoundException
+	 *         The directory does not exist.
+	 * @throws IllegalArgumentException
+	 *         The arguments cannot be null.
+	 */
+	public static GridFilePool load(File directory, EffectFactory effectFactory)
+			throws FileNotFoundException, IllegalArgumentException {
+		if (directory == null || effectFactory == null)
+			throw new IllegalArgumentException("The directory and effect factory cannot be null");
+		File[] files = directory.listFiles(file -> file.isFile()
+				&& !file.getName().endsWith(CompiledGrid.EXTENSION));
+		if (files == null)
+			throw new FileNotFoundException(directory + " (No such directory)");
+		
+		Arrays.sort(files, Comparator.comparing(File::getName));
+		List<LoadResult> results = Arrays.stream(files).parallel()
+				.map(file -> loadFile(file, effectFactory)).collect(Collectors.toList());
+		return new GridFilePool(results);
+	}
+	
+	private static LoadResult loadFile(File file, EffectFactory effectFactory) {
+		GridTemplate.pin(file);
+		long start = System.nanoTime();
+		String error = null;
+		try {
+			new FileGridBuilderDirector(new TronGridBuilder(effectFactory), file.getPath())
+					.construct();
+		}
+		catch (GridBuildException e) {
+			error = e.getMessage() != null ? e.getMessage() : e.toString();
+		}
+		catch (FileNotFoundException e) {
+			error = "The grid file could not be found";
+		}
+		return new LoadResult(file, error, System.nanoTime() - start);
+	}
+	
+	/**
+	 * Returns the result of each file in this pool, sorted by the name of the
+	 * file.
+	 */
+	public List<LoadResult> getResults() {
+		return results;
+	}
+	
+	/**
+	 * Returns the valid grid files in this pool, sorted by their name.
+	 */
+	public List<File> getValidFiles() {
+		List<File> files = new ArrayList<File>();
+		for (LoadResult result : results)
+			if (result.isValid())
+				files.add(result.getFile());
+		return files;
+	}
+	
+	/**
+	 * Returns a report of the files in this pool, with one line for each file
+	 * that holds its name, the time it took to load it, and whether it is
+	 * valid.
+	 * 
+	 * @return the report of this pool
+	 */
+	public String getReport() {
+		StringBuilder report = new StringBuilder();
+		int valid = 0;
+		long time = 0;
+		for (LoadResult result : results) {
+			report.append(String.format("%-30s %6d ms  %s%n", result.getFile().getName(),
+					result.getLoadTime(TimeUnit.MILLISECONDS), result.isValid() ? "OK" : result
+							.getError()));
+			if (result.isValid())
+				valid++;
+			time += result.getLoadTime(TimeUnit.NANOSECONDS);
+		}
+		report.append(String.format("%d of %d grid files are valid (%d ms in total)%n", valid,
+				results.size(), TimeUnit.NANOSECONDS.toMillis(time)));
+		return report.toString();
+	}
+	
+	/**
+	 * Let the templates of the files in this pool be removed from memory again
+	 * when they are not used.
+	 */
+	public void release() {
+		for (LoadResult result : results)
+			GridTemplate.unpin(result.getFile());
+	}
+	
+	/**
+	 * The result of loading a single grid file.
+	 */
+	public static class LoadResult {
+		
+		private final File		file;
+		private final String	error;
+		private final long		loadTime;
+		
+		private LoadResult(File file, String error, long loadTime) {
+			this.file = file;
+			this.error = error;
+			this.loadTime = loadTime;
+		}
+		
+		/**
+		 * Returns the grid file.
+		 */
+		public File getFile() {
+			return file;
+		}
+		
+		/**
+		 * Returns whether the grid file is valid.
+		 */
+		public boolean isValid() {
+			return error == null;
+		}
+		
+		/**
+		 * Returns the reason why the grid file is not valid, or null if it is
+		 * valid.
+		 */
+		public String getError() {
+			return error;
+		}
+		
+		/**
+		 * Returns the time it took to load and validate the grid file.
+		 * 
+		 * @param unit
+		 *        the unit of the returned time
+		 * @return the load time in the specified unit
+		 */
+		public long getLoadTime(TimeUnit unit) {
+			return unit.convert(loadTime, TimeUnit.NANOSECONDS);
+		}
+	}
+}
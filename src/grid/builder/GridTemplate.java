@@ -0,0 +1,207 @@
+package grid.builder;
+
+import grid.Coordinate;
+import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import ObjectronExceptions.builderExceptions.InvalidGridFileException;
+
+/**
+ * A grid file that was already read and validated by a
+ * {@link FileGridBuilderDirector}. A template holds the
+ * {@link CompiledGrid compiled} version of a valid grid file, or the reason
+ * why the grid file is not valid.
+ * 
+ * The templates of the last {@value #MAXIMUM_NUMBER_OF_TEMPLATES} grid files
+ * that were used are kept in memory. The templates of
+ * {@link #pin(File) pinned} files stay in memory until they are unpinned. A
+ * template is only used as long as its file was not modified.
+ */
+class GridTemplate {
+	
+	/**
+	 * The maximum number of templates that are kept in memory.
+	 */
+	static final int								MAXIMUM_NUMBER_OF_TEMPLATES	= 16;
+	
+	private static final Map<String, GridTemplate>	templates					= new LeastRecentlyUsedMap();
+	private static final Map<String, GridTemplate>	pinned						= new HashMap<String, GridTemplate>();
+	
+	private final FileTime							lastModified;
+	private final long								size;
+	private final Object							fileKey;
+	private final CompiledGrid						grid;
+	private final String							error;
+	
+	private GridTemplate(BasicFileAttributes attributes, CompiledGrid grid, String error) {
+		this.lastModified = attributes.lastModifiedTime();
+		this.size = attributes.size();
+		this.fileKey = attributes.fileKey();
+		this.grid = grid;
+		this.error = error;
+	}
+	
+	/**
+	 * Create a new template for a valid grid file.
+	 * 
+	 * @param attributes
+	 *        the attributes of the grid file, read before the file was read
+	 * @param grid
+	 *        the compiled version of the grid file
+	 */
+	GridTemplate(BasicFileAttributes attributes, CompiledGrid grid) {
+		this(attributes, grid, null);
+	}
+	
+	/**
+	 * Create a new template for a grid file that is not valid.
+	 * 
+	 * @param attributes
+	 *        the attributes of the grid file, read before the file was read
+	 * @param error
+	 *        the reason why the grid file is not valid
+	 */
+	GridTemplate(BasicFileAttributes attributes, String error) {
+		this(attributes, null, error);
+	}
+	
+	/**
+	 * Returns whether the grid file of this template is valid.
+	 */
+	boolean isValid() {
+		return grid != null;
+	}
+	
+	/**
+	 * Build the grid of this template with the specified builder.
+	 * 
+	 * @param builder
+	 *        the builder to build the grid with
+	 * @param startingCoordinates
+	 *        the map to which the starting positions of the grid will be added
+	 * @throws InvalidGridFileException
+	 *         The grid file of this template is not valid.
+	 */
+	void build(GridBuilder builder, Map<Integer, Coordinate> startingCoordinates)
+			throws InvalidGridFileException {
+		if (!isValid())
+			throw new InvalidGridFileException(error);
+		grid.replay(builder, startingCoordinates);
+	}
+	
+	/**
+	 * Returns the width of the grid of this template.
+	 */
+	int getWidth() {
+		return grid.getWidth();
+	}
+	
+	/**
+	 * Returns the height of the grid of this template.
+	 */
+	int getHeight() {
+		return grid.getHeight();
+	}
+	
+	private boolean isTemplateOf(BasicFileAttributes attributes) {
+		return Objects.equals(fileKey, attributes.fileKey()) && size == attributes.size()
+				&& lastModified.equals(attributes.lastModifiedTime());
+	}
+	
+	/**
+	 * Returns the template of the specified file, if it is still in memory
+	 * and the file was not modified since.
+	 * 
+	 * @param file
+	 *        the grid file
+	 * @param attributes
+	 *        the current attributes of the grid file
+	 * @return the template of the file, or null if there is none
+	 */
+	static GridTemplate get(File file, BasicFileAttributes attributes) {
+		String key = file.getAbsolutePath();
+		synchronized (templates) {
+			GridTemplate template = pinned.containsKey(key) ? pinned.get(key) : templates.get(key);
+			if (template == null || template.isTemplateOf(attributes))
+				return template;
+			templates.remove(key);
+			if (pinned.containsKey(key))
+				pinned.put(key, null);
+			return null;
+		}
+	}
+	
+	/**
+	 * Keep the template of the specified file in memory.
+	 * 
+	 * @param file
+	 *        the grid file
+	 * @param template
+	 *        the template of the file
+	 */
+	static void put(File file, GridTemplate template) {
+		String key = file.getAbsolutePath();
+		synchronized (templates) {
+			if (pinned.containsKey(key))
+				pinned.put(key, template);
+			else
+				templates.put(key, template);
+		}
+	}
+	
+	/**
+	 * Keep the template of the specified file in memory until the file is
+	 * {@link #unpin(File) unpinned}, no matter how many other templates are
+	 * used in the meantime.
+	 * 
+	 * @param file
+	 *        the grid file
+	 */
+	static void pin(File file) {
+		String key = file.getAbsolutePath();
+		synchronized (templates) {
+			if (!pinned.containsKey(key))
+				pinned.put(key, templates.remove(key));
+		}
+	}
+	
+	/**
+	 * Let the template of the specified file be removed from memory again when
+	 * it is not used.
+	 * 
+	 * @param file
+	 *        the grid file
+	 */
+	static void unpin(File file) {
+		String key = file.getAbsolutePath();
+		synchronized (templates) {
+			if (!pinned.containsKey(key))
+				return;
+			GridTemplate template = pinned.remove(key);
+			if (template != null)
+				templates.put(key, template);
+		}
+	}
+	
+	/**
+	 * A map that removes its least recently used template when it holds more
+	 * than {@value GridTemplate#MAXIMUM_NUMBER_OF_TEMPLATES} templates.
+	 */
+	private static class LeastRecentlyUsedMap extends LinkedHashMap<String, GridTemplate> {
+		
+		private static final long	serialVersionUID	= 1L;
+		
+		LeastRecentlyUsedMap() {
+			super(MAXIMUM_NUMBER_OF_TEMPLATES, 0.75f, true);
+		}
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, GridTemplate> eldest) {
+			return size() > MAXIMUM_NUMBER_OF_TEMPLATES;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package grid.builder;
+
+import grid.Coordinate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the islands of a grid: the groups of squares between which a player
+ * can move. Two squares are connected when they are neighbours in one of the
+ * eight directions.
+ * 
+ * The squares are stored as indices in a row-major array and are grouped
+ * with a union-find structure, so finding the islands takes (almost) linear
+ * time in the number of positions of the grid.
+ */
+class IslandFinder {
+	
+	private static final int	NO_SQUARE	= -1;
+	
+	private final int			width;
+	private final int			height;
+	private final int[]			parent;
+	private final int[]			size;
+	
+	/**
+	 * Create a new island finder for a grid without any squares.
+	 * 
+	 * @param width
+	 *        the width of the grid
+	 * @param height
+	 *        the height of the grid
+	 */
+	IslandFinder(int width, int height) {
+		if (width < 0 || height < 0)
+			throw new IllegalArgumentException("The dimensions of a grid cannot be negative");
+		
+		this.width = width;
+		this.height = height;
+		this.parent = new int[width * height];
+		this.size = new int[width * height];
+		Arrays.fill(parent, NO_SQUARE);
+	}
+	
+	/**
+	 * Add a square on which a player can move to the grid.
+	 * 
+	 * @param x
+	 *        the x coordinate of the square
+	 * @param y
+	 *        the y coordinate of the square
+	 */
+	void addSquare(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			throw new IllegalArgumentException("The square is not inside the grid");
+		
+		int index = y * width + x;
+		if (parent[index] != NO_SQUARE)
+			return;
+		parent[index] = index;
+		size[index] = 1;
+		
+		// connect the square to its neighbours that were already added
+		for (int dy = -1; dy <= 1; dy++)
+			for (int dx = -1; dx <= 1; dx++)
+				if ((dx != 0 || dy != 0) && isSquare(x + dx, y + dy))
+					union(index, (y + dy) * width + x + dx);
+	}
+	
+	private boolean isSquare(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height && parent[y * width + x] != NO_SQUARE;
+	}
+	
+	private int find(int index) {
+		while (parent[index] != index) {
+			// path halving
+			parent[index] = parent[parent[index]];
+			index = parent[index];
+		}
+		return index;
+	}
+	
+	private void union(int first, int second) {
+		int firstRoot = find(first);
+		int secondRoot = find(second);
+		if (firstRoot == secondRoot)
+			return;
+		
+		// attach the smaller tree to the larger one
+		if (size[firstRoot] < size[secondRoot]) {
+			int root = firstRoot;
+			firstRoot = secondRoot;
+			secondRoot = root;
+		}
+		parent[secondRoot] = firstRoot;
+		size[firstRoot] += size[secondRoot];
+	}
+	
+	/**
+	 * Returns the islands of the squares that were added, in the row-major
+	 * order of their locations.
+	 * 
+	 * @return a list of all the islands of the grid
+	 */
+	List<Island> getIslands() {
+		List<Island> islands = new ArrayList<Island>();
+		boolean[] found = new boolean[parent.length];
+		for (int index = 0; index < parent.length; index++)
+			if (parent[index] != NO_SQUARE) {
+				int root = find(index);
+				if (!found[root]) {
+					found[root] = true;
+					islands.add(new Island(size[root], new Coordinate(index % width, index
+							/ width)));
+				}
+			}
+		return islands;
+	}
+	
+	/**
+	 * A group of squares between which a player can move.
+	 */
+	static class Island {
+		
+		private final int			size;
+		private final Coordinate	location;
+		
+		private Island(int size, Coordinate location) {
+			this.size = size;
+			this.location = location;
+		}
+		
+		/**
+		 * Returns the number of squares of this island.
+		 */
+		int getSize() {
+			return size;
+		}
+		
+		/**
+		 * Returns the location of the first square of this island, in row-major
+		 * order.
+		 */
+		Coordinate getLocation() {
+			return location;
+		}
+		
+		@Override
+		public String toString() {
+			return size + (size == 1 ? " square" : " squares") + " at " + location;
+		}
+	}
+}
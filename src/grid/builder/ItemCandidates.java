@@ -0,0 +1,162 @@
+package grid.builder;
+
+import grid.Coordinate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * The squares of a grid on which an item can still be placed. Squares are
+ * drawn at random and are removed from the candidates when they are drawn.
+ * 
+ * The candidates are kept in an array, together with the index of each square
+ * in that array. A square is removed by moving the last candidate to its place,
+ * so drawing a square is one step of a Fisher-Yates shuffle and takes constant
+ * time, no matter how many squares of the grid were already used.
+ */
+class ItemCandidates {
+	
+	private static final int	NONE	= -1;
+	
+	private final int			width;
+	private final int			height;
+	private final Coordinate[]	candidates;
+	private final int[]			indices;
+	private int					size;
+	
+	/**
+	 * Create a new set of candidates.
+	 * 
+	 * @param width
+	 *        the width of the area that contains all the candidates
+	 * @param height
+	 *        the height of the area that contains all the candidates
+	 * @param squares
+	 *        the coordinates of the squares on which an item can be placed
+	 */
+	ItemCandidates(int width, int height, Collection<Coordinate> squares) {
+		if (width < 0 || height < 0)
+			throw new IllegalArgumentException("The dimensions of a grid cannot be negative");
+		
+		this.width = width;
+		this.height = height;
+		this.candidates = new Coordinate[squares.size()];
+		this.indices = new int[width * height];
+		Arrays.fill(indices, NONE);
+		for (Coordinate square : squares)
+			if (!contains(square)) {
+				if (!isInArea(square))
+					throw new IllegalArgumentException(square + " is not inside the area");
+				indices[indexOf(square)] = size;
+				candidates[size++] = square;
+			}
+	}
+	
+	private ItemCandidates(ItemCandidates candidates) {
+		this.width = candidates.width;
+		this.height = candidates.height;
+		this.candidates = candidates.candidates.clone();
+		this.indices = candidates.indices.clone();
+		this.size = candidates.size;
+	}
+	
+	/**
+	 * Returns a copy of these candidates, from which squares can be drawn
+	 * independently.
+	 */
+	ItemCandidates copy() {
+		return new ItemCandidates(this);
+	}
+	
+	/**
+	 * Returns the number of candidates.
+	 */
+	int size() {
+		return size;
+	}
+	
+	private boolean isInArea(Coordinate coordinate) {
+		return coordinate.getX() >= 0 && coordinate.getX() < width && coordinate.getY() >= 0
+				&& coordinate.getY() < height;
+	}
+	
+	private int indexOf(Coordinate coordinate) {
+		return coordinate.getY() * width + coordinate.getX();
+	}
+	
+	/**
+	 * Returns whether the specified square is a candidate.
+	 */
+	boolean contains(Coordinate coordinate) {
+		return coordinate != null && isInArea(coordinate) && indices[indexOf(coordinate)] != NONE;
+	}
+	
+	/**
+	 * Remove a square from the candidates.
+	 * 
+	 * @param coordinate
+	 *        the coordinate of the square
+	 * @return true if the square was a candidate, else false
+	 */
+	boolean remove(Coordinate coordinate) {
+		if (!contains(coordinate))
+			return false;
+		
+		// move the last candidate to the place of the removed one
+		int index = indices[indexOf(coordinate)];
+		Coordinate last = candidates[--size];
+		candidates[index] = last;
+		indices[indexOf(last)] = index;
+		candidates[size] = null;
+		indices[indexOf(coordinate)] = NONE;
+		return true;
+	}
+	
+	/**
+	 * Draw a random square from the candidates.
+	 * 
+	 * @param random
+	 *        the random generator to draw with
+	 * @return the coordinate of the square, or null if there are no candidates
+	 *         left
+	 */
+	Coordinate draw(SplittableRandom random) {
+		if (size == 0)
+			return null;
+		
+		Coordinate coordinate = candidates[random.nextInt(size)];
+		remove(coordinate);
+		return coordinate;
+	}
+	
+	/**
+	 * Draw a random square from the candidates that lie in a square area
+	 * around a specified position.
+	 * 
+	 * @param center
+	 *        the center of the area
+	 * @param distance
+	 *        the maximum distance from the center, in the x and y direction,
+	 *        of the squares that can be drawn
+	 * @param random
+	 *        the random generator to draw with
+	 * @return the coordinate of the square, or null if there are no candidates
+	 *         in the area
+	 */
+	Coordinate drawNear(Coordinate center, int distance, SplittableRandom random) {
+		Coordinate[] area = new Coordinate[(2 * distance + 1) * (2 * distance + 1)];
+		int numberOfSquares = 0;
+		for (int x = center.getX() - distance; x <= center.getX() + distance; x++)
+			for (int y = center.getY() - distance; y <= center.getY() + distance; y++) {
+				Coordinate coordinate = new Coordinate(x, y);
+				if (contains(coordinate))
+					area[numberOfSquares++] = coordinate;
+			}
+		
+		if (numberOfSquares == 0)
+			return null;
+		Coordinate coordinate = area[random.nextInt(numberOfSquares)];
+		remove(coordinate);
+		return coordinate;
+	}
+}
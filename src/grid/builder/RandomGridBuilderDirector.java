@@ -2,18 +2,21 @@ package grid.builder;
 
 import grid.Coordinate;
 import grid.Grid;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
-import square.Wall;
+import java.util.SplittableRandom;
 
 /**
  * This GridBuilder will construct a <i>random</i> grid as specified by the Tron
  * game constraints. For the placement of items it will call the
  * {@link RandomItemGridBuilderDirector#placeItemsOnBoard(Map, int, int)
  * supertype method}.
+ * 
+ * The walls and the items are placed with separate
+ * {@link SplittableRandom#split() splits} of the random generator of the
+ * construction, so with a {@link #setSeed(long) seed} the same grid is built
+ * every time.
  */
 @SuppressWarnings("javadoc")
 public class RandomGridBuilderDirector extends RandomItemGridBuilderDirector {
@@ -33,11 +36,13 @@ public class RandomGridBuilderDirector extends RandomItemGridBuilderDirector {
 	static final double			MAXIMUM_WALL_LENGHT_PERCENTAGE	= 0.50;
 	/** the maximal number of walls as a percentage of the nb of sq on the grid */
 	static final double			MAXIMUM_WALL_NUMBER_PERCENTAGE	= 0.20;
+	/** the number of random positions tried for a wall before giving up */
+	static final int			MAXIMUM_ATTEMPTS_PER_WALL		= 1000;
 	
 	private int					height;
 	private int					width;
 	
-	private Collection<Wall>	walls;
+	private WallPlacer			wallPlacer;
 	private int					numberOfWallPartsToPlace;
 	
 	/**
@@ -88,137 +93,67 @@ public class RandomGridBuilderDirector extends RandomItemGridBuilderDirector {
 	 */
 	private void resetCreatedGrid() {
 		builder.createNewEmptyGrid();
-		this.walls = new ArrayList<Wall>();
+		this.wallPlacer = new WallPlacer(width, height, getStartingPositions().values());
 		this.numberOfWallPartsToPlace = 0;
 	}
 	
 	@Override
 	public void construct() {
 		resetCreatedGrid();
-		
-		// Populate the grid with squares
-		for (int i = 0; i < width; i++)
-			for (int j = 0; j < height; j++)
-				builder.addSquare(new Coordinate(i, j));
+		SplittableRandom random = newRandom();
+		SplittableRandom wallRandom = random.split();
+		SplittableRandom itemRandom = random.split();
 		
 		// place walls on the grid
 		int maxNumberOfWallParts = (int) Math.ceil(width * height * MAXIMUM_WALL_NUMBER_PERCENTAGE);
-		this.numberOfWallPartsToPlace = new Random().nextInt(maxNumberOfWallParts
+		this.numberOfWallPartsToPlace = wallRandom.nextInt(maxNumberOfWallParts
 				- MINIMUM_WALL_LENGHT + 1)
 				+ MINIMUM_WALL_LENGHT;
 		
-		while ((numberOfWallPartsToPlace - getNumberOfWallParts()) >= MINIMUM_WALL_LENGHT)
-			placeNewWall();
+		CellKind[] cells = new CellKind[width * height];
+		Arrays.fill(cells, CellKind.SQUARE);
+		while ((numberOfWallPartsToPlace - wallPlacer.getNumberOfWallParts()) >= MINIMUM_WALL_LENGHT)
+			if (!placeNewWall(cells, wallRandom))
+				break;
+		
+		// populate the grid with squares and walls
+		builder.addCells(cells, width, height);
 		
 		// place the items on the board
-		placeItemsOnBoard(getStartingPositions(), width, height);
-	}
-	
-	/**
-	 * returns the number of walls in the grid
-	 * 
-	 * @return number of walls
-	 */
-	private int getNumberOfWallParts() {
-		int result = 0;
-		for (Wall wall : walls) {
-			result += getWallPositions(wall.getStart(), wall.getEnd()).size();
-		}
-		return result;
+		placeItemsOnBoard(getStartingPositions(), width, height, itemRandom);
 	}
 	
 	/**
 	 * Place a new wall on the grid. This method will automatically determine
 	 * the maximum length of the wall.
+	 * 
+	 * @param cells
+	 *        the cells of the grid, in row-major order, in which the parts of
+	 *        the wall are marked
+	 * @param random
+	 *        the random generator to place the wall with
+	 * @return true if a wall was placed, false if no place was found for the
+	 *         wall
 	 */
-	private void placeNewWall() {
+	private boolean placeNewWall(CellKind[] cells, SplittableRandom random) {
 		// generate random number between a minimum and a maximum
 		int max = getMaximumLengthOfWall();
-		int wallLength = new Random().nextInt(max - MINIMUM_WALL_LENGHT + 1) + MINIMUM_WALL_LENGHT;
+		int wallLength = random.nextInt(max - MINIMUM_WALL_LENGHT + 1) + MINIMUM_WALL_LENGHT;
 		
-		Coordinate start, end;
-		do {
-			start = Coordinate.random(width, height);
-			end = start.getRandomCoordinateWithDistance(wallLength - 1);
+		for (int attempt = 0; attempt < MAXIMUM_ATTEMPTS_PER_WALL; attempt++) {
+			Coordinate start = Coordinate.random(width, height, random);
+			Coordinate end = start.getRandomCoordinateWithDistance(wallLength - 1, random);
 			// We should do -1 here, because an end square placed (n)
 			// squares from the start square produces a wall of length
 			// (n+1)
-		} while (!canPlaceWall(start, end));
-		// place the wall on the grid
-		placeWallOnGrid(start, end);
-	}
-	
-	/**
-	 * This method will place a wall on the grid with a specified start and end
-	 * position. If the wall cannot be placed on the board this method will
-	 * throw an {@link IllegalArgumentException}
-	 * 
-	 * @param start
-	 *        the start position of the grid
-	 * @param end
-	 *        the end position of the grid
-	 * @throws IllegalArgumentException
-	 *         if the wall cannot be placed on the board
-	 */
-	private void placeWallOnGrid(Coordinate start, Coordinate end) throws IllegalArgumentException {
-		if (!canPlaceWall(start, end))
-			throw new IllegalArgumentException("the wall cannot be placed on the board");
-		Wall wall = new Wall(start, end);
-		for (Coordinate coord : getWallPositions(start, end))
-			builder.addWall(coord);
-		walls.add(wall);
-	}
-	
-	/**
-	 * returns whether a wall, specified by its start and end position, can be
-	 * placed on the board.
-	 * 
-	 * @param start
-	 *        the start position of the wall
-	 * @param end
-	 *        the end position of the wall
-	 * @return true if a wall can be placed, else false
-	 * 
-	 */
-	private boolean canPlaceWall(Coordinate start, Coordinate end) {
-		// walls must be placed on the board
-		if (!isCoordinateInGrid(start) || !isCoordinateInGrid(end))
-			return false;
-		// walls cannot be placed on start positions
-		if (isStartingPosition(start) || isStartingPosition(end))
-			return false;
-		// walls cannot touch other walls on the board
-		for (Wall w : walls)
-			if (w.touchesWall(new Wall(start, end)))
-				return false;
-		return true;
-	}
-	
-	/**
-	 * Returns whether the specified coordinate is part of the grid
-	 * 
-	 * @param coordinate
-	 *        the coordinate to test
-	 * @return true if the coordinate is part of the grid
-	 */
-	private boolean isCoordinateInGrid(Coordinate coordinate) {
-		if (coordinate.getX() >= width || coordinate.getX() < 0)
-			return false;
-		else if (coordinate.getY() >= height || coordinate.getY() < 0)
-			return false;
-		else
-			return true;
-	}
-	
-	/**
-	 * Returns whether the specified coordinate is a starting position
-	 * 
-	 * @param coordinate
-	 *        the coordinate to test
-	 * @return true if the specified coordinate is a starting position
-	 */
-	private boolean isStartingPosition(Coordinate coordinate) {
-		return getStartingPositions().values().contains(coordinate);
+			if (wallPlacer.canPlaceWall(start, end)) {
+				// place the wall on the grid
+				for (Coordinate coord : wallPlacer.placeWall(start, end))
+					cells[coord.getY() * width + coord.getX()] = CellKind.WALL;
+				return true;
+			}
+		}
+		return false;
 	}
 	
 	/**
@@ -245,55 +180,28 @@ public class RandomGridBuilderDirector extends RandomItemGridBuilderDirector {
 		return result;
 	}
 	
-	/**
-	 * Return all the coordinates of a wall that starts and ends at two certain
-	 * points.
-	 * 
-	 * @param start
-	 *        The start position of the wall.
-	 * @param end
-	 *        The end position of the wall.
-	 * @return A collection of coordinates of this wall.
-	 * @throws IllegalArgumentException
-	 *         If the given positions are not aligned.
-	 */
-	private Collection<Coordinate> getWallPositions(Coordinate start, Coordinate end) {
-		Collection<Coordinate> positions = new ArrayList<Coordinate>();
-		
-		// start adding the coordinates
-		if (start.getX() == end.getX() && start.getY() < end.getY())
-			for (int i = start.getY(); i <= end.getY(); i++)
-				positions.add(new Coordinate(start.getX(), i));
-		else if (start.getX() == end.getX() && start.getY() > end.getY())
-			for (int i = start.getY(); i >= end.getY(); i--)
-				positions.add(new Coordinate(start.getX(), i));
-		else if (start.getY() == end.getY() && start.getX() < end.getX())
-			for (int i = start.getX(); i <= end.getX(); i++)
-				positions.add(new Coordinate(i, start.getY()));
-		else if (start.getY() == end.getY() && start.getX() > end.getX())
-			for (int i = start.getX(); i >= end.getX(); i--)
-				positions.add(new Coordinate(i, start.getY()));
-		else
-			// the positions are not aligned...
-			throw new IllegalArgumentException("The given positions " + start + ", " + end
-					+ " are not aligned!");
-		return positions;
-	}
-	
 	/**
 	 * Returns the maximum length for new wall that is to be placed on the
 	 * board. This method takes into account the maximum percentage of walls on
 	 * the board. This number will be rounded up.
 	 */
 	private int getMaximumLengthOfWall() {
-		int maxLength = 0;
-		int walls = getNumberOfWallParts();
-		// increase maxLength until a maximum value is reached
-		while ((walls + maxLength++) / ((double) width * height) <= MAXIMUM_WALL_NUMBER_PERCENTAGE);
+		int walls = wallPlacer.getNumberOfWallParts();
+		double numberOfSquares = (double) width * height;
+		// find the first length for which the walls would cover more than the
+		// maximum percentage of the grid, starting from a close estimate
+		int maxLength = Math.max((int) (MAXIMUM_WALL_NUMBER_PERCENTAGE * numberOfSquares)
+				- walls + 1, 0);
+		while (maxLength > 0
+				&& (walls + maxLength - 1) / numberOfSquares > MAXIMUM_WALL_NUMBER_PERCENTAGE)
+			maxLength--;
+		while ((walls + maxLength) / numberOfSquares <= MAXIMUM_WALL_NUMBER_PERCENTAGE)
+			maxLength++;
+		maxLength++;
 		
 		int maxLength2 = (int) (MAXIMUM_WALL_LENGHT_PERCENTAGE * Math.max(height, width));
 		
-		int maxLenght3 = this.numberOfWallPartsToPlace - getNumberOfWallParts();
+		int maxLenght3 = this.numberOfWallPartsToPlace - walls;
 		
 		return Math.min(Math.min(maxLength, maxLength2), maxLenght3);
 	}
@@ -0,0 +1,288 @@
+package grid.builder;
+
+import effects.EffectFactory;
+import grid.Grid;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A pool of random grids that are built in the background, before they are
+ * needed. The pool keeps up to a fixed number of ready grids for each
+ * combination of effect factory and dimensions. Taking a grid from the pool
+ * returns a ready grid at once, if there is one, and starts building a new
+ * grid to take its place.
+ * 
+ * Only the dimensions that were used most recently are kept. When a new
+ * combination is taken while the pool already holds the maximum number of
+ * combinations, the grids of the combination that was used least recently are
+ * dropped.
+ */
+public class RandomGridPool {
+	
+	/** The default number of grids that are kept ready for each combination. */
+	public static final int			DEFAULT_DEPTH				= 2;
+	/** The default number of combinations for which grids are kept ready. */
+	public static final int			DEFAULT_MAXIMUM_NUMBER_OF_SIZES	= 4;
+	
+	private final int				depth;
+	private final int				maximumNumberOfSizes;
+	private final ExecutorService	workers;
+	private final Map<Key, Entry>	entries;
+	
+	/**
+	 * Create a new pool with the default depth and number of combinations,
+	 * which builds grids on a single background thread.
+	 */
+	public RandomGridPool() {
+		this(DEFAULT_DEPTH, DEFAULT_MAXIMUM_NUMBER_OF_SIZES, 1);
+	}
+	
+	/**
+	 * Create a new pool.
+	 * 
+	 * @param depth
+	 *        the number of grids that are kept ready for each combination of
+	 *        effect factory and dimensions
+	 * @param maximumNumberOfSizes
+	 *        the number of combinations for which grids are kept ready
+	 * @param numberOfWorkers
+	 *        the number of background threads that build grids
+	 * @throws IllegalArgumentException
+	 *         The depth cannot be negative, and there must be at least one
+	 *         combination and one background thread.
+	 */
+	public RandomGridPool(int depth, int maximumNumberOfSizes, int numberOfWorkers)
+			throws IllegalArgumentException {
+		if (depth < 0)
+			throw new IllegalArgumentException("The depth of the pool cannot be negative");
+		if (maximumNumberOfSizes < 1 || numberOfWorkers < 1)
+			throw new IllegalArgumentException(
+					"The pool needs at least one size and one background thread");
+		
+		this.depth = depth;
+		this.maximumNumberOfSizes = maximumNumberOfSizes;
+		this.workers = Executors.newFixedThreadPool(numberOfWorkers, runnable -> {
+			Thread thread = new Thread(runnable, "random grid pool");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+		this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+	}
+	
+	/**
+	 * Returns a random grid with the specified dimensions, whose items use the
+	 * specified effect factory. If a grid is ready, it is returned at once;
+	 * otherwise the grid is built on the calling thread. In both cases, the
+	 * pool starts building grids in the background until it is full again.
+	 * 
+	 * @param effectFactory
+	 *        the effect factory for the items on the grid
+	 * @param width
+	 *        the width of the grid
+	 * @param height
+	 *        the height of the grid
+	 * @return a new random grid, on which no game was played yet
+	 * @throws IllegalArgumentException
+	 *         The effect factory cannot be null, and the dimensions must be
+	 *         greater than the minima of a {@link RandomGridBuilderDirector}.
+	 */
+	public Grid take(EffectFactory effectFactory, int width, int height)
+			throws IllegalArgumentException {
+		if (effectFactory == null)
+			throw new IllegalArgumentException("The effect factory cannot be null");
+		if (width < RandomGridBuilderDirector.MINIMUM_GRID_WIDTH
+				|| height < RandomGridBuilderDirector.MINIMUM_GRID_HEIGHT)
+			throw new IllegalArgumentException("The dimensions are smaller than the minima");
+		
+		Key key = new Key(effectFactory.getClass(), width, height);
+		Grid grid;
+		synchronized (entries) {
+			Entry entry = getEntry(key, effectFactory);
+			grid = entry.ready.poll();
+			refill(entry);
+		}
+		return grid != null ? grid : build(effectFactory, width, height);
+	}
+	
+	/**
+	 * Start building grids with the specified dimensions in the background, so
+	 * the first game with these dimensions does not have to wait.
+	 * 
+	 * @param effectFactory
+	 *        the effect factory for the items on the grids
+	 * @param width
+	 *        the width of the grids
+	 * @param height
+	 *        the height of the grids
+	 * @throws IllegalArgumentException
+	 *         The effect factory cannot be null, and the dimensions must be
+	 *         greater than the minima of a {@link RandomGridBuilderDirector}.
+	 */
+	public void fill(EffectFactory effectFactory, int width, int height)
+			throws IllegalArgumentException {
+		if (effectFactory == null)
+			throw new IllegalArgumentException("The effect factory cannot be null");
+		if (width < RandomGridBuilderDirector.MINIMUM_GRID_WIDTH
+				|| height < RandomGridBuilderDirector.MINIMUM_GRID_HEIGHT)
+			throw new IllegalArgumentException("The dimensions are smaller than the minima");
+		
+		synchronized (entries) {
+			refill(getEntry(new Key(effectFactory.getClass(), width, height), effectFactory));
+		}
+	}
+	
+	/**
+	 * Returns the number of grids with the specified dimensions that are ready
+	 * to be taken.
+	 * 
+	 * @param effectFactory
+	 *        the effect factory for the items on the grids
+	 * @param width
+	 *        the width of the grids
+	 * @param height
+	 *        the height of the grids
+	 * @return the number of ready grids
+	 */
+	public int getNumberOfReadyGrids(EffectFactory effectFactory, int width, int height) {
+		if (effectFactory == null)
+			return 0;
+		synchronized (entries) {
+			Entry entry = entries.get(new Key(effectFactory.getClass(), width, height));
+			return entry == null ? 0 : entry.ready.size();
+		}
+	}
+	
+	/**
+	 * Stop building grids in the background and drop all the ready grids.
+	 * Grids that are taken afterwards are built on the calling thread.
+	 */
+	public void shutdown() {
+		workers.shutdownNow();
+		synchronized (entries) {
+			for (Entry entry : entries.values())
+				entry.evicted = true;
+			entries.clear();
+		}
+	}
+	
+	/**
+	 * Returns the entry of the specified key, and creates it if needed. The
+	 * entries that were used least recently are evicted to make room for it.
+	 */
+	private Entry getEntry(Key key, EffectFactory effectFactory) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			entry = new Entry(key, effectFactory);
+			entries.put(key, entry);
+			Iterator<Entry> iterator = entries.values().iterator();
+			while (entries.size() > maximumNumberOfSizes) {
+				iterator.next().evicted = true;
+				iterator.remove();
+			}
+		}
+		return entry;
+	}
+	
+	/**
+	 * Start building grids for the specified entry, until the ready grids and
+	 * the grids under construction fill the entry.
+	 */
+	private void refill(Entry entry) {
+		while (entry.ready.size() + entry.building < depth && !workers.isShutdown()) {
+			try {
+				workers.execute(() -> buildInBackground(entry));
+				entry.building++;
+			}
+			catch (RejectedExecutionException e) {
+				return;
+			}
+		}
+	}
+	
+	private void buildInBackground(Entry entry) {
+		Grid grid = null;
+		try {
+			// the dimensions may have been replaced while the build was queued
+			if (!isEvicted(entry))
+				grid = build(entry.effectFactory, entry.key.width, entry.key.height);
+		}
+		catch (RuntimeException e) {
+			// the grid is built again on the calling thread when it is taken,
+			// where the exception can be reported
+		}
+		synchronized (entries) {
+			entry.building--;
+			if (grid != null && !entry.evicted)
+				entry.ready.add(grid);
+		}
+	}
+	
+	private boolean isEvicted(Entry entry) {
+		synchronized (entries) {
+			return entry.evicted;
+		}
+	}
+	
+	private static Grid build(EffectFactory effectFactory, int width, int height) {
+		TronGridBuilder builder = new TronGridBuilder(effectFactory);
+		RandomGridBuilderDirector director = new RandomGridBuilderDirector(builder);
+		director.setWidth(width);
+		director.setHeight(height);
+		director.construct();
+		return builder.getResult();
+	}
+	
+	/**
+	 * The ready grids of one combination of effect factory and dimensions.
+	 */
+	private static class Entry {
+		
+		private final Key			key;
+		private final EffectFactory	effectFactory;
+		private final Queue<Grid>	ready		= new ArrayDeque<Grid>();
+		private int					building;
+		private boolean				evicted;
+		
+		private Entry(Key key, EffectFactory effectFactory) {
+			this.key = key;
+			this.effectFactory = effectFactory;
+		}
+	}
+	
+	private static class Key {
+		
+		private final Class<?>	effectFactory;
+		private final int		width;
+		private final int		height;
+		
+		private Key(Class<?> effectFactory, int width, int height) {
+			this.effectFactory = effectFactory;
+			this.width = width;
+			this.height = height;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(effectFactory, width, height);
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return effectFactory == other.effectFactory && width == other.width
+					&& height == other.height;
+		}
+	}
+}
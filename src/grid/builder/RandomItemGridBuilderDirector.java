@@ -8,15 +8,20 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 /**
  * A RandomItemGridBuilderDirector offers a method to its subclasses to
  * <i>randomly</i> (i.e. as specified by the Tron game constraints) place the
  * items on the grid being constructed.
  * 
+ * All the random decisions of a construction are drawn from a single
+ * {@link SplittableRandom}. When a {@link #setSeed(long) seed} is set, every
+ * construction with the same seed and the same input builds the same grid.
+ * Each independent stage of the construction draws from its own
+ * {@link SplittableRandom#split() split} generator, so the choices made in one
+ * stage do not shift the choices made in the others.
  */
 public abstract class RandomItemGridBuilderDirector extends GridBuilderDirector {
 	
@@ -29,6 +34,8 @@ public abstract class RandomItemGridBuilderDirector extends GridBuilderDirector
 	static final int	NUMBER_OF_CHARGED_IDENTITY_DISKS	= 1;
 	static final int	MAX_CID_SHORTEST_PATH_DISTANCE		= 2;
 	
+	private Long		seed;
+	
 	/**
 	 * Create a new RandomItemGridBuilderDirector which will use the specified
 	 * builder to build the {@link Grid}
@@ -40,6 +47,33 @@ public abstract class RandomItemGridBuilderDirector extends GridBuilderDirector
 		super(builder);
 	}
 	
+	/**
+	 * Set the seed from which the random choices of each construction are
+	 * made. Every construction with the same seed builds the same grid.
+	 * 
+	 * @param seed
+	 *        the seed of the constructions
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Clear the seed of this director, so each construction makes new random
+	 * choices.
+	 */
+	public void clearSeed() {
+		this.seed = null;
+	}
+	
+	/**
+	 * Returns a new random generator for a construction. If a seed is set,
+	 * the generator starts from that seed.
+	 */
+	protected SplittableRandom newRandom() {
+		return seed == null ? new SplittableRandom() : new SplittableRandom(seed);
+	}
+	
 	/**
 	 * Place all the {@link Item items} on the grid constructed. The placement
 	 * and number of the different item-types are specified by the Tron game
@@ -67,48 +101,127 @@ public abstract class RandomItemGridBuilderDirector extends GridBuilderDirector
 	 */
 	protected void placeItemsOnBoard(Map<Integer, Coordinate> startingCoordinates, int maxX,
 			int maxY) {
-		// add starting positions and flags
+		placeItemsOnBoard(startingCoordinates, maxX, maxY, newRandom());
+	}
+	
+	/**
+	 * Place all the {@link Item items} on the grid constructed, drawing all the
+	 * random choices from the specified generator. The light grenades, the
+	 * teleporters, the identity disks and the force field generators each use
+	 * their own split of the generator.
+	 * 
+	 * @param startingCoordinates
+	 *        a set with the starting numbers and corresponding coordinates of
+	 *        the players.
+	 * @param maxX
+	 *        The maximal w coordinate of a square inside the constructed grid
+	 *        (i.e. the maximal width).
+	 * @param maxY
+	 *        The maximal y coordinate of a square inside the constructed grid
+	 *        (i.e. the maximal height).
+	 * @param random
+	 *        the random generator of the construction
+	 * @see #placeItemsOnBoard(Map, int, int)
+	 */
+	protected void placeItemsOnBoard(Map<Integer, Coordinate> startingCoordinates, int maxX,
+			int maxY, SplittableRandom random) {
+		placeStartingPositions(startingCoordinates);
+		placeRandomItems(startingCoordinates, maxX, maxY, random);
+	}
+	
+	/**
+	 * Put the specified player starting positions on the grid constructed,
+	 * each with the flag of its player.
+	 * 
+	 * @param startingCoordinates
+	 *        a set with the starting numbers and corresponding coordinates of
+	 *        the players.
+	 */
+	protected void placeStartingPositions(Map<Integer, Coordinate> startingCoordinates) {
 		for (Integer number : startingCoordinates.keySet()) {
 			builder.addPlayerStartingPosition(startingCoordinates.get(number), number);
 			builder.placeFlag(startingCoordinates.get(number), number);
 		}
-		
+	}
+	
+	/**
+	 * Place the items that are not bound to a starting position at random on
+	 * the grid constructed, drawing all the random choices from the specified
+	 * generator. The starting positions must already be on the grid.
+	 * 
+	 * @param startingCoordinates
+	 *        a set with the starting numbers and corresponding coordinates of
+	 *        the players.
+	 * @param maxX
+	 *        The maximal w coordinate of a square inside the constructed grid
+	 *        (i.e. the maximal width).
+	 * @param maxY
+	 *        The maximal y coordinate of a square inside the constructed grid
+	 *        (i.e. the maximal height).
+	 * @param random
+	 *        the random generator of the construction
+	 * @see #placeItemsOnBoard(Map, int, int, SplittableRandom)
+	 */
+	protected void placeRandomItems(Map<Integer, Coordinate> startingCoordinates, int maxX,
+			int maxY, SplittableRandom random) {
 		List<Coordinate> startCoords = new ArrayList<Coordinate>(startingCoordinates.values());
+		ItemCandidates candidates = getItemCandidates(maxX, maxY);
+		SplittableRandom grenadeRandom = random.split();
+		SplittableRandom teleporterRandom = random.split();
+		SplittableRandom identityDiskRandom = random.split();
+		SplittableRandom generatorRandom = random.split();
 		
-		placeLightGrenades(startCoords, maxX, maxY);
-		Map<Coordinate, Coordinate> teleporters = placeTeleporters(startCoords, maxX, maxY);
-		placeIdentityDisks(startCoords, teleporters, maxX, maxY);
-		placeForceFieldGenerators(startCoords, maxX, maxY);
+		placeLightGrenades(startCoords, candidates.copy(), grenadeRandom);
+		Map<Coordinate, Coordinate> teleporters = placeTeleporters(candidates.copy(),
+				teleporterRandom);
+		placeIdentityDisks(startCoords, teleporters, candidates, identityDiskRandom);
+		placeForceFieldGenerators(candidates.copy(), generatorRandom);
 	}
 	
 	/**
-	 * Returns a random distribution of coordinates where items can be placed on
-	 * the grid. The number of coordinates is a percentage relative to the total
-	 * number of squares on the grid.
+	 * Returns all the squares on which an item can be placed. The squares on
+	 * which an item can be placed do not change while items are placed, so
+	 * they are only computed once.
 	 * 
-	 * @param startingCoordinates
-	 *        The starting coordinates of the player
 	 * @param maxX
 	 *        Upper x bound of the grid
 	 * @param maxY
 	 *        Upper y bound of the grid
+	 */
+	private ItemCandidates getItemCandidates(int maxX, int maxY) {
+		List<Coordinate> squares = new ArrayList<Coordinate>();
+		for (int x = 0; x <= maxX; x++)
+			for (int y = 0; y <= maxY; y++) {
+				Coordinate position = new Coordinate(x, y);
+				if (builder.canPlaceItem(position))
+					squares.add(position);
+			}
+		return new ItemCandidates(maxX + 1, maxY + 1, squares);
+	}
+	
+	/**
+	 * Draws random coordinates where items can be placed on the grid. The
+	 * number of coordinates is a percentage relative to the total number of
+	 * squares on the grid. When there are not enough candidates, all of them
+	 * are used.
+	 * 
+	 * @param candidates
+	 *        The squares on which an item of this kind can still be placed.
+	 *        The coordinates that are drawn are removed from the candidates.
 	 * @param percentage
 	 *        The percentage of the grid that has to be filled
 	 * @param itemLocations
 	 *        The coordinates that already contain an item of this kind, due to
 	 *        some precondition. This list will be filled with new coordinates.
+	 * @param random
+	 *        The random generator to draw the coordinates with
 	 */
-	private void addItemCoordinates(List<Coordinate> startingCoordinates, int maxX, int maxY,
-			double percentage, Set<Coordinate> itemLocations) {
+	private void addItemCoordinates(ItemCandidates candidates, double percentage,
+			Set<Coordinate> itemLocations, SplittableRandom random) {
 		int numberOfItemsToPlace = (int) Math.ceil(builder.getNumberOfSquares() * percentage);
-
-		while (itemLocations.size() < numberOfItemsToPlace) {
-			Coordinate position = Coordinate.random(maxX + 1, maxY + 1);
-			if (builder.canPlaceItem(position) && !itemLocations.contains(position)
-					&& !startingCoordinates.contains(position)) {
-				itemLocations.add(position);
-			}
-		}
+		
+		while (itemLocations.size() < numberOfItemsToPlace && candidates.size() > 0)
+			itemLocations.add(candidates.draw(random));
 	}
 	
 	/**
@@ -117,7 +230,8 @@ public abstract class RandomItemGridBuilderDirector extends GridBuilderDirector
 	 * squares on the grid. There will be a light grenade within a 3x3 square of
 	 * each starting position.
 	 */
-	private void placeLightGrenades(List<Coordinate> startingCoordinates, int maxX, int maxY) {
+	private void placeLightGrenades(List<Coordinate> startingCoordinates,
+			ItemCandidates candidates, SplittableRandom random) {
 		Set<Coordinate> placedLGCoordinates = new HashSet<Coordinate>();
 		
 		/*
@@ -125,20 +239,14 @@ public abstract class RandomItemGridBuilderDirector extends GridBuilderDirector
 		 * position. In general, this is a 5x5 square with the starting
 		 * positions in the middle.
 		 */
-		Random rand = new Random();
 		for (Coordinate startCoord : startingCoordinates) {
-			Coordinate position = null;
-			do {
-				int x = startCoord.getX() - 2 + rand.nextInt(5);
-				int y = startCoord.getY() - 2 + rand.nextInt(5);
-				position = new Coordinate(x, y);
-			} while (!builder.canPlaceItem(position) || placedLGCoordinates.contains(position));
-			placedLGCoordinates.add(position);
+			Coordinate position = candidates.drawNear(startCoord, 2, random);
+			if (position != null)
+				placedLGCoordinates.add(position);
 		}
 		
 		// place all light grenades
-		addItemCoordinates(startingCoordinates, maxX, maxY, PERCENTAGE_OF_GRENADES,
-				placedLGCoordinates);
+		addItemCoordinates(candidates, PERCENTAGE_OF_GRENADES, placedLGCoordinates, random);
 		for (Coordinate coord : placedLGCoordinates) {
 			builder.placeLightGrenade(coord);
 		}
@@ -149,19 +257,17 @@ public abstract class RandomItemGridBuilderDirector extends GridBuilderDirector
 	 * limited by a rounded percentage ({@value #PERCENTAGE_OF_GENERATORS}) of
 	 * the number of squares on the grid.
 	 * 
-	 * @param startingCoordinates
-	 *        the starting coordinates of the players
-	 * @param maxX
-	 *        max x coordinate
-	 * @param maxY
-	 *        max y coordinate
+	 * @param candidates
+	 *        the squares on which a force field generator can be placed
+	 * @param random
+	 *        the random generator to place the generators with
 	 */
-	private void placeForceFieldGenerators(List<Coordinate> startingCoordinates, int maxX, int maxY) {
+	private void placeForceFieldGenerators(ItemCandidates candidates, SplittableRandom random) {
 		Set<Coordinate> placedGeneratorCoordinates = new HashSet<Coordinate>();
 		
 		// place other force field generators
-		addItemCoordinates(startingCoordinates, maxX, maxY, PERCENTAGE_OF_GENERATORS,
-				placedGeneratorCoordinates);
+		addItemCoordinates(candidates, PERCENTAGE_OF_GENERATORS, placedGeneratorCoordinates,
+				random);
 		for (Coordinate coord : placedGeneratorCoordinates)
 			builder.placeForceFieldGenerator(coord);
 	}
@@ -174,12 +280,11 @@ public abstract class RandomItemGridBuilderDirector extends GridBuilderDirector
 	 * @return a map of teleporter locations and their destinations (because
 	 *         they are needed to calculate the shortest path).
 	 */
-	private Map<Coordinate, Coordinate> placeTeleporters(List<Coordinate> startingCoordinates,
-			int maxX, int maxY) {
+	private Map<Coordinate, Coordinate> placeTeleporters(ItemCandidates candidates,
+			SplittableRandom random) {
 		Set<Coordinate> teleporterLocations = new HashSet<Coordinate>();
-		addItemCoordinates(startingCoordinates, maxX, maxY, PERCENTAGE_OF_TELEPORTERS,
-				teleporterLocations);
-		return addTeleportersToGrid(new ArrayList<Coordinate>(teleporterLocations));
+		addItemCoordinates(candidates, PERCENTAGE_OF_TELEPORTERS, teleporterLocations, random);
+		return addTeleportersToGrid(new ArrayList<Coordinate>(teleporterLocations), random);
 	}
 	
 	/**
@@ -188,14 +293,20 @@ public abstract class RandomItemGridBuilderDirector extends GridBuilderDirector
 	 * 
 	 * @return a map of teleporter locations and their destinations
 	 */
-	private Map<Coordinate, Coordinate> addTeleportersToGrid(List<Coordinate> teleporters) {
+	private Map<Coordinate, Coordinate> addTeleportersToGrid(List<Coordinate> teleporters,
+			SplittableRandom random) {
 		Map<Coordinate, Coordinate> result = new HashMap<Coordinate, Coordinate>();
-		for (Coordinate teleporterLocation : teleporters) {
-			Coordinate teleporterDestination;
-			do {
-				teleporterDestination = teleporters.get(new Random().nextInt(teleporters.size()));
-			} while (teleporterDestination.equals(teleporterLocation));
+		if (teleporters.size() < 2)
+			return result;
+		
+		for (int i = 0; i < teleporters.size(); i++) {
+			// draw one of the other teleporters
+			int destination = random.nextInt(teleporters.size() - 1);
+			if (destination >= i)
+				destination++;
 			
+			Coordinate teleporterLocation = teleporters.get(i);
+			Coordinate teleporterDestination = teleporters.get(destination);
 			builder.placeTeleporter(teleporterLocation, teleporterDestination);
 			result.put(teleporterLocation, teleporterDestination);
 		}
@@ -210,56 +321,37 @@ public abstract class RandomItemGridBuilderDirector extends GridBuilderDirector
 	 * {@value #NUMBER_OF_CHARGED_IDENTITY_DISKS} on the grid.
 	 */
 	private void placeIdentityDisks(List<Coordinate> startingCoordinates,
-			Map<Coordinate, Coordinate> teleporters, int maxX, int maxY) {
+			Map<Coordinate, Coordinate> teleporters, ItemCandidates candidates,
+			SplittableRandom random) {
 		// place normal identity disks
 		Set<Coordinate> placedIdentityDisksCoordinates = new HashSet<Coordinate>();
+		ItemCandidates identityDiskCandidates = candidates.copy();
 		
 		/*
 		 * A IDdisk should be within a 7x7 square of each starting position.
 		 */
-		Random rand = new Random();
 		for (Coordinate startCoord : startingCoordinates) {
-			Coordinate position = null;
-			do {
-				int x = startCoord.getX() - 6 + rand.nextInt(13);
-				int y = startCoord.getY() - 6 + rand.nextInt(13);
-				position = new Coordinate(x, y);
-			} while (!builder.canPlaceItem(position)
-					|| placedIdentityDisksCoordinates.contains(position)
-					|| startingCoordinates.contains(position));
-			
-			placedIdentityDisksCoordinates.add(position);
+			Coordinate position = identityDiskCandidates.drawNear(startCoord, 6, random);
+			if (position != null)
+				placedIdentityDisksCoordinates.add(position);
 		}
 		
 		// place other identity disks
-		addItemCoordinates(startingCoordinates, maxX, maxY, PERCENTAGE_OF_IDENTITY_DISKS,
-				placedIdentityDisksCoordinates);
+		addItemCoordinates(identityDiskCandidates, PERCENTAGE_OF_IDENTITY_DISKS,
+				placedIdentityDisksCoordinates, random);
 		for (Coordinate coord : placedIdentityDisksCoordinates)
 			builder.placeUnchargedIdentityDisc(coord);
 		
-		placedCharchedIDdisks(startingCoordinates, teleporters);
+		placedCharchedIDdisks(startingCoordinates, teleporters, candidates, random);
 	}
 	
 	private void placedCharchedIDdisks(List<Coordinate> startingCoordinates,
-			Map<Coordinate, Coordinate> teleporters) {
-		for (int i = 0; i < NUMBER_OF_CHARGED_IDENTITY_DISKS; i++) {
-			Random rand = new Random();
-			List<Coordinate> CIDCoords = getPossibleCIDLocations(startingCoordinates, teleporters);
-			Coordinate CIDCoord = null;
-			
-			while (!CIDCoords.isEmpty()) {
-				CIDCoord = CIDCoords.get(rand.nextInt(CIDCoords.size()));
-				if (builder.canPlaceItem(CIDCoord))
-					break;
-				
-				// We couldn't place it
-				CIDCoords.remove(CIDCoord);
-				CIDCoord = null;
-			}
-			
-			if (CIDCoord != null)
-				builder.placeChargedIdentityDisc(CIDCoord);
-		}
+			Map<Coordinate, Coordinate> teleporters, ItemCandidates candidates,
+			SplittableRandom random) {
+		List<Coordinate> CIDCoords = getPossibleCIDLocations(startingCoordinates, teleporters,
+				candidates);
+		for (int i = 0; i < NUMBER_OF_CHARGED_IDENTITY_DISKS && !CIDCoords.isEmpty(); i++)
+			builder.placeChargedIdentityDisc(CIDCoords.remove(random.nextInt(CIDCoords.size())));
 	}
 	
 	/**
@@ -267,80 +359,32 @@ public abstract class RandomItemGridBuilderDirector extends GridBuilderDirector
 	 * To decide that, it compares the shortest path needed for both players to
 	 * reach the squares.
 	 * 
+	 * @param candidates
+	 *        The squares on which an item can be placed
 	 * @return A list of possible locations for the charged identity disk
 	 */
 	private List<Coordinate> getPossibleCIDLocations(List<Coordinate> startingCoordinates,
-			Map<Coordinate, Coordinate> teleporters) {
-		List<Map<Coordinate, Integer>> distances = new ArrayList<Map<Coordinate, Integer>>();
+			Map<Coordinate, Coordinate> teleporters, ItemCandidates candidates) {
+		DistanceEngine engine = new DistanceEngine(builder, startingCoordinates, teleporters);
+		List<int[]> distances = engine.getDistances(startingCoordinates);
 		List<Coordinate> CIDLocations = new ArrayList<Coordinate>();
 		
-		for (Coordinate coord : startingCoordinates)
-			distances.add(getDistanceOfSquaresStartingAt(coord, teleporters));
-		
-		for (Coordinate coord : distances.get(0).keySet()) {
-			if (!builder.canPlaceItem(coord))
+		for (int index = 0; index < engine.size(); index++) {
+			Coordinate coord = engine.getCoordinate(index);
+			if (!candidates.contains(coord))
 				continue;
 			
-			int min = distances.get(0).get(coord);
-			int max = min;
-			
-			for (int i = 1; i < distances.size(); ++i) {
-				if (!distances.get(i).containsKey(coord)) {
-					max = Integer.MAX_VALUE;
-					break;
-				}
-				if (distances.get(i).get(coord) < min)
-					min = distances.get(i).get(coord);
-				if (distances.get(i).get(coord) > max)
-					max = distances.get(i).get(coord);
+			int min = DistanceEngine.UNREACHABLE;
+			int max = 0;
+			for (int[] distance : distances) {
+				min = Math.min(min, distance[index]);
+				max = Math.max(max, distance[index]);
 			}
 			
-			if ((max - min) <= MAX_CID_SHORTEST_PATH_DISTANCE)
+			if (max != DistanceEngine.UNREACHABLE && (max - min) <= MAX_CID_SHORTEST_PATH_DISTANCE)
 				CIDLocations.add(coord);
 		}
 		
 		return CIDLocations;
 	}
-	
-	/**
-	 * Computes the travel distance to all squares, starting from a specified
-	 * coordinate.
-	 * 
-	 * @param coordinate
-	 *        The starting coordinate
-	 * @return A map of all coordinates on their travel distances
-	 */
-	private Map<Coordinate, Integer> getDistanceOfSquaresStartingAt(Coordinate coordinate,
-			Map<Coordinate, Coordinate> teleporters) {
-		Map<Coordinate, Integer> distances = new HashMap<Coordinate, Integer>();
-		PriorityQueue<EuclideanVector> pq = new PriorityQueue<EuclideanVector>();
-		
-		pq.add(new EuclideanVector(coordinate, 0));
-		
-		while (!pq.isEmpty()) {
-			EuclideanVector current = pq.poll();
-			List<Coordinate> neighbours;
-			
-			if (teleporters.containsKey(current.getCoordinate())) {
-				Coordinate destination = teleporters.get(current.getCoordinate());
-				distances.put(destination, current.getDistance());
-				neighbours = builder.getAllReachableNeighboursOf(destination);
-			}
-			else {
-				neighbours = builder.getAllReachableNeighboursOf(current.getCoordinate());
-			}
-			
-			for (Coordinate neighbour : neighbours) {
-				if (!distances.containsKey(neighbour)
-						|| current.getDistance() + 1 < distances.get(neighbour)) {
-					distances.put(neighbour, current.getDistance() + 1);
-					EuclideanVector neighbourState = new EuclideanVector(neighbour,
-							current.getDistance() + 1);
-					pq.add(neighbourState);
-				}
-			}
-		}
-		
-		return distances;
-	}
 }
@@ -1,5 +1,6 @@
 package grid.builder;
 
+import grid.Coordinate;
 import grid.builder.expressions.CombinedExpression;
 import grid.builder.expressions.EmptyExpression;
 import grid.builder.expressions.Expression;
@@ -10,9 +11,24 @@ import grid.builder.expressions.SquareExpression;
 import grid.builder.expressions.StartingSquareExpression;
 import grid.builder.expressions.TeleporterExpression;
 import grid.builder.expressions.WallExpression;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+import ObjectronExceptions.builderExceptions.GridFileReadException;
 import ObjectronExceptions.builderExceptions.InvalidGridFileException;
 
 /**
@@ -22,13 +38,50 @@ import ObjectronExceptions.builderExceptions.InvalidGridFileException;
  * If the items require an additional argument these can be added with a .
  * separator.
  * 
+ * The file is memory-mapped and read byte by byte, each cell with all its
+ * annotations is tokenized in a single pass. Lines can be ended with
+ * <code>\n</code> or <code>\r\n</code>, the end of the file also ends the last
+ * line.
+ * 
+ * All the rows of a file can also be read at once with {@link #readRows()}.
+ * Large files are then split in chunks of whole lines, which are tokenized in
+ * parallel.
+ * 
+ * A cell can be preceded by a run length, e.g. <code>~40#</code> for forty
+ * walls, or <code>~3 :LG</code> for three squares with a light grenade. The
+ * cell is parsed once and its expression is repeated, the run is not expanded
+ * in the text. A run cannot be longer than {@value #MAXIMUM_RUN_LENGTH}
+ * cells. Grid files may also be compressed with gzip, they are then
+ * decompressed in memory before they are parsed, so their rows can still be
+ * tokenized in parallel.
+ * 
  */
-@SuppressWarnings("javadoc")
 public class TronFileParser {
 	
-	@SuppressWarnings("unused")
-	private final File	file;
-	private Scanner		scanner;
+	/**
+	 * The maximum number of bytes that are tokenized by a single task of
+	 * {@link #readRows()}.
+	 */
+	static final int			PARALLEL_THRESHOLD			= 1 << 16;
+	
+	/** The maximum number of cells in a run. */
+	public static final int		MAXIMUM_RUN_LENGTH			= 1 << 16;
+	
+	/** The maximum number of bytes a compressed grid file can expand to. */
+	static final int			MAXIMUM_DECOMPRESSED_SIZE	= Integer.MAX_VALUE - 8;
+	
+	/** The maximum number of bytes gzip can expand a single byte to. */
+	private static final int	MAXIMUM_COMPRESSION_RATIO	= 1032;
+	
+	/** The first two bytes of a file compressed with gzip. */
+	private static final int	GZIP_MAGIC					= 0x1f8b;
+	
+	private final File			file;
+	private final ByteBuffer	buffer;
+	/** The expression of the current run of cells. */
+	private Expression			run;
+	/** The number of cells left in the current run. */
+	private int					runLength;
 	
 	/**
 	 * Create a new parser to parse a specified
@@ -37,14 +90,98 @@ public class TronFileParser {
 	 *        The file describing a new game board
 	 * @throws FileNotFoundException
 	 *         If the file does not exist
+	 * @throws InvalidGridFileException
+	 *         If the file is compressed, but not a valid gzip file
+	 * @throws GridFileReadException
+	 *         If the file could not be read
 	 */
 	public TronFileParser(File file) throws FileNotFoundException {
 		if (!isValidFile(file))
 			throw new IllegalArgumentException();
 		
 		this.file = file;
-		scanner = new Scanner(file);
-		scanner.useDelimiter("");
+		this.buffer = map(file);
+	}
+	
+	/**
+	 * Create a new parser for the specified bytes of a grid file.
+	 * 
+	 * @param buffer
+	 *        the contents of the grid file, from the position of the buffer up
+	 *        to its limit
+	 */
+	TronFileParser(ByteBuffer buffer) {
+		if (buffer == null)
+			throw new IllegalArgumentException();
+		
+		this.file = null;
+		this.buffer = buffer;
+	}
+	
+	private static ByteBuffer map(File file) throws FileNotFoundException {
+		FileInputStream input = new FileInputStream(file);
+		try {
+			FileChannel channel = input.getChannel();
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() >= 18 && (buffer.getShort(0) & 0xffff) == GZIP_MAGIC)
+				return inflate(file, buffer);
+			return buffer;
+		}
+		catch (ZipException | EOFException e) {
+			throw new InvalidGridFileException("The file is not a valid gzip file: "
+					+ e.getMessage());
+		}
+		catch (IOException e) {
+			throw new GridFileReadException("The file could not be read: " + e.getMessage());
+		}
+		finally {
+			try {
+				input.close();
+			}
+			catch (IOException e) {
+				// the mapping stays valid after closing the file
+			}
+		}
+	}
+	
+	/**
+	 * Decompress a grid file that was compressed with gzip. The buffer is
+	 * sized from the trailer of the mapped file, so the contents are normally
+	 * inflated in a single buffer without copying. The trailer is only a hint,
+	 * since it can be damaged and only holds the size of the last member,
+	 * modulo 2^32: the first buffer is never larger than the file could
+	 * expand to, and it grows as needed.
+	 * 
+	 * @throws InvalidGridFileException
+	 *         The decompressed file would be larger than
+	 *         {@value #MAXIMUM_DECOMPRESSED_SIZE} bytes.
+	 */
+	private static ByteBuffer inflate(File file, ByteBuffer compressed) throws IOException,
+			InvalidGridFileException {
+		long size = compressed.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+				.getInt(compressed.limit() - 4) & 0xffffffffL;
+		long bound = (long) compressed.remaining() * MAXIMUM_COMPRESSION_RATIO;
+		byte[] contents = new byte[(int) Math.max(1 << 12,
+				Math.min(Math.min(size, bound), MAXIMUM_DECOMPRESSED_SIZE))];
+		int length = 0;
+		try (InputStream input = new GZIPInputStream(new FileInputStream(file), 1 << 16)) {
+			int read;
+			while ((read = input.read(contents, length, contents.length - length)) >= 0) {
+				length += read;
+				if (length < contents.length)
+					continue;
+				// only grow the buffer if the contents do not fit exactly
+				int next = input.read();
+				if (next < 0)
+					break;
+				if (length == MAXIMUM_DECOMPRESSED_SIZE)
+					throw new InvalidGridFileException("The decompressed grid file is too large");
+				contents = Arrays.copyOf(contents,
+						(int) Math.min(2L * length, MAXIMUM_DECOMPRESSED_SIZE));
+				contents[length++] = (byte) next;
+			}
+		}
+		return ByteBuffer.wrap(contents, 0, length);
 	}
 	
 	/**
@@ -61,49 +198,282 @@ public class TronFileParser {
 			return true;
 	}
 	
-	public Expression nextExpression() {
-		String statement = scanner.next("([ *#\\d])(?::(\\S+?(?=[ *#\\d])))?");
-		Expression expression = null;
-		if (statement == null || statement.length() <= 0)
-			return expression;
+	/**
+	 * Returns the file that is parsed by this parser, or null if the parser
+	 * reads from a buffer.
+	 * 
+	 * @return the parsed file
+	 */
+	public File getFile() {
+		return file;
+	}
+	
+	/**
+	 * Read the next cell of the grid file, together with all its annotations.
+	 * 
+	 * @return an expression for the cell
+	 * @throws InvalidGridFileException
+	 *         The cell or one of its annotations is not valid.
+	 */
+	public Expression nextExpression() throws InvalidGridFileException {
+		if (runLength > 0) {
+			runLength--;
+			return run;
+		}
+		if (!buffer.hasRemaining())
+			throw new InvalidGridFileException("Unexpected end of the grid file");
 		
-		expression = getSquareExpression(statement.charAt(0));
+		int length = 1;
+		if (peek() == '~') {
+			buffer.get();
+			length = nextNumber("A run must start with its length");
+			if (length < 1)
+				throw new InvalidGridFileException("A run must have a length of at least 1");
+			if (length > MAXIMUM_RUN_LENGTH)
+				throw new InvalidGridFileException("A run cannot be longer than "
+						+ MAXIMUM_RUN_LENGTH + " cells");
+			if (!buffer.hasRemaining())
+				throw new InvalidGridFileException("Unexpected end of the grid file");
+		}
 		
-		if (statement.length() == 1)
-			return expression;
-		else
-			return new CombinedExpression(expression, getItemExpression(statement));
+		Expression expression = getSquareExpression((char) buffer.get());
+		while (buffer.hasRemaining() && peek() == ':') {
+			buffer.get();
+			expression = new CombinedExpression(expression, nextItemExpression());
+		}
+		
+		if (length > 1) {
+			run = expression;
+			runLength = length - 1;
+		}
+		return expression;
 	}
 	
+	/**
+	 * Returns whether the parser is at the end of a line (or at the end of the
+	 * file).
+	 * 
+	 * @return true if the next token is the end of a line, else false
+	 */
 	public boolean isAtEndOfLine() {
-		return scanner.hasNext("\\n");
+		if (runLength > 0)
+			return false;
+		if (!buffer.hasRemaining())
+			return true;
+		byte next = peek();
+		if (next == '\n')
+			return true;
+		return next == '\r' && buffer.remaining() > 1
+				&& buffer.get(buffer.position() + 1) == '\n';
 	}
 	
+	/**
+	 * Returns whether the next token is a valid cell.
+	 * 
+	 * @return true if the next token is a valid cell, else false
+	 */
 	public boolean hasNextValidStatement() {
-		return scanner.hasNext("([ \\d*#])(?::(\\S+?(?=[ \\d*#])))?");
+		if (runLength > 0)
+			return true;
+		if (!buffer.hasRemaining())
+			return false;
+		byte next = peek();
+		return next == ' ' || next == '#' || next == '*' || next == '~'
+				|| (next >= '0' && next <= '9');
 	}
 	
-	/* The following could be place in a separate factory */
+	/**
+	 * Read all the remaining rows of the grid file. The rows are read just as
+	 * if {@link #nextExpression()} was called for each cell of a row, followed
+	 * by {@link #readEndOfLine()}, as long as there is a
+	 * {@link #hasNextValidStatement() next valid statement}.
+	 * 
+	 * Files larger than {@value #PARALLEL_THRESHOLD} bytes are split in chunks
+	 * of whole lines, which are tokenized in parallel on the common fork/join
+	 * pool.
+	 * 
+	 * @return the expressions of each row, in the order of the file
+	 * @throws InvalidGridFileException
+	 *         One of the rows contains an invalid cell.
+	 * @throws IllegalStateException
+	 *         The parser is in the middle of a run.
+	 */
+	public List<Expression[]> readRows() throws InvalidGridFileException,
+			IllegalStateException {
+		if (runLength > 0)
+			throw new IllegalStateException("The rows cannot be read in the middle of a run");
+		List<Rows> chunks;
+		if (buffer.remaining() <= PARALLEL_THRESHOLD)
+			chunks = Collections.singletonList(readRows(buffer.position(),
+					buffer.limit()));
+		else
+			chunks = ForkJoinPool.commonPool().invoke(
+					new ReadRowsTask(buffer.position(), buffer.limit()));
+		
+		List<Expression[]> result = new ArrayList<Expression[]>();
+		for (Rows chunk : chunks) {
+			if (chunk.error != null)
+				throw chunk.error;
+			result.addAll(chunk.rows);
+			buffer.position(chunk.end);
+			// reading stops at the first line that does not start with a cell
+			if (chunk.end != chunk.limit)
+				break;
+		}
+		return result;
+	}
 	
-	private Expression getItemExpression(String statement) {
-		for (String item : statement.split(":")) {
-			switch (item.split(".")[0]) {
-				case "LG":
-					return new LightGrenadeExpression();
-				case "CID":
-					return new IdentityDiskExpression(true);
-				case "UID":
-					return new IdentityDiskExpression(false);
-				case "T":
-					return new TeleporterExpression(item);
-				case "FFG":
-					return new ForceFieldGeneratorExpression();
-				default:
-					break;
+	/**
+	 * Read the rows between the specified positions in the buffer.
+	 */
+	private Rows readRows(int from, int to) {
+		ByteBuffer chunk = buffer.duplicate();
+		chunk.limit(to);
+		chunk.position(from);
+		TronFileParser parser = new TronFileParser(chunk);
+		
+		Rows rows = new Rows(to);
+		try {
+			while (parser.hasNextValidStatement()) {
+				List<Expression> row = new ArrayList<Expression>();
+				while (!parser.isAtEndOfLine()) {
+					if (!parser.hasNextValidStatement())
+						throw new InvalidGridFileException("invalid grid symbol");
+					row.add(parser.nextExpression());
+				}
+				parser.readEndOfLine();
+				rows.rows.add(row.toArray(new Expression[row.size()]));
+			}
+		}
+		catch (InvalidGridFileException e) {
+			rows.error = e;
+		}
+		rows.end = chunk.position();
+		return rows;
+	}
+	
+	/**
+	 * Returns the position after the first line ending at or after the
+	 * specified position, or the specified limit if there is none.
+	 */
+	private int nextLine(int position, int limit) {
+		while (position < limit)
+			if (buffer.get(position++) == '\n')
+				return position;
+		return limit;
+	}
+	
+	/**
+	 * The rows read from a chunk of the buffer.
+	 */
+	private static class Rows {
+		
+		private final List<Expression[]>	rows	= new ArrayList<Expression[]>();
+		private final int					limit;
+		private int							end;
+		private InvalidGridFileException	error;
+		
+		Rows(int limit) {
+			this.limit = limit;
+		}
+	}
+	
+	/**
+	 * Reads the rows between two positions of the buffer, by splitting them in
+	 * two halves of whole lines until they are small enough.
+	 */
+	private class ReadRowsTask extends RecursiveTask<List<Rows>> {
+		
+		private static final long	serialVersionUID	= 1L;
+		
+		private final int			from;
+		private final int			to;
+		
+		ReadRowsTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected List<Rows> compute() {
+			int split = nextLine(from + (to - from) / 2, to);
+			if (to - from <= PARALLEL_THRESHOLD || split == to) {
+				List<Rows> result = new ArrayList<Rows>(1);
+				result.add(readRows(from, to));
+				return result;
 			}
+			
+			ReadRowsTask second = new ReadRowsTask(split, to);
+			second.fork();
+			List<Rows> result = new ReadRowsTask(from, split).compute();
+			result.addAll(second.join());
+			return result;
+		}
+	}
+	
+	private byte peek() {
+		return buffer.get(buffer.position());
+	}
+	
+	/**
+	 * Read the annotation of an item, the leading <code>:</code> is already
+	 * read.
+	 */
+	private Expression nextItemExpression() {
+		int start = buffer.position();
+		while (buffer.hasRemaining() && Character.isLetter(peek()))
+			buffer.get();
+		String name = asString(start, buffer.position());
+		
+		List<Integer> arguments = new ArrayList<Integer>(2);
+		while (buffer.hasRemaining() && peek() == '.') {
+			buffer.get();
+			arguments.add(nextNumber("An item argument must be a number"));
 		}
 		
-		return null;
+		return getItemExpression(name, arguments);
+	}
+	
+	private int nextNumber(String error) {
+		int start = buffer.position();
+		long number = 0;
+		while (buffer.hasRemaining() && peek() >= '0' && peek() <= '9') {
+			number = number * 10 + (buffer.get() - '0');
+			if (number > Integer.MAX_VALUE)
+				throw new InvalidGridFileException("The number is too large");
+		}
+		if (start == buffer.position())
+			throw new InvalidGridFileException(error);
+		return (int) number;
+	}
+	
+	private String asString(int start, int end) {
+		StringBuilder string = new StringBuilder(end - start);
+		for (int i = start; i < end; i++)
+			string.append((char) buffer.get(i));
+		return string.toString();
+	}
+	
+	/* The following could be place in a separate factory */
+	
+	private Expression getItemExpression(String item, List<Integer> arguments) {
+		switch (item) {
+			case "LG":
+				return new LightGrenadeExpression();
+			case "CID":
+				return new IdentityDiskExpression(true);
+			case "UID":
+				return new IdentityDiskExpression(false);
+			case "T":
+				if (arguments.size() != 2)
+					throw new InvalidGridFileException("A teleporter needs a destination");
+				return new TeleporterExpression(new Coordinate(arguments.get(0),
+						arguments.get(1)));
+			case "FFG":
+				return new ForceFieldGeneratorExpression();
+			default:
+				throw new InvalidGridFileException("The item " + item + " was not recognized!");
+		}
 	}
 	
 	private Expression getSquareExpression(char square) {
@@ -122,7 +492,20 @@ public class TronFileParser {
 		}
 	}
 	
-	public void readEndOfLine() {
-		scanner.next("\\n");
+	/**
+	 * Read the end of the current line. Nothing happens at the end of the
+	 * file.
+	 * 
+	 * @throws InvalidGridFileException
+	 *         The parser is not at the end of a line.
+	 */
+	public void readEndOfLine() throws InvalidGridFileException {
+		if (!isAtEndOfLine())
+			throw new InvalidGridFileException("Expected the end of a line");
+		if (!buffer.hasRemaining())
+			return;
+		if (peek() == '\r')
+			buffer.get();
+		buffer.get();
 	}
 }
@@ -2,6 +2,7 @@ package grid.builder;
 
 import effects.EffectFactory;
 import grid.Coordinate;
+import grid.CoordinateCache;
 import grid.Grid;
 import item.Flag;
 import item.IItem;
@@ -35,6 +36,9 @@ public class TronGridBuilder implements GridBuilder {
 	private Map<Coordinate, SquareContainer>	grid;
 	private HashMap<Coordinate, Teleporter>		teleporters;
 	private int									numberOfSquares;
+	private int									width;
+	private int									height;
+	private CoordinateCache						coordinates;
 	private Map<Integer, Coordinate>			startingPositions;
 	private EffectFactory						effectFactory;
 	private boolean								powerfailuresDisabled = false;
@@ -70,11 +74,66 @@ public class TronGridBuilder implements GridBuilder {
 		this.createNewEmptyGrid();
 	}
 	
+	/**
+	 * Create a new builder that continues the construction of the specified
+	 * grid, e.g. to place more items on a {@link Grid#copy() copy} of a grid.
+	 * The builder works on the squares of the grid itself, so the grid should
+	 * no longer be used once the builder has made its {@link #getResult()
+	 * result}. The starting positions of the grid keep the numbers they were
+	 * added with, e.g. the numbers
+	 * {@link FileGridBuilderDirector#getStartingCoordinates() in the grid
+	 * file}.
+	 * 
+	 * @param effectFactory
+	 *        The effect factory that the items will get.
+	 * @param PFDisabled
+	 *        A boolean to decide if powerfailures will be disabled.
+	 * @param grid
+	 *        the grid to continue
+	 * @param startingCoordinates
+	 *        the coordinates of the starting positions of the grid, by their
+	 *        number
+	 * @throws IllegalArgumentException
+	 *         The grid and starting coordinates cannot be null, and the
+	 *         starting coordinates must be the starting positions of the grid.
+	 */
+	public TronGridBuilder(EffectFactory effectFactory, boolean PFDisabled, Grid grid,
+			Map<Integer, Coordinate> startingCoordinates) throws IllegalArgumentException {
+		this(effectFactory, PFDisabled);
+		if (grid == null || startingCoordinates == null)
+			throw new IllegalArgumentException(
+					"the grid and its starting coordinates cannot be null");
+		if (startingCoordinates.size() != grid.getAllStartingPositions().size())
+			throw new IllegalArgumentException(
+					"the grid has another number of starting positions");
+		
+		for (Coordinate coordinate : grid.getRowMajorCoordinates()) {
+			SquareContainer square = grid.getSquareAt(coordinate);
+			this.grid.put(coordinate, square);
+			if (!square.hasProperty(PropertyType.WALL))
+				numberOfSquares++;
+			for (IItem item : square.getAllItems())
+				if (item instanceof Teleporter)
+					teleporters.put(coordinate, (Teleporter) item);
+			updateDimensions(coordinate);
+		}
+		for (Map.Entry<Integer, Coordinate> entry : startingCoordinates.entrySet()) {
+			SquareContainer square = this.grid.get(entry.getValue());
+			if (square == null || !square.hasProperty(PropertyType.STARTING_POSITION))
+				throw new IllegalArgumentException(entry.getValue()
+						+ " is not a starting position of the grid");
+			startingPositions.put(entry.getKey(), entry.getValue());
+		}
+	}
+	
 	@Override
 	public void createNewEmptyGrid() {
 		this.grid = new HashMap<Coordinate, SquareContainer>();
+		this.coordinates = new CoordinateCache();
 		this.teleporters = new HashMap<Coordinate, Teleporter>();
 		this.numberOfSquares = 0;
+		this.width = 0;
+		this.height = 0;
 		this.startingPositions = new HashMap<Integer, Coordinate>();
 	}
 	
@@ -83,12 +142,10 @@ public class TronGridBuilder implements GridBuilder {
 		if (coordinate == null)
 			throw new IllegalArgumentException("The specified coordinate cannot be null");
 		
-		Map<Direction, SquareContainer> neighbours = getNeigboursFor(coordinate);
-		SquareContainer square = new SquareContainer(neighbours, new NormalSquare());
-		if (!powerfailuresDisabled)
-			square.addPropertyCreator(new PowerFailureCreator(effectFactory));
+		SquareContainer square = createSquare(getNeigboursFor(coordinate));
 		if (grid.put(coordinate, square) == null)
 			numberOfSquares++;
+		updateDimensions(coordinate);
 	}
 	
 	@Override
@@ -96,11 +153,69 @@ public class TronGridBuilder implements GridBuilder {
 		if (coordinate == null)
 			throw new IllegalArgumentException("The specified coordinate cannot be null");
 		
-		Map<Direction, SquareContainer> neighbours = getNeigboursFor(coordinate);
-		SquareContainer wall = new SquareContainer(neighbours, new WallPart());
-		wall.addPropertyCreator(new PowerFailureCreator(effectFactory));
+		SquareContainer wall = createWall(getNeigboursFor(coordinate));
 		if (grid.put(coordinate, wall) != null)
 			numberOfSquares--;
+		updateDimensions(coordinate);
+	}
+	
+	/**
+	 * Add all the cells of an area at once. On an empty grid, the squares are
+	 * created in a first pass over the cells and are linked to their
+	 * neighbours in a second pass, without looking up any neighbour in the
+	 * grid. Otherwise the cells are added one by one.
+	 */
+	@Override
+	public void addCells(CellKind[] cells, int width, int height)
+			throws IllegalArgumentException {
+		if (!grid.isEmpty()) {
+			GridBuilder.super.addCells(cells, width, height);
+			return;
+		}
+		if (cells == null || width < 0 || height < 0 || cells.length != width * height)
+			throw new IllegalArgumentException("The cells do not match the dimensions of the area");
+		
+		this.grid = new HashMap<Coordinate, SquareContainer>(cells.length * 4 / 3 + 1);
+		SquareContainer[] squares = new SquareContainer[cells.length];
+		Map<Direction, SquareContainer> noNeighbours = Collections.emptyMap();
+		for (int index = 0; index < cells.length; index++) {
+			if (cells[index] == CellKind.SQUARE) {
+				squares[index] = createSquare(noNeighbours);
+				numberOfSquares++;
+			}
+			else if (cells[index] == CellKind.WALL)
+				squares[index] = createWall(noNeighbours);
+			else
+				continue;
+			
+			Coordinate coordinate = coordinates.get(index % width, index / width);
+			grid.put(coordinate, squares[index]);
+			updateDimensions(coordinate);
+		}
+		
+		SquareContainer.linkNeighbours(squares, width, height);
+	}
+	
+	private SquareContainer createSquare(Map<Direction, SquareContainer> neighbours) {
+		SquareContainer square = new SquareContainer(neighbours, new NormalSquare());
+		if (!powerfailuresDisabled)
+			square.addPropertyCreator(new PowerFailureCreator(effectFactory));
+		return square;
+	}
+	
+	private SquareContainer createWall(Map<Direction, SquareContainer> neighbours) {
+		SquareContainer wall = new SquareContainer(neighbours, new WallPart());
+		wall.addPropertyCreator(new PowerFailureCreator(effectFactory));
+		return wall;
+	}
+	
+	/**
+	 * Grow the dimensions of the grid under construction such that they
+	 * include the specified coordinate.
+	 */
+	private void updateDimensions(Coordinate coordinate) {
+		width = Math.max(width, coordinate.getX() + 1);
+		height = Math.max(height, coordinate.getY() + 1);
 	}
 	
 	@Override
@@ -244,28 +359,39 @@ public class TronGridBuilder implements GridBuilder {
 	private Map<Direction, SquareContainer> getNeigboursFor(Coordinate coordinate) {
 		Map<Direction, SquareContainer> neighbours = new HashMap<Direction, SquareContainer>();
 		
-		for (Direction direction : Direction.values())
-			if (grid.containsKey(coordinate.getCoordinateInDirection(direction)))
-				neighbours.put(direction, grid.get(coordinate.getCoordinateInDirection(direction)));
+		for (Direction direction : Direction.values()) {
+			SquareContainer neighbour = grid.get(getCoordinateInDirection(coordinate, direction));
+			if (neighbour != null)
+				neighbours.put(direction, neighbour);
+		}
 		
 		return neighbours;
 	}
 	
 	@Override
 	public List<Coordinate> getAllReachableNeighboursOf(Coordinate coordinate) {
-		List<Coordinate> neighbours = coordinate.getAllNeighbours();
+		List<Coordinate> neighbours = new ArrayList<Coordinate>(Direction.values().length);
 		
-		for (int i = neighbours.size() - 1; i >= 0; i--) {
-			// Grid doesn't contain this neighbour or a player can't be added to
-			// this square
-			if (!grid.containsKey(neighbours.get(i)))
-				neighbours.remove(i);
-			else if (!grid.get(neighbours.get(i)).canAddPlayer())
-				neighbours.remove(i);
+		for (Direction direction : Direction.values()) {
+			// skip neighbours that are not in the grid or on which a player
+			// can't be added
+			Coordinate neighbour = getCoordinateInDirection(coordinate, direction);
+			SquareContainer square = grid.get(neighbour);
+			if (square != null && square.canAddPlayer())
+				neighbours.add(neighbour);
 		}
 		return neighbours;
 	}
 	
+	/**
+	 * Returns the interned neighbour of a coordinate in the specified
+	 * direction.
+	 */
+	private Coordinate getCoordinateInDirection(Coordinate coordinate, Direction direction) {
+		return coordinates.get(Coordinate.getXInDirection(coordinate.getX(), direction),
+				Coordinate.getYInDirection(coordinate.getY(), direction));
+	}
+	
 	@Override
 	public int getNumberOfSquares() {
 		return numberOfSquares;
@@ -284,7 +410,7 @@ public class TronGridBuilder implements GridBuilder {
 				throw new GridBuildException("Some teleporters have no destinations!");
 		}
 		
-		return new Grid(grid, this.getAllStartingPositions());
+		return new Grid(grid, this.getAllStartingPositions(), width, height);
 	}
 	
 	/**
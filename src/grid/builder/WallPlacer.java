@@ -0,0 +1,155 @@
+package grid.builder;
+
+import grid.Coordinate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import square.Wall;
+
+/**
+ * Keeps track of the walls placed on a random grid, and decides whether a new
+ * wall can be placed. A wall cannot leave the grid, cannot cover a starting
+ * position and cannot {@link Wall#touchesWall(Wall) touch} another wall.
+ * 
+ * The placer keeps a bitmap of all the positions a new wall cannot cover: the
+ * starting positions, the parts of the walls and the positions around them.
+ * The bitmap is stored both row by row and column by column, so the positions
+ * of any wall form one range of bits. Checking whether a wall can be placed
+ * therefore takes a single scan of that range, no matter how many walls were
+ * already placed.
+ */
+class WallPlacer {
+	
+	private final int		width;
+	private final int		height;
+	private final BitSet	blockedByRow;
+	private final BitSet	blockedByColumn;
+	private int				numberOfWallParts;
+	
+	/**
+	 * Create a new wall placer for an empty grid.
+	 * 
+	 * @param width
+	 *        the width of the grid
+	 * @param height
+	 *        the height of the grid
+	 * @param startingPositions
+	 *        the starting positions on the grid, which cannot be covered by
+	 *        walls
+	 */
+	WallPlacer(int width, int height, Collection<Coordinate> startingPositions) {
+		this.width = width;
+		this.height = height;
+		this.blockedByRow = new BitSet(width * height);
+		this.blockedByColumn = new BitSet(width * height);
+		for (Coordinate position : startingPositions)
+			if (isInGrid(position.getX(), position.getY()))
+				block(position.getX(), position.getX(), position.getY(), position.getY());
+	}
+	
+	/**
+	 * Returns the number of wall parts placed so far.
+	 */
+	int getNumberOfWallParts() {
+		return numberOfWallParts;
+	}
+	
+	private boolean isInGrid(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
+	}
+	
+	private void block(int fromX, int toX, int fromY, int toY) {
+		for (int y = fromY; y <= toY; y++)
+			blockedByRow.set(y * width + fromX, y * width + toX + 1);
+		for (int x = fromX; x <= toX; x++)
+			blockedByColumn.set(x * height + fromY, x * height + toY + 1);
+	}
+	
+	/**
+	 * Returns whether a wall, specified by its start and end position, can be
+	 * placed on the grid.
+	 * 
+	 * @param start
+	 *        the start position of the wall
+	 * @param end
+	 *        the end position of the wall
+	 * @return true if the wall can be placed, else false
+	 * @throws IllegalArgumentException
+	 *         The positions do not form a {@link Wall}.
+	 */
+	boolean canPlaceWall(Coordinate start, Coordinate end) throws IllegalArgumentException {
+		Wall wall = new Wall(start, end);
+		if (!isInGrid(start.getX(), start.getY()) || !isInGrid(end.getX(), end.getY()))
+			return false;
+		
+		int x = wall.getStart().getX(), y = wall.getStart().getY();
+		if (y == wall.getEnd().getY()) {
+			int next = blockedByRow.nextSetBit(y * width + x);
+			return next < 0 || next > y * width + wall.getEnd().getX();
+		}
+		int next = blockedByColumn.nextSetBit(x * height + y);
+		return next < 0 || next > x * height + wall.getEnd().getY();
+	}
+	
+	/**
+	 * Place a wall on the grid.
+	 * 
+	 * @param start
+	 *        the start position of the wall
+	 * @param end
+	 *        the end position of the wall
+	 * @return the positions of the parts of the wall
+	 * @throws IllegalArgumentException
+	 *         The wall cannot be placed on the grid.
+	 */
+	List<Coordinate> placeWall(Coordinate start, Coordinate end) throws IllegalArgumentException {
+		if (!canPlaceWall(start, end))
+			throw new IllegalArgumentException("the wall cannot be placed on the board");
+		
+		// block the positions of the wall and all the positions around it
+		Wall wall = new Wall(start, end);
+		block(Math.max(wall.getStart().getX() - 1, 0), Math.min(wall.getEnd().getX() + 1,
+				width - 1), Math.max(wall.getStart().getY() - 1, 0), Math.min(wall.getEnd()
+				.getY() + 1, height - 1));
+		
+		List<Coordinate> positions = getWallPositions(start, end);
+		numberOfWallParts += positions.size();
+		return positions;
+	}
+	
+	/**
+	 * Return all the coordinates of a wall that starts and ends at two certain
+	 * points.
+	 * 
+	 * @param start
+	 *        The start position of the wall.
+	 * @param end
+	 *        The end position of the wall.
+	 * @return A collection of coordinates of this wall.
+	 * @throws IllegalArgumentException
+	 *         If the given positions are not aligned.
+	 */
+	private static List<Coordinate> getWallPositions(Coordinate start, Coordinate end) {
+		List<Coordinate> positions = new ArrayList<Coordinate>();
+		
+		// start adding the coordinates
+		if (start.getX() == end.getX() && start.getY() < end.getY())
+			for (int i = start.getY(); i <= end.getY(); i++)
+				positions.add(new Coordinate(start.getX(), i));
+		else if (start.getX() == end.getX() && start.getY() > end.getY())
+			for (int i = start.getY(); i >= end.getY(); i--)
+				positions.add(new Coordinate(start.getX(), i));
+		else if (start.getY() == end.getY() && start.getX() < end.getX())
+			for (int i = start.getX(); i <= end.getX(); i++)
+				positions.add(new Coordinate(i, start.getY()));
+		else if (start.getY() == end.getY() && start.getX() > end.getX())
+			for (int i = start.getX(); i >= end.getX(); i--)
+				positions.add(new Coordinate(i, start.getY()));
+		else
+			// the positions are not aligned...
+			throw new IllegalArgumentException("The given positions " + start + ", " + end
+					+ " are not aligned!");
+		return positions;
+	}
+}
@@ -21,6 +21,20 @@ public class CombinedExpression implements Expression {
 		itemExpression.build(builder, coordinate);
 	}
 	
+	/**
+	 * @return the expression the item is combined with
+	 */
+	public Expression getExpression() {
+		return expression;
+	}
+	
+	/**
+	 * @return the expression of the item
+	 */
+	public Expression getItemExpression() {
+		return itemExpression;
+	}
+	
 	
 	
 }
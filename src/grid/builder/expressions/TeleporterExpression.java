@@ -9,12 +9,16 @@ public class TeleporterExpression implements Expression {
 	private Coordinate	destination;
 
 	public TeleporterExpression(String expression) {
-		String[] agruments = expression.split(".");
-		int x = Character.getNumericValue(agruments[1].charAt(0));
-		int y = Character.getNumericValue(agruments[2].charAt(0));
+		String[] agruments = expression.split("\\.");
+		int x = Integer.parseInt(agruments[1]);
+		int y = Integer.parseInt(agruments[2]);
 		
 		setDestination(new Coordinate(x, y));
 	}
+	
+	public TeleporterExpression(Coordinate destination) {
+		setDestination(destination);
+	}
 
 	@Override
 	public void build(GridBuilder builder, Coordinate coordinate) {
@@ -2,6 +2,7 @@ package gui;
 
 import game.Game;
 import game.GameEvent;
+import game.GameRunner;
 import grid.Coordinate;
 import grid.GuiSquare;
 import item.Flag;
@@ -16,6 +17,8 @@ import item.lightgrenade.LightGrenadeState;
 import item.teleporter.Teleporter;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.FileNotFoundException;
 import java.util.List;
 import java.util.Observable;
@@ -23,6 +26,7 @@ import java.util.Observer;
 import java.util.Set;
 import java.util.Vector;
 import javax.swing.JOptionPane;
+import javax.swing.Timer;
 import player.Player;
 import square.Direction;
 import ObjectronExceptions.IllegalMoveException;
@@ -64,6 +68,12 @@ public class GUI implements Runnable, Observer, ArgumentsHandler {
 	 */
 	private final static int		SQUARE_SIZE			= 40;
 	
+	/**
+	 * The number of milliseconds after the last change to the grid dimensions
+	 * before grids with the new dimensions are prepared.
+	 */
+	private final static int		PREPARE_GRIDS_DELAY	= 300;
+	
 	/**
 	 * Controllers for interacting with the game engine.
 	 */
@@ -441,8 +451,33 @@ public class GUI implements Runnable, Observer, ArgumentsHandler {
 		// Create the width and height config text fields
 		gridWidthTextField = gui.createTextField(35, 40, 25, 20);
 		gridHeightTextField = gui.createTextField(75, 40, 25, 20);
-		gridWidthTextField.setText("12");
-		gridHeightTextField.setText("12");
+		gridWidthTextField.setText(String.valueOf(GameRunner.DEFAULT_GRID_WIDTH));
+		gridHeightTextField.setText(String.valueOf(GameRunner.DEFAULT_GRID_HEIGHT));
+		
+		// Start building grids in the background once the typing of new
+		// dimensions pauses, so the new game does not wait for its grid
+		final Timer prepareGridsTimer = new Timer(PREPARE_GRIDS_DELAY, new ActionListener() {
+			
+			public void actionPerformed(ActionEvent event) {
+				try {
+					newGameController.prepareRandomGames(
+							Integer.parseInt(gridWidthTextField.getText()),
+							Integer.parseInt(gridHeightTextField.getText()));
+				}
+				catch (NumberFormatException e) {
+					// the dimensions are not typed completely yet
+				}
+			}
+		});
+		prepareGridsTimer.setRepeats(false);
+		Runnable dimensionsChanged = new Runnable() {
+			
+			public void run() {
+				prepareGridsTimer.restart();
+			}
+		};
+		gridWidthTextField.setChangeHandler(dimensionsChanged);
+		gridHeightTextField.setChangeHandler(dimensionsChanged);
 		
 		// create the grid from file text field
 		gridFileTextField = gui.createTextField(11, 120, 119, 20);
@@ -1,6 +1,8 @@
 package gui;
 
 import javax.swing.JTextField;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 @SuppressWarnings("javadoc")
 public final class TextField {
@@ -27,4 +29,25 @@ public final class TextField {
 	public void disable() {
 		this.textfield.setEnabled(false);
 	}
+	
+	/**
+	 * Run the specified handler on the event dispatch thread each time the
+	 * text of this field changes.
+	 */
+	public void setChangeHandler(final Runnable changeHandler) {
+		this.textfield.getDocument().addDocumentListener(new DocumentListener() {
+			
+			public void insertUpdate(DocumentEvent e) {
+				changeHandler.run();
+			}
+			
+			public void removeUpdate(DocumentEvent e) {
+				changeHandler.run();
+			}
+			
+			public void changedUpdate(DocumentEvent e) {
+				changeHandler.run();
+			}
+		});
+	}
 }
@@ -58,4 +58,18 @@ public class Flag extends Item {
 		return this.ownerID;
 	}
 	
+	/**
+	 * Returns a new flag with the specified square as its home. A flag can
+	 * only be copied while it lies on its home square.
+	 * 
+	 * @throws IllegalStateException
+	 *         This flag does not lie on its home square.
+	 */
+	@Override
+	public Flag copy(SquareContainer square) throws IllegalStateException {
+		if (!home.getAllItems().contains(this))
+			throw new IllegalStateException("A flag can only be copied on its home square");
+		return new Flag(square, ownerID);
+	}
+	
 }
@@ -58,4 +58,17 @@ public interface IItem extends TronObject {
 	 *         {@link #use(SquareContainer, UseArguments)} method
 	 */
 	public UseArguments<?> getUseArguments();
+	
+	/**
+	 * Returns a new item in the same state as this item, for a copy of the
+	 * grid. The new item gets a new ID and is not placed on any square yet.
+	 * References to other items (e.g. the destination of a teleporter) are not
+	 * copied and have to be restored by the caller.
+	 * 
+	 * @param square
+	 *        the copy of the square this item lies on, on which the new item
+	 *        will be placed
+	 * @return a copy of this item
+	 */
+	public IItem copy(SquareContainer square);
 }
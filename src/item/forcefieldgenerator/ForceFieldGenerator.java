@@ -99,4 +99,9 @@ public class ForceFieldGenerator extends Item {
 	public String toString() {
 		return "ForceFieldGenerator." + getId();
 	}
+	
+	@Override
+	public ForceFieldGenerator copy(SquareContainer square) {
+		return new ForceFieldGenerator();
+	}
 }
@@ -1,5 +1,6 @@
 package item.identitydisk;
 
+import square.SquareContainer;
 
 /**
  * Charged Identity disk can be launched by players on the grid. The disk will
@@ -16,6 +17,11 @@ public class ChargedIdentityDisk extends IdentityDisk {
 	@Override
 	public char toChar() {
 		return 'c';
-	}	
+	}
+	
+	@Override
+	public ChargedIdentityDisk copy(SquareContainer square) {
+		return new ChargedIdentityDisk();
+	}
 	
 }
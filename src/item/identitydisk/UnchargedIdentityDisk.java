@@ -85,4 +85,11 @@ public class UnchargedIdentityDisk extends IdentityDisk implements AffectedByPow
 	public char toChar() {
 		return 'u';
 	}
+	
+	@Override
+	public UnchargedIdentityDisk copy(SquareContainer square) {
+		UnchargedIdentityDisk copy = new UnchargedIdentityDisk();
+		copy.range = range;
+		return copy;
+	}
 }
@@ -120,6 +120,13 @@ public class LightGrenade extends Item {
 		return 'l';
 	}
 	
+	@Override
+	public LightGrenade copy(SquareContainer square) {
+		LightGrenade copy = new LightGrenade(effectFactory);
+		copy.state = state;
+		return copy;
+	}
+	
 	@Override
 	public Effect getEffect() {
 		return effectFactory.getExplodeEffect(this);
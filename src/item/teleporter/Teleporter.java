@@ -131,6 +131,16 @@ public class Teleporter extends Item {
 		return 't';
 	}
 	
+	/**
+	 * Returns a new teleporter on the specified square, without a destination.
+	 */
+	@Override
+	public Teleporter copy(SquareContainer square) {
+		Teleporter copy = new Teleporter(null, square, effectFactory);
+		copy.skipNextTeleport = skipNextTeleport;
+		return copy;
+	}
+	
 	@Override
 	public Effect getEffect() {
 		return effectFactory.getTeleportationEffect(this);
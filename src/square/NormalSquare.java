@@ -43,6 +43,17 @@ public class NormalSquare extends AbstractSquare {
 		this.executeEffect(item, effect);
 	}
 	
+	/**
+	 * Put an item on this square without executing any effect on it. This is
+	 * used to copy a square in the state it was built in.
+	 * 
+	 * @param item
+	 *        the item to put on this square
+	 */
+	void placeItem(IItem item) {
+		itemList.add(item);
+	}
+	
 	@Override
 	public void remove(Object object) {
 		// test if the player needs to be removed
@@ -177,12 +188,12 @@ public class NormalSquare extends AbstractSquare {
 	public void update(Observable o, Object arg) {
 		// nothing to do; decorators may overrride this
 	}
-
+	
 	@Override
 	public boolean hasProperty(PropertyType property) {
 		return false;
 	}
-
+	
 	@Override
 	protected Effect getStartTurnEffect(Effect effect) {
 		// Nothing to chain
@@ -1,7 +1,9 @@
 package square;
 
+import grid.Coordinate;
 import item.IItem;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -22,10 +24,20 @@ import effects.Effect;
  */
 public class SquareContainer extends AbstractSquare {
 	
+	/**
+	 * Four directions that do not contain each other's opposite direction.
+	 * Linking each square to its neighbours in these directions, in both
+	 * directions, links all the neighbours of an area.
+	 */
+	private static final Direction[]				FOLLOWING_DIRECTIONS	= { Direction.EAST,
+			Direction.SOUTHEAST, Direction.SOUTH, Direction.SOUTHWEST	};
+	
 	private AbstractSquare							square;
-	private HashMap<Direction, SquareContainer>		neighbours;
+	private SquareContainer[]						neighbours;
 	private Map<Property, AbstractSquareDecorator>	decorators;
 	private List<PropertyCreator>					propertyCreators;
+	private SquareListener							listener;
+	private int										index;
 	
 	/**
 	 * Create a new square container with specified neighbours, after this
@@ -54,9 +66,11 @@ public class SquareContainer extends AbstractSquare {
 					"the specified neighbours could not be set as the neighbours for this square!");
 		
 		this.square = square;
-		this.decorators = new HashMap<Property, AbstractSquareDecorator>();
-		this.neighbours = new HashMap<Direction, SquareContainer>(neighbours);
-		this.propertyCreators = new ArrayList<PropertyCreator>();
+		this.decorators = Collections.emptyMap();
+		this.neighbours = new SquareContainer[Direction.values().length];
+		for (Map.Entry<Direction, SquareContainer> entry : neighbours.entrySet())
+			this.neighbours[entry.getKey().ordinal()] = entry.getValue();
+		this.propertyCreators = new ArrayList<PropertyCreator>(1);
 		
 		// Make sure the link is bidirectional
 		for (Direction direction : neighbours.keySet())
@@ -64,6 +78,107 @@ public class SquareContainer extends AbstractSquare {
 					this);
 	}
 	
+	/**
+	 * Link the squares of a rectangular area to their neighbours in the area.
+	 * The squares are specified row by row, and positions without a square are
+	 * null. Afterwards, each pair of neighbours is linked in both directions,
+	 * as if the squares were created one by one with their neighbours.
+	 * 
+	 * The squares are linked in a single pass over the area: each square is
+	 * linked to the neighbours that follow it, without looking up any square.
+	 * 
+	 * @param squares
+	 *        the squares of the area, in row-major order
+	 * @param width
+	 *        the width of the area
+	 * @param height
+	 *        the height of the area
+	 * @throws IllegalArgumentException
+	 *         The number of squares does not match the dimensions of the area.
+	 */
+	public static void linkNeighbours(SquareContainer[] squares, int width, int height)
+			throws IllegalArgumentException {
+		if (squares == null || width < 0 || height < 0 || squares.length != width * height)
+			throw new IllegalArgumentException("The squares do not match the dimensions of the area");
+		
+		for (int index = 0; index < squares.length; index++) {
+			SquareContainer square = squares[index];
+			if (square == null)
+				continue;
+			
+			int x = index % width, y = index / width;
+			for (Direction direction : FOLLOWING_DIRECTIONS) {
+				int neighbourX = Coordinate.getXInDirection(x, direction);
+				int neighbourY = Coordinate.getYInDirection(y, direction);
+				if (neighbourX < 0 || neighbourX >= width || neighbourY < 0 || neighbourY >= height)
+					continue;
+				
+				SquareContainer neighbour = squares[neighbourY * width + neighbourX];
+				if (neighbour != null)
+					link(square, direction, neighbour);
+			}
+		}
+	}
+	
+	/**
+	 * Link two squares as neighbours, in both directions.
+	 * 
+	 * @param square
+	 *        the first square
+	 * @param direction
+	 *        the direction of the second square, as seen from the first
+	 * @param neighbour
+	 *        the second square
+	 * @throws IllegalArgumentException
+	 *         The arguments cannot be null.
+	 */
+	public static void link(SquareContainer square, Direction direction, SquareContainer neighbour)
+			throws IllegalArgumentException {
+		if (square == null || neighbour == null)
+			throw new IllegalArgumentException("cannot link a null square");
+		
+		square.setNeighbourInDirection(direction, neighbour);
+		neighbour.setNeighbourInDirection(direction.getOppositeDirection(), square);
+	}
+	
+	/**
+	 * Returns a new square container with a copy of the square of this
+	 * container, its {@link StartingPositionProperty starting position}, its
+	 * property creators and a {@link IItem#copy(SquareContainer) copy} of each
+	 * of its items, in the same order. The items are put on the copy without
+	 * executing any effect on them, so the copy is in the same state as this
+	 * square. The copy has no neighbours yet. Only squares on which no game was
+	 * played yet can be copied.
+	 * 
+	 * @return a copy of this square
+	 * @throws IllegalStateException
+	 *         There is a player on this square, or this square has a property
+	 *         that appears during a game.
+	 */
+	public SquareContainer copy() throws IllegalStateException {
+		if (hasPlayer())
+			throw new IllegalStateException("A square with a player cannot be copied");
+		
+		AbstractSquare base = square;
+		while (base instanceof AbstractSquareDecorator)
+			base = ((AbstractSquareDecorator) base).getSquare();
+		
+		AbstractSquare baseOfCopy = base instanceof WallPart ? new WallPart() : new NormalSquare();
+		SquareContainer copy = new SquareContainer(
+				Collections.<Direction, SquareContainer> emptyMap(), baseOfCopy);
+		if (baseOfCopy instanceof NormalSquare)
+			for (IItem item : base.getAllItems())
+				((NormalSquare) baseOfCopy).placeItem(item.copy(copy));
+		for (Property property : decorators.keySet()) {
+			if (!(property instanceof StartingPositionProperty))
+				throw new IllegalStateException("A square with a " + property
+						+ " cannot be copied");
+			copy.addProperty(property);
+		}
+		copy.propertyCreators.addAll(propertyCreators);
+		return copy;
+	}
+	
 	/**
 	 * Returns whether the specified map can be set as the map of neighbours for
 	 * this square. More formally this method returns false if and only if
@@ -88,7 +203,9 @@ public class SquareContainer extends AbstractSquare {
 	 * @return the neighbour in the specified direction
 	 */
 	public SquareContainer getNeighbourIn(Direction direction) {
-		return neighbours.get(direction);
+		if (direction == null)
+			return null;
+		return neighbours[direction.ordinal()];
 	}
 	
 	/**
@@ -103,7 +220,7 @@ public class SquareContainer extends AbstractSquare {
 		if (direction == null || square == null)
 			throw new IllegalArgumentException("cannot set a null square or a null direction");
 		
-		this.neighbours.put(direction, square);
+		this.neighbours[direction.ordinal()] = square;
 	}
 	
 	/**
@@ -123,8 +240,11 @@ public class SquareContainer extends AbstractSquare {
 	 */
 	public void addProperty(Property property) {
 		AbstractSquareDecorator decorator = property.getDecorator(square);
+		if (decorators.isEmpty())
+			decorators = new HashMap<Property, AbstractSquareDecorator>(4);
 		decorators.put(property, decorator);
 		this.square = decorator;
+		firePropertiesChanged();
 	}
 	
 	/**
@@ -179,13 +299,51 @@ public class SquareContainer extends AbstractSquare {
 			previousDecorator.setSquare(decorator.getSquare());
 			decorators.remove(property);
 		}
+		firePropertiesChanged();
+	}
+	
+	/**
+	 * Set the listener of this square. The listener will be notified with the
+	 * specified index after each change of the properties or the contents of
+	 * this square. A previous listener of this square is replaced.
+	 * 
+	 * @param listener
+	 *        the new listener, or <code>null</code> to remove the listener
+	 * @param index
+	 *        the index that identifies this square to the listener
+	 */
+	public void setSquareListener(SquareListener listener, int index) {
+		this.listener = listener;
+		this.index = index;
+	}
+	
+	/**
+	 * Returns the listener of this square, or <code>null</code> if it has no
+	 * listener.
+	 * 
+	 * @return the listener of this square
+	 */
+	public SquareListener getSquareListener() {
+		return listener;
+	}
+	
+	private void firePropertiesChanged() {
+		if (listener != null)
+			listener.propertiesChanged(this, index);
+	}
+	
+	private void fireContentsChanged() {
+		if (listener != null)
+			listener.contentsChanged(this, index);
 	}
 	
 	/* ----------- Forwarding Methods ----------------- */
 	
 	@Override
 	public IItem pickupItem(int ID) throws IllegalArgumentException {
-		return square.pickupItem(ID);
+		IItem item = square.pickupItem(ID);
+		fireContentsChanged();
+		return item;
 	}
 	
 	@Override
@@ -211,6 +369,7 @@ public class SquareContainer extends AbstractSquare {
 	@Override
 	public void addItem(IItem item) {
 		square.addItem(item);
+		fireContentsChanged();
 	}
 	
 	@Override
@@ -224,6 +383,7 @@ public class SquareContainer extends AbstractSquare {
 	@Override
 	public void remove(Object object) {
 		square.remove(object);
+		fireContentsChanged();
 	}
 	
 	@Override
@@ -249,6 +409,7 @@ public class SquareContainer extends AbstractSquare {
 	@Override
 	protected void addPlayer(Player player, Effect effect) {
 		square.addPlayer(player, effect);
+		fireContentsChanged();
 	}
 	
 	@Override
@@ -259,6 +420,7 @@ public class SquareContainer extends AbstractSquare {
 	@Override
 	protected void addItem(IItem item, Effect effect) {
 		square.addItem(item, effect);
+		fireContentsChanged();
 	}
 	
 	@Override
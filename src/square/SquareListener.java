@@ -0,0 +1,33 @@
+package square;
+
+/**
+ * A listener that is notified when the state of a {@link SquareContainer}
+ * changes. A square has at most one listener, normally the grid it belongs to,
+ * which passes the change on to the data structures it keeps in sync with its
+ * squares (e.g. indices or bitboards). Each square notifies its listener with
+ * the index it was given, so the listener needs no state per square.
+ */
+public interface SquareListener {
+	
+	/**
+	 * Called after a property was added to or removed from the specified
+	 * square.
+	 * 
+	 * @param square
+	 *        the square of which the properties have changed
+	 * @param index
+	 *        the index with which the listener was set on the square
+	 */
+	public void propertiesChanged(SquareContainer square, int index);
+	
+	/**
+	 * Called after a player or an item was added to or removed from the
+	 * specified square.
+	 * 
+	 * @param square
+	 *        the square of which the contents have changed
+	 * @param index
+	 *        the index with which the listener was set on the square
+	 */
+	public void contentsChanged(SquareContainer square, int index);
+}
@@ -0,0 +1,91 @@
+package grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import square.Direction;
+import square.NormalSquare;
+import square.SquareContainer;
+
+@SuppressWarnings("javadoc")
+public class ChunkedGridStorageTest {
+	
+	private Map<Coordinate, SquareContainer>	squares;
+	private ChunkedGridStorage					storage;
+	
+	@Before
+	public void setUp() throws Exception {
+		squares = new HashMap<Coordinate, SquareContainer>();
+		// a horizontal strip crossing the boundary of the first two chunks
+		for (int x = 28; x < 36; x++)
+			squares.put(new Coordinate(x, 31), newSquare());
+		// a single square in the far corner of the bounding box
+		squares.put(new Coordinate(199, 99), newSquare());
+		storage = new ChunkedGridStorage(squares, 200, 100, new CoordinateCache(200, 100));
+	}
+	
+	private static SquareContainer newSquare() {
+		return new SquareContainer(Collections.<Direction, SquareContainer> emptyMap(),
+				new NormalSquare());
+	}
+	
+	@Test
+	public void testGet() {
+		for (Map.Entry<Coordinate, SquareContainer> entry : squares.entrySet())
+			assertSame(entry.getValue(), storage.get(entry.getKey()));
+		assertNull(storage.get(new Coordinate(27, 31)));
+		assertNull(storage.get(new Coordinate(100, 50)));
+		assertNull(storage.get(-1, 31));
+		assertNull(storage.get(200, 99));
+	}
+	
+	@Test
+	public void testGet_acrossChunkBoundary() {
+		Coordinate last = new Coordinate(31, 31);
+		assertSame(squares.get(new Coordinate(32, 31)),
+				storage.get(Coordinate.getXInDirection(last.getX(), Direction.EAST),
+						Coordinate.getYInDirection(last.getY(), Direction.EAST)));
+	}
+	
+	@Test
+	public void testGetNumberOfAllocatedChunks() {
+		assertEquals(3, storage.getNumberOfAllocatedChunks());
+	}
+	
+	@Test
+	public void testIterator() {
+		Set<SquareContainer> found = new HashSet<SquareContainer>();
+		Iterator<SquareContainer> iterator = storage.iterator();
+		while (iterator.hasNext())
+			assertTrue(found.add(iterator.next()));
+		assertEquals(squares.size(), found.size());
+		assertTrue(found.containsAll(squares.values()));
+		assertFalse(iterator.hasNext());
+	}
+	
+	@Test
+	public void testRowMajorCoordinates() {
+		List<Coordinate> coordinates = storage.rowMajorCoordinates();
+		assertEquals(squares.size(), coordinates.size());
+		for (int i = 0; i < 8; i++)
+			assertEquals(new Coordinate(28 + i, 31), coordinates.get(i));
+		assertEquals(new Coordinate(199, 99), coordinates.get(8));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testChunkedGridStorage_outsideBounds() {
+		squares.put(new Coordinate(200, 0), newSquare());
+		new ChunkedGridStorage(squares, 200, 100, new CoordinateCache(200, 100));
+	}
+}
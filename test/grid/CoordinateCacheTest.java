@@ -0,0 +1,37 @@
+package grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class CoordinateCacheTest {
+	
+	@Test
+	public void testGet_fixed() {
+		CoordinateCache cache = new CoordinateCache(3, 2);
+		assertEquals(new Coordinate(2, 1), cache.get(2, 1));
+		assertSame(cache.get(2, 1), cache.get(2, 1));
+		assertSame(cache.get(2, 1), cache.get(Coordinate.pack(2, 1)));
+		// outside the dimensions coordinates are not interned
+		assertEquals(new Coordinate(3, 0), cache.get(3, 0));
+		assertNotSame(cache.get(3, 0), cache.get(3, 0));
+		assertNotSame(cache.get(-1, 0), cache.get(-1, 0));
+	}
+	
+	@Test
+	public void testGet_growable() {
+		CoordinateCache cache = new CoordinateCache();
+		Coordinate coordinate = cache.get(1, 1);
+		assertSame(coordinate, cache.get(1, 1));
+		cache.get(40, 25);
+		assertSame(coordinate, cache.get(1, 1));
+		assertSame(cache.get(40, 25), cache.intern(new Coordinate(40, 25)));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testCoordinateCache_negativeDimensions() {
+		new CoordinateCache(-1, 3);
+	}
+}
@@ -3,6 +3,8 @@ package grid;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import java.util.HashSet;
+import java.util.Set;
 import org.junit.Before;
 import org.junit.Test;
 import square.Direction;
@@ -46,4 +48,38 @@ public class CoordinateTest {
 		assertFalse(new Coordinate(2, 3).isNeighbour(new Coordinate(3, 1)));
 		assertFalse(new Coordinate(2, 3).isNeighbour(new Coordinate(2, 5)));
 	}
+	
+	@Test
+	public void testisNeighbour_self() {
+		assertFalse(new Coordinate(2, 3).isNeighbour(new Coordinate(2, 3)));
+		assertFalse(new Coordinate(2, 3).isNeighbour(null));
+	}
+	
+	@Test
+	public void testPack() {
+		long packed = Coordinate.pack(-3, 7);
+		assertEquals(-3, Coordinate.unpackX(packed));
+		assertEquals(7, Coordinate.unpackY(packed));
+		assertEquals(new Coordinate(-3, 7), Coordinate.unpack(packed));
+		assertEquals(packed, new Coordinate(-3, 7).pack());
+	}
+	
+	@Test
+	public void testGetPackedInDirection() {
+		Coordinate coordinate = new Coordinate(4, 0);
+		for (Direction direction : Direction.values())
+			assertEquals(coordinate.getCoordinateInDirection(direction),
+					Coordinate.unpack(Coordinate.getPackedInDirection(coordinate.pack(), direction)));
+	}
+	
+	@Test
+	public void testHashCode_tallGrid() {
+		// the coordinates of a grid that is much higher than it is wide
+		Set<Integer> hashCodes = new HashSet<Integer>();
+		for (int x = 0; x < 2; x++)
+			for (int y = 0; y < 200000; y++)
+				hashCodes.add(new Coordinate(x, y).hashCode());
+		assertTrue(hashCodes.size() > 399000);
+		assertEquals(new Coordinate(3, -4).hashCode(), new Coordinate(3, -4).hashCode());
+	}
 }
@@ -0,0 +1,106 @@
+package grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import grid.builder.DeterministicGridBuilderDirector;
+import grid.builder.TronGridBuilder;
+import item.DummyEffectFactory;
+import item.IItem;
+import item.lightgrenade.LightGrenade;
+import item.lightgrenade.LightGrenadeState;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import player.LightTrail;
+import square.Direction;
+import square.NormalSquare;
+import square.SquareContainer;
+
+@SuppressWarnings("javadoc")
+public class GridSnapshotTest {
+	
+	private Grid	grid;
+	
+	@Before
+	public void setUp() throws Exception {
+		TronGridBuilder builder = new TronGridBuilder(new DummyEffectFactory(), true);
+		new DeterministicGridBuilderDirector(builder, false).construct();
+		grid = builder.getResult();
+	}
+	
+	@Test
+	public void testGetSnapshot() {
+		assertNull(grid.getSnapshot());
+		GridSnapshot snapshot = grid.publishSnapshot();
+		assertSame(snapshot, grid.getSnapshot());
+		assertEquals(0, snapshot.getEpoch());
+		assertEquals(grid.getWidth(), snapshot.getWidth());
+		assertEquals(grid.getHeight(), snapshot.getHeight());
+		assertEquals(grid.getAllGridCoordinates(), snapshot.getAllGridCoordinates());
+		assertTrue(snapshot.getSquareAt(new Coordinate(4, 5)).isWall());
+		assertTrue(snapshot.getSquareAt(DeterministicGridBuilderDirector.PLAYER1_START_POS)
+				.isStartingPosition());
+		assertEquals(1, snapshot.getSquareAt(new Coordinate(2, 7)).getItems().size());
+		assertNull(snapshot.getSquareAt(new Coordinate(10, 0)));
+	}
+	
+	@Test
+	public void testPublishSnapshot() {
+		GridSnapshot first = grid.publishSnapshot();
+		SquareContainer square = grid.getSquareAt(new Coordinate(1, 1));
+		square.addProperty(new LightTrail(square));
+		Coordinate grenade = new Coordinate(2, 7);
+		IItem item = grid.getSquareAt(grenade).getAllItems().get(0);
+		grid.getSquareAt(grenade).pickupItem(item.getId());
+		
+		// the old snapshot does not change
+		assertFalse(first.getSquareAt(new Coordinate(1, 1)).hasLightTrail());
+		assertTrue(first.getSquareAt(grenade).containsItem(item.getId()));
+		
+		GridSnapshot second = grid.publishSnapshot();
+		assertSame(second, grid.getSnapshot());
+		assertEquals(first.getEpoch() + 1, second.getEpoch());
+		assertTrue(second.getSquareAt(new Coordinate(1, 1)).hasLightTrail());
+		assertFalse(second.getSquareAt(grenade).containsItem(item.getId()));
+	}
+	
+	@Test
+	public void testPublishSnapshot_copiesValues() {
+		Coordinate grenade = new Coordinate(2, 7);
+		LightGrenade item = (LightGrenade) grid.getSquareAt(grenade).getAllItems().get(0);
+		ItemSnapshot copy = grid.publishSnapshot().getSquareAt(grenade).getItems().get(0);
+		assertEquals(item.getId(), copy.getId());
+		assertEquals(LightGrenade.class, copy.getType());
+		assertTrue(copy.isCarriable());
+		
+		assertEquals(LightGrenadeState.INACTIVE, copy.getLightGrenadeState());
+		assertFalse(grid.getSnapshot().getSquareAt(grenade).hasPlayer());
+		assertEquals(SquareSnapshot.NO_PLAYER, grid.getSnapshot().getSquareAt(grenade)
+				.getPlayerId());
+	}
+	
+	@Test
+	public void testPublishSnapshot_sharesUnchangedChunks() {
+		Map<Coordinate, SquareContainer> map = new HashMap<Coordinate, SquareContainer>();
+		for (int x = 0; x < 64; x++)
+			map.put(new Coordinate(x, 0), new SquareContainer(
+					Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare()));
+		grid = new Grid(map, new ArrayList<SquareContainer>());
+		
+		GridSnapshot first = grid.publishSnapshot();
+		SquareContainer square = map.get(new Coordinate(40, 0));
+		square.addProperty(new LightTrail(square));
+		GridSnapshot second = grid.publishSnapshot();
+		
+		assertSame(first.getChunk(0, 0), second.getChunk(0, 0));
+		assertNotSame(first.getChunk(40, 0), second.getChunk(40, 0));
+		assertTrue(second.getSquareAt(new Coordinate(40, 0)).hasLightTrail());
+	}
+}
@@ -4,16 +4,27 @@ import static org.junit.Assert.*;
 import grid.builder.DeterministicGridBuilderDirector;
 import grid.builder.TronGridBuilder;
 import item.DummyEffectFactory;
+import item.Flag;
+import item.IItem;
+import item.lightgrenade.LightGrenade;
+import item.teleporter.Teleporter;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.Before;
 import org.junit.Test;
+import player.LightTrail;
 import player.PlayerDataBase;
 import square.Direction;
 import square.NormalSquare;
+import square.PropertyType;
 import square.SquareContainer;
+import square.SquareListener;
 
 @SuppressWarnings("javadoc")
 public class GridTest {
@@ -43,6 +54,255 @@ public class GridTest {
 		assertTrue(grid.getGrid().containsValue(square));
 	}
 	
+	@Test
+	public final void testGrid_sparse() {
+		// a grid with only two squares in opposite corners of a large box
+		Map<Coordinate, SquareContainer> map = new HashMap<Coordinate, SquareContainer>();
+		SquareContainer first = new SquareContainer(
+				Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare());
+		SquareContainer second = new SquareContainer(
+				Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare());
+		map.put(new Coordinate(0, 0), first);
+		map.put(new Coordinate(99, 49), second);
+		grid = new Grid(map, new ArrayList<SquareContainer>());
+		
+		assertEquals(2, grid.size());
+		assertEquals(100, grid.getWidth());
+		assertEquals(50, grid.getHeight());
+		assertSame(first, grid.getSquareAt(new Coordinate(0, 0)));
+		assertSame(second, grid.getSquareAt(new Coordinate(99, 49)));
+		assertNull(grid.getSquareAt(new Coordinate(50, 20)));
+		assertNull(grid.getSquareAt(new Coordinate(-1, 0)));
+	}
+	
+	@Test
+	public final void testGrid_negativeCoordinates() {
+		Map<Coordinate, SquareContainer> map = new HashMap<Coordinate, SquareContainer>();
+		SquareContainer first = new SquareContainer(
+				Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare());
+		SquareContainer second = new SquareContainer(
+				Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare());
+		map.put(new Coordinate(-1, 0), first);
+		map.put(new Coordinate(2, 1), second);
+		grid = new Grid(map, new ArrayList<SquareContainer>());
+		
+		assertEquals(3, grid.getWidth());
+		assertEquals(2, grid.getHeight());
+		assertSame(first, grid.getSquareAt(new Coordinate(-1, 0)));
+		assertSame(second, grid.getSquareAt(new Coordinate(2, 1)));
+		assertFalse(grid.hasProperty(-1, 0, PropertyType.WALL));
+		assertEquals(1, grid.publishSnapshot().getAllGridCoordinates().size());
+	}
+	
+	@Test
+	public final void testGetSquareInDirection() {
+		assertSame(grid.getSquareAt(new Coordinate(4, 3)),
+				grid.getSquareInDirection(new Coordinate(3, 4), Direction.NORTHEAST));
+		assertNull(grid.getSquareInDirection(new Coordinate(0, 0), Direction.WEST));
+	}
+	
+	@Test
+	public final void testGetSquareInDirection_chunked() {
+		// a long strip of squares in a large, mostly empty bounding box
+		Map<Coordinate, SquareContainer> map = new HashMap<Coordinate, SquareContainer>();
+		for (int y = 0; y < 100; y++)
+			map.put(new Coordinate(y, y), new SquareContainer(
+					Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare()));
+		grid = new Grid(map, new ArrayList<SquareContainer>());
+		
+		assertEquals(100, grid.size());
+		assertSame(map.get(new Coordinate(32, 32)),
+				grid.getSquareInDirection(new Coordinate(31, 31), Direction.SOUTHEAST));
+		assertNull(grid.getSquareInDirection(new Coordinate(31, 31), Direction.EAST));
+	}
+	
+	@Test
+	public final void testHasProperty() {
+		assertTrue(grid.hasProperty(4, 5, PropertyType.WALL));
+		assertFalse(grid.hasProperty(3, 5, PropertyType.WALL));
+		assertFalse(grid.hasProperty(-1, 5, PropertyType.WALL));
+		
+		SquareContainer square = grid.getSquareAt(new Coordinate(3, 5));
+		LightTrail trail = new LightTrail(square);
+		square.addProperty(trail);
+		assertTrue(grid.hasProperty(3, 5, PropertyType.LIGHT_TRAIL));
+		square.removeProperty(trail);
+		assertFalse(grid.hasProperty(3, 5, PropertyType.LIGHT_TRAIL));
+	}
+	
+	@Test
+	public final void testHasPropertyInArea() {
+		assertTrue(grid.hasPropertyInArea(0, 4, 5, 3, PropertyType.WALL));
+		assertFalse(grid.hasPropertyInArea(0, 4, 4, 3, PropertyType.WALL));
+		assertFalse(grid.hasPropertyInArea(0, 0, 10, 5, PropertyType.WALL));
+		assertTrue(grid.hasPropertyInArea(-5, -5, 20, 20, PropertyType.WALL));
+		assertFalse(grid.hasPropertyInArea(20, 20, 3, 3, PropertyType.WALL));
+	}
+	
+	@Test
+	public final void testSquareListener_sharedByAllSquares() {
+		grid.hasProperty(0, 0, PropertyType.WALL);
+		grid.getCoordinatesWithItem(LightGrenade.class);
+		grid.publishSnapshot();
+		
+		SquareListener listener = grid.getSquareAt(grid.getRowMajorCoordinates().get(0))
+				.getSquareListener();
+		assertNotNull(listener);
+		for (Coordinate coordinate : grid.getRowMajorCoordinates())
+			assertSame(listener, grid.getSquareAt(coordinate).getSquareListener());
+	}
+	
+	@Test
+	public final void testHasPropertyInArea_overflow() {
+		assertTrue(grid.hasPropertyInArea(0, 4, Integer.MAX_VALUE, 3, PropertyType.WALL));
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public final void testHasProperty_boundingBoxTooLarge() {
+		Map<Coordinate, SquareContainer> map = new HashMap<Coordinate, SquareContainer>();
+		map.put(new Coordinate(0, 0), new SquareContainer(
+				Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare()));
+		map.put(new Coordinate(1 << 20, 1 << 20), new SquareContainer(
+				Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare()));
+		new Grid(map, new ArrayList<SquareContainer>()).hasProperty(0, 0, PropertyType.WALL);
+	}
+	
+	@Test
+	public final void testGetCoordinatesWithProperty() {
+		List<Coordinate> walls = grid.getCoordinatesWithProperty(PropertyType.WALL);
+		assertEquals(5, walls.size());
+		for (int i = 0; i < 5; i++)
+			assertEquals(new Coordinate(4 + i, 5), walls.get(i));
+		assertTrue(grid.getCoordinatesWithProperty(PropertyType.LIGHT_TRAIL).isEmpty());
+	}
+	
+	@Test
+	public final void testSquares() {
+		List<SquareContainer> squares = grid.squares().collect(Collectors.toList());
+		assertEquals(grid.size(), squares.size());
+		List<Coordinate> coordinates = grid.getRowMajorCoordinates();
+		for (int i = 0; i < squares.size(); i++)
+			assertSame(grid.getSquareAt(coordinates.get(i)), squares.get(i));
+	}
+	
+	@Test
+	public final void testParallelSquares() {
+		assertTrue(grid.parallelSquares().isParallel());
+		assertEquals(grid.squares().collect(Collectors.toList()),
+				grid.parallelSquares().collect(Collectors.toList()));
+		assertEquals(5, grid.parallelSquares().filter(s -> s.hasProperty(PropertyType.WALL))
+				.count());
+	}
+	
+	@Test
+	public final void testWriteTo() throws IOException {
+		StringBuilder out = new StringBuilder();
+		grid.writeTo(out);
+		String[] rows = out.toString().split("\n", -1);
+		
+		assertEquals(11, rows.length);
+		assertEquals("", rows[10]);
+		assertEquals("        :UID 1", rows[0]);
+		assertEquals("          ", rows[1]);
+		assertEquals("    ##### ", rows[5]);
+		assertEquals("        :LG  :T.0.7", rows[2]);
+		assertEquals(" :T.9.2  :LG      :LG ", rows[7]);
+		assertEquals("2  :UID       ", rows[9]);
+	}
+	
+	@Test
+	public final void testWriteTo_emptyPositions() throws IOException {
+		Map<Coordinate, SquareContainer> map = new HashMap<Coordinate, SquareContainer>();
+		map.put(new Coordinate(0, 0), new SquareContainer(
+				Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare()));
+		map.put(new Coordinate(2, 1), new SquareContainer(
+				Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare()));
+		StringWriter out = new StringWriter();
+		new Grid(map, new ArrayList<SquareContainer>()).writeTo(out);
+		assertEquals(" **\n** \n", out.toString());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public final void testWriteTo_teleporterWithoutDestination() throws IOException {
+		SquareContainer square = grid.getSquareAt(new Coordinate(0, 0));
+		square.addItem(new Teleporter(null, square, new DummyEffectFactory()));
+		grid.writeTo(new StringBuilder());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public final void testWriteTo_teleporterToOtherGrid() throws IOException {
+		Teleporter destination = (Teleporter) buildPristineGrid().getSquareAt(
+				grid.getCoordinatesWithItem(Teleporter.class).get(0)).getAllItems().get(0);
+		SquareContainer square = grid.getSquareAt(new Coordinate(0, 0));
+		square.addItem(new Teleporter(destination, square, new DummyEffectFactory()));
+		grid.writeTo(new StringBuilder());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public final void testWriteTo_negativeCoordinates() throws IOException {
+		Map<Coordinate, SquareContainer> map = new HashMap<Coordinate, SquareContainer>();
+		map.put(new Coordinate(-1, 0), new SquareContainer(
+				Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare()));
+		new Grid(map, new ArrayList<SquareContainer>()).writeTo(new StringBuilder());
+	}
+	
+	@Test
+	public final void testGetCoordinatesWithItem() {
+		List<Coordinate> grenades = grid.getCoordinatesWithItem(LightGrenade.class);
+		assertEquals(8, grenades.size());
+		assertEquals(new Coordinate(7, 2), grenades.get(0));
+		assertEquals(new Coordinate(8, 8), grenades.get(7));
+		assertEquals(2, grid.getCoordinatesWithItem(Teleporter.class).size());
+		assertEquals(14, grid.getCoordinatesWithItem(IItem.class).size());
+		List<Coordinate> flags = grid.getCoordinatesWithItem(Flag.class);
+		assertEquals(2, flags.size());
+		assertEquals(DeterministicGridBuilderDirector.PLAYER1_START_POS, flags.get(0));
+		assertEquals(DeterministicGridBuilderDirector.PLAYER2_START_POS, flags.get(1));
+	}
+	
+	@Test
+	public final void testGetCoordinatesWithItem_area() {
+		List<Coordinate> found = grid.getCoordinatesWithItem(IItem.class, 5, 6, 10, 3);
+		assertEquals(6, found.size());
+		assertEquals(new Coordinate(7, 6), found.get(0));
+		assertEquals(new Coordinate(8, 7), found.get(1));
+		assertEquals(new Coordinate(5, 8), found.get(2));
+		assertTrue(grid.getCoordinatesWithItem(IItem.class, 0, 3, 10, 2).isEmpty());
+	}
+	
+	@Test
+	public final void testGetCoordinatesWithItem_largeArea() {
+		assertEquals(grid.getCoordinatesWithItem(IItem.class), grid.getCoordinatesWithItem(
+				IItem.class, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE));
+		assertEquals(grid.getCoordinatesWithItem(IItem.class, 5, 6, 10, 3),
+				grid.getCoordinatesWithItem(IItem.class, 5, 6, 10, Integer.MAX_VALUE - 1).subList(
+						0, 6));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public final void testGetCoordinatesWithItem_negativeArea() {
+		grid.getCoordinatesWithItem(IItem.class, 5, 6, -1, 3);
+	}
+	
+	@Test
+	public final void testGetCoordinatesWithItem_updated() {
+		Coordinate coordinate = new Coordinate(2, 7);
+		SquareContainer square = grid.getSquareAt(coordinate);
+		IItem grenade = square.getAllItems().get(0);
+		
+		square.pickupItem(grenade.getId());
+		assertFalse(grid.getCoordinatesWithItem(LightGrenade.class).contains(coordinate));
+		square.addItem(grenade);
+		assertTrue(grid.getCoordinatesWithItem(LightGrenade.class).contains(coordinate));
+	}
+	
+	@Test
+	public final void testGetSquareAt_outsideGrid() {
+		assertNotNull(grid.getSquareAt(new Coordinate(9, 9)));
+		assertNull(grid.getSquareAt(new Coordinate(10, 0)));
+		assertNull(grid.getSquareAt(new Coordinate(0, -1)));
+	}
+	
 	@Test(expected = IllegalArgumentException.class)
 	public final void testGrid_nullArgument() {
 		new Grid(null, null);
@@ -71,4 +331,122 @@ public class GridTest {
 		assertSame(grid.getAllGridCoordinates().size(), 100);
 	}
 	
+	@Test
+	public final void testGetRowMajorCoordinates() {
+		List<Coordinate> coordinates = grid.getRowMajorCoordinates();
+		assertEquals(100, coordinates.size());
+		for (int i = 0; i < coordinates.size(); i++)
+			assertEquals(new Coordinate(i % 10, i / 10), coordinates.get(i));
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public final void testGetRowMajorCoordinates_immutable() {
+		grid.getRowMajorCoordinates().clear();
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public final void testGrid_coordinateOutsideDimensions() {
+		Map<Coordinate, SquareContainer> map = new HashMap<Coordinate, SquareContainer>();
+		map.put(new Coordinate(5, 0), new SquareContainer(
+				Collections.<Direction, SquareContainer> emptyMap(), new NormalSquare()));
+		new Grid(map, new ArrayList<SquareContainer>(), 5, 1);
+	}
+	
+	private static Grid buildPristineGrid() {
+		TronGridBuilder builder = new TronGridBuilder(new DummyEffectFactory());
+		new DeterministicGridBuilderDirector(builder, false).construct();
+		return builder.getResult();
+	}
+	
+	@Test
+	public final void testCopy() {
+		Grid prototype = buildPristineGrid();
+		Grid copy = prototype.copy();
+		
+		assertEquals(prototype.getRowMajorCoordinates(), copy.getRowMajorCoordinates());
+		assertEquals(prototype.toString(), copy.toString());
+		for (Coordinate coordinate : prototype.getRowMajorCoordinates()) {
+			SquareContainer original = prototype.getSquareAt(coordinate);
+			SquareContainer square = copy.getSquareAt(coordinate);
+			assertNotSame(original, square);
+			assertEquals(original.getProperties(), square.getProperties());
+			assertEquals(original.getAllItems().size(), square.getAllItems().size());
+			for (Direction direction : Direction.values()) {
+				SquareContainer neighbour = square.getNeighbourIn(direction);
+				if (original.getNeighbourIn(direction) == null)
+					assertNull(neighbour);
+				else
+					assertSame(copy.getSquareInDirection(coordinate, direction), neighbour);
+			}
+		}
+		for (int i = 0; i < prototype.getAllStartingPositions().size(); i++)
+			assertNotSame(prototype.getAllStartingPositions().get(i), copy
+					.getAllStartingPositions().get(i));
+		assertSame(copy.getSquareAt(DeterministicGridBuilderDirector.PLAYER1_START_POS), copy
+				.getAllStartingPositions().get(0));
+		assertSame(copy.getSquareAt(DeterministicGridBuilderDirector.PLAYER2_START_POS), copy
+				.getAllStartingPositions().get(1));
+		assertEquals(prototype.getCoordinatesWithItem(Flag.class),
+				copy.getCoordinatesWithItem(Flag.class));
+	}
+	
+	@Test
+	public final void testCopy_teleporters() {
+		Grid prototype = buildPristineGrid();
+		Grid copy = prototype.copy();
+		
+		for (Coordinate coordinate : copy.getCoordinatesWithItem(Teleporter.class)) {
+			Teleporter original = (Teleporter) prototype.getSquareAt(coordinate).getAllItems()
+					.get(0);
+			Teleporter teleporter = (Teleporter) copy.getSquareAt(coordinate).getAllItems().get(0);
+			assertNotSame(original, teleporter);
+			assertSame(copy.getSquareAt(coordinate), teleporter.getSquare());
+			Coordinate destination = prototype.getCoordinatesWithItem(Teleporter.class).stream()
+					.filter(c -> prototype.getSquareAt(c) == original.getDestination().getSquare())
+					.findFirst().get();
+			assertSame(copy.getSquareAt(destination), teleporter.getDestination().getSquare());
+		}
+	}
+	
+	@Test
+	public final void testCopy_itemsOnTeleporter() {
+		TronGridBuilder builder = new TronGridBuilder(new DummyEffectFactory());
+		new DeterministicGridBuilderDirector(builder, false).construct();
+		Grid prototype = builder.getResult();
+		// the identity disk is teleported while the grid is built
+		builder.placeUnchargedIdentityDisc(prototype.getCoordinatesWithItem(Teleporter.class)
+				.get(0));
+		Grid copy = prototype.copy();
+		
+		assertEquals(prototype.getCoordinatesWithItem(IItem.class),
+				copy.getCoordinatesWithItem(IItem.class));
+		for (Coordinate coordinate : prototype.getCoordinatesWithItem(IItem.class)) {
+			List<IItem> items = prototype.getSquareAt(coordinate).getAllItems();
+			List<IItem> copiedItems = copy.getSquareAt(coordinate).getAllItems();
+			assertEquals(items.size(), copiedItems.size());
+			for (int i = 0; i < items.size(); i++) {
+				assertEquals(items.get(i).getClass(), copiedItems.get(i).getClass());
+				if (items.get(i) instanceof Teleporter)
+					assertEquals(((Teleporter) items.get(i)).getSkipNextTeleport(),
+							((Teleporter) copiedItems.get(i)).getSkipNextTeleport());
+			}
+		}
+	}
+	
+	@Test
+	public final void testCopy_independent() {
+		Grid prototype = buildPristineGrid();
+		Grid copy = prototype.copy();
+		
+		new PlayerDataBase().createNewDB(copy.getAllStartingPositions());
+		for (SquareContainer startingPosition : prototype.getAllStartingPositions())
+			assertFalse(startingPosition.hasPlayer());
+		prototype.copy();
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public final void testCopy_playerOnGrid() {
+		grid.copy();
+	}
+	
 }
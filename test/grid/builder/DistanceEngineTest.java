@@ -0,0 +1,92 @@
+package grid.builder;
+
+import static org.junit.Assert.assertEquals;
+import grid.Coordinate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class DistanceEngineTest {
+	
+	private DummyGridBuilder	builder;
+	
+	/**
+	 * Create a grid of 10x3 squares with a wall between column 4 and 6, which
+	 * can only be passed on the bottom row.
+	 */
+	@Before
+	public void setUp() {
+		builder = new DummyGridBuilder();
+		for (int x = 0; x < 10; x++)
+			for (int y = 0; y < 3; y++)
+				if (x != 5 || y == 2)
+					builder.addSquare(new Coordinate(x, y));
+	}
+	
+	private static int distance(DistanceEngine engine, int[] distances, int x, int y) {
+		return distances[engine.indexOf(new Coordinate(x, y))];
+	}
+	
+	@Test
+	public void testGetDistances() {
+		Coordinate source = new Coordinate(0, 0);
+		DistanceEngine engine = new DistanceEngine(builder, Arrays.asList(source),
+				Collections.<Coordinate, Coordinate> emptyMap());
+		int[] distances = engine.getDistances(source);
+		
+		assertEquals(28, engine.size());
+		assertEquals(0, distance(engine, distances, 0, 0));
+		assertEquals(2, distance(engine, distances, 2, 2));
+		assertEquals(5, distance(engine, distances, 5, 2));
+		assertEquals(7, distance(engine, distances, 6, 0));
+		assertEquals(9, distance(engine, distances, 9, 0));
+		assertEquals(-1, engine.indexOf(new Coordinate(5, 0)));
+	}
+	
+	@Test
+	public void testGetDistances_teleporters() {
+		Map<Coordinate, Coordinate> teleporters = new HashMap<Coordinate, Coordinate>();
+		teleporters.put(new Coordinate(1, 0), new Coordinate(8, 0));
+		teleporters.put(new Coordinate(8, 0), new Coordinate(1, 0));
+		Coordinate source = new Coordinate(0, 0);
+		DistanceEngine engine = new DistanceEngine(builder, Arrays.asList(source), teleporters);
+		int[] distances = engine.getDistances(source);
+		
+		// stepping on the teleporter moves the player to its destination
+		assertEquals(1, distance(engine, distances, 1, 0));
+		assertEquals(1, distance(engine, distances, 8, 0));
+		assertEquals(2, distance(engine, distances, 9, 0));
+		assertEquals(2, distance(engine, distances, 7, 1));
+		// the teleporter on (1, 0) cannot be used to continue from (1, 0)
+		assertEquals(2, distance(engine, distances, 2, 0));
+	}
+	
+	@Test
+	public void testGetDistances_multipleSources() {
+		List<Coordinate> sources = Arrays.asList(new Coordinate(0, 0), new Coordinate(9, 2));
+		DistanceEngine engine = new DistanceEngine(builder, sources,
+				Collections.<Coordinate, Coordinate> emptyMap());
+		List<int[]> distances = engine.getDistances(sources);
+		
+		assertEquals(2, distances.size());
+		assertEquals(9, distance(engine, distances.get(0), 9, 2));
+		assertEquals(0, distance(engine, distances.get(1), 9, 2));
+		assertEquals(9, distance(engine, distances.get(1), 0, 0));
+	}
+	
+	@Test
+	public void testGetDistances_unreachable() {
+		builder.addWall(new Coordinate(5, 2));
+		Coordinate source = new Coordinate(0, 0);
+		DistanceEngine engine = new DistanceEngine(builder, Arrays.asList(source, new Coordinate(
+				9, 0)), Collections.<Coordinate, Coordinate> emptyMap());
+		
+		assertEquals(DistanceEngine.UNREACHABLE, distance(engine, engine.getDistances(source), 9,
+				0));
+	}
+}
@@ -0,0 +1,121 @@
+package grid.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import effects.RaceEffectFactory;
+import grid.Coordinate;
+import grid.Grid;
+import item.DummyEffectFactory;
+import item.identitydisk.ChargedIdentityDisk;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import ObjectronExceptions.builderExceptions.GridBuildException;
+
+@SuppressWarnings("javadoc")
+public class FairGridGeneratorTest {
+	
+	private static final Coordinate	PLAYER1	= DeterministicGridBuilderDirector.PLAYER1_START_POS;
+	private static final Coordinate	PLAYER2	= DeterministicGridBuilderDirector.PLAYER2_START_POS;
+	
+	private GridCandidate			candidate;
+	
+	@Before
+	public void setUp() {
+		TronGridBuilder builder = new TronGridBuilder(new DummyEffectFactory());
+		new DeterministicGridBuilderDirector(builder, false).construct();
+		candidate = new GridCandidate(builder, builder.getResult());
+	}
+	
+	@Test
+	public void testGridCandidate() {
+		assertEquals(PLAYER1, candidate.getStartingPositions().get(0));
+		assertEquals(PLAYER2, candidate.getStartingPositions().get(1));
+		assertEquals(2, candidate.getTeleporters().size());
+		assertEquals(new Coordinate(0, 7), candidate.getTeleporters().get(new Coordinate(9, 2)));
+		assertTrue(candidate.getChargedIdentityDisks().isEmpty());
+	}
+	
+	@Test
+	public void testGetDistance() {
+		assertEquals(0, candidate.getDistance(PLAYER1, PLAYER1));
+		// both players reach each other through the teleporters
+		assertEquals(4, candidate.getDistance(PLAYER1, PLAYER2));
+		assertEquals(4, candidate.getDistance(PLAYER2, PLAYER1));
+		assertEquals(GridCandidate.UNREACHABLE, candidate.getDistance(PLAYER1, new Coordinate(
+				5, 5)));
+		assertEquals(GridCandidate.UNREACHABLE, candidate.getDistance(PLAYER1, null));
+	}
+	
+	@Test
+	public void testGetDistanceSpread() {
+		assertEquals(0, candidate.getDistanceSpread(new Coordinate(9, 2)));
+		assertEquals(GridCandidate.UNREACHABLE, candidate.getDistanceSpread(new Coordinate(5, 5)));
+	}
+	
+	@Test
+	public void testCriteria() {
+		assertTrue(FairnessCriterion.startingDistanceSymmetry(0).accepts(candidate));
+		assertTrue(FairnessCriterion.teleporterBalance(0).accepts(candidate));
+		// there is no charged identity disk on the grid
+		assertFalse(FairnessCriterion.chargedIdentityDiskReachable(100).accepts(candidate));
+	}
+	
+	@Test
+	public void testGenerate() {
+		FairGridGenerator generator = new FairGridGenerator(new RaceEffectFactory(), 12, 14);
+		Grid grid = generator.generate();
+		assertEquals(12, grid.getWidth());
+		assertEquals(14, grid.getHeight());
+	}
+	
+	@Test
+	public void testGenerate_firstAcceptedGrid() {
+		AtomicInteger judged = new AtomicInteger();
+		FairGridGenerator generator = new FairGridGenerator(new RaceEffectFactory(), 10, 10);
+		generator.setNumberOfCandidates(2);
+		generator.addCriterion(c -> judged.incrementAndGet() >= 3);
+		generator.generate();
+		assertTrue(judged.get() >= 3);
+	}
+	
+	@Test
+	public void testGenerate_chargedIdentityDisk() {
+		FairGridGenerator generator = new FairGridGenerator(new RaceEffectFactory(), 15, 15);
+		generator.addCriterion(FairnessCriterion.chargedIdentityDiskReachable(
+				RandomItemGridBuilderDirector.MAX_CID_SHORTEST_PATH_DISTANCE));
+		Grid grid = generator.generate();
+		assertEquals(1, grid.getCoordinatesWithItem(ChargedIdentityDisk.class).size());
+	}
+	
+	@Test
+	public void testGenerate_noFairGrid() {
+		AtomicInteger judged = new AtomicInteger();
+		FairGridGenerator generator = new FairGridGenerator(new RaceEffectFactory(), 10, 10);
+		generator.setNumberOfCandidates(3);
+		generator.setMaximumNumberOfAttempts(5);
+		generator.addCriterion(c -> {
+			judged.incrementAndGet();
+			return false;
+		});
+		try {
+			generator.generate();
+			assertTrue(false);
+		}
+		catch (GridBuildException e) {
+			assertEquals(5, judged.get());
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testFairGridGenerator_tooSmall() {
+		new FairGridGenerator(new RaceEffectFactory(), 10,
+				RandomGridBuilderDirector.MINIMUM_GRID_HEIGHT - 1);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddCriterion_null() {
+		new FairGridGenerator(new RaceEffectFactory(), 10, 10).addCriterion(null);
+	}
+}
@@ -1,13 +1,50 @@
 package grid.builder;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import effects.RaceEffectFactory;
+import grid.Coordinate;
+import grid.Grid;
+import item.lightgrenade.LightGrenade;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
 import org.junit.Test;
+import ObjectronExceptions.builderExceptions.GridFileReadException;
 import ObjectronExceptions.builderExceptions.InvalidGridFileException;
 
 @SuppressWarnings("javadoc")
 public class FileDirectorTest { 
 	
+	private File	compiledGridDirectory;
+	
+	@After
+	public void tearDown() {
+		FileGridBuilderDirector.setCompiledGridDirectory(null);
+		if (compiledGridDirectory != null) {
+			for (File file : compiledGridDirectory.listFiles())
+				file.delete();
+			compiledGridDirectory.delete();
+		}
+	}
+	
+	private void useCompiledGridDirectory() throws IOException {
+		compiledGridDirectory = Files.createTempDirectory("compiled").toFile();
+		FileGridBuilderDirector.setCompiledGridDirectory(compiledGridDirectory);
+	}
+	
 	@Test
 	public void testFileDirector() throws FileNotFoundException {
 		DummyGridBuilder builder = new DummyGridBuilder();
@@ -83,4 +120,294 @@ public class FileDirectorTest {
 		}
 		assertTrue(exceptionThrown);
 	}
+	
+	@Test
+	public void testFileDirectorCompiledGrid() throws IOException {
+		File file = File.createTempFile("grid", ".txt");
+		file.deleteOnExit();
+		Files.copy(new File("gridtest.txt").toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+		useCompiledGridDirectory();
+		File compiledFile = CompiledGrid.getCompiledFile(compiledGridDirectory, file);
+		
+		DummyGridBuilder builder = new DummyGridBuilder();
+		new FileGridBuilderDirector(builder, file.getPath()).construct();
+		builder.assertIsValidGrid();
+		assertTrue(compiledFile.exists());
+		
+		// the compiled grid is used as long as the grid file does not change
+		builder = new DummyGridBuilder();
+		new FileGridBuilderDirector(builder, file.getPath()).construct();
+		builder.assertIsValidGrid();
+		
+		// a changed grid file is parsed again
+		Files.copy(new File("grid_invalidCharacter.txt").toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+		boolean exceptionThrown = false;
+		try {
+			new FileGridBuilderDirector(new DummyGridBuilder(), file.getPath()).construct();
+		}
+		catch (InvalidGridFileException e) {
+			exceptionThrown = true;
+		}
+		assertTrue(exceptionThrown);
+	}
+	
+	@Test
+	public void testFileDirector_damagedCompiledGrid() throws IOException {
+		File file = File.createTempFile("grid", ".txt");
+		file.deleteOnExit();
+		Files.copy(new File("gridtest.txt").toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+		useCompiledGridDirectory();
+		File compiledFile = CompiledGrid.getCompiledFile(compiledGridDirectory, file);
+		new FileGridBuilderDirector(new DummyGridBuilder(), file.getPath()).construct();
+		
+		// change the last instruction, in front of the checksum
+		byte[] compiled = Files.readAllBytes(compiledFile.toPath());
+		compiled[compiled.length - 9] ^= 0x7f;
+		Files.write(compiledFile.toPath(), compiled);
+		// a new modification time skips the template in memory
+		assertTrue(file.setLastModified(file.lastModified() + 1000));
+		DummyGridBuilder builder = new DummyGridBuilder();
+		new FileGridBuilderDirector(builder, file.getPath()).construct();
+		builder.assertIsValidGrid();
+		
+		// a compiled grid with a valid checksum that is not a valid grid
+		byte[] hash = CompiledGrid.hash(file);
+		CompiledGrid.Recorder recorder = new CompiledGrid.Recorder(new DummyGridBuilder());
+		recorder.addSquare(new Coordinate(0, 0));
+		recorder.compile(1, 1).write(compiledFile, hash);
+		assertTrue(file.setLastModified(file.lastModified() + 1000));
+		builder = new DummyGridBuilder();
+		new FileGridBuilderDirector(builder, file.getPath()).construct();
+		builder.assertIsValidGrid();
+		assertEquals(13, CompiledGrid.read(compiledFile, hash).getWidth());
+	}
+	
+	@Test
+	public void testFileDirector_wideGrid() throws IOException {
+		File file = File.createTempFile("grid", ".txt");
+		file.deleteOnExit();
+		StringBuilder row = new StringBuilder("1");
+		for (int i = 0; i < 69998; i++)
+			row.append(' ');
+		Files.write(file.toPath(), Arrays.asList(row.append('2').toString()));
+		useCompiledGridDirectory();
+		
+		DummyGridBuilder builder = new DummyGridBuilder();
+		new FileGridBuilderDirector(builder, file.getPath()).construct();
+		assertEquals(70000, builder.getNumberOfSquares());
+		assertTrue(CompiledGrid.getCompiledFile(compiledGridDirectory, file).exists());
+		
+		// the compiled grid is replayed
+		assertTrue(file.setLastModified(file.lastModified() + 1000));
+		final List<Coordinate> startingPositions = new ArrayList<Coordinate>();
+		builder = new DummyGridBuilder() {
+			
+			@Override
+			public void addPlayerStartingPosition(Coordinate coordinate, int number) {
+				super.addPlayerStartingPosition(coordinate, number);
+				startingPositions.add(coordinate);
+			}
+		};
+		new FileGridBuilderDirector(builder, file.getPath()).construct();
+		assertTrue(startingPositions.contains(new Coordinate(69999, 0)));
+	}
+	
+	@Test
+	public void testFileDirector_notCompiledByDefault() throws IOException {
+		File directory = Files.createTempDirectory("grids").toFile();
+		File file = new File(directory, "grid.txt");
+		Files.copy(new File("gridtest.txt").toPath(), file.toPath());
+		try {
+			DummyGridBuilder builder = new DummyGridBuilder();
+			new FileGridBuilderDirector(builder, file.getPath()).construct();
+			builder.assertIsValidGrid();
+			assertEquals(Arrays.asList(file), Arrays.asList(directory.listFiles()));
+		}
+		finally {
+			file.delete();
+			directory.delete();
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetCompiledGridDirectory_notADirectory() {
+		FileGridBuilderDirector.setCompiledGridDirectory(new File("gridtest.txt"));
+	}
+	
+	@Test
+	public void testFileDirector_readErrorNotCached() throws IOException {
+		File file = File.createTempFile("grid", ".txt");
+		GridBuilderDirector director = new FileGridBuilderDirector(new DummyGridBuilder(),
+				file.getPath());
+		// a directory cannot be read as a grid file
+		file.delete();
+		file.mkdir();
+		try {
+			boolean exceptionThrown = false;
+			try {
+				director.construct();
+			}
+			catch (GridFileReadException e) {
+				exceptionThrown = true;
+			}
+			assertTrue(exceptionThrown);
+			assertNull(GridTemplate.get(file,
+					Files.readAttributes(file.toPath(), BasicFileAttributes.class)));
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testFileDirector_invalidGridCached() throws IOException {
+		File file = File.createTempFile("grid", ".txt");
+		file.deleteOnExit();
+		Files.copy(new File("grid_invalidCharacter.txt").toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+		try {
+			new FileGridBuilderDirector(new DummyGridBuilder(), file.getPath()).construct();
+		}
+		catch (InvalidGridFileException e) {
+			assertFalse(e instanceof GridFileReadException);
+		}
+		GridTemplate template = GridTemplate.get(file,
+				Files.readAttributes(file.toPath(), BasicFileAttributes.class));
+		assertFalse(template.isValid());
+	}
+	
+	@Test
+	public void testFileDirector_doubleStartingPositions() throws IOException {
+		File file = File.createTempFile("grid", ".txt");
+		file.deleteOnExit();
+		List<String> lines = Files.readAllLines(new File("gridtest.txt").toPath());
+		lines.set(7, lines.get(7).replace('3', '2'));
+		Files.write(file.toPath(), lines);
+		
+		DummyGridBuilder builder = new DummyGridBuilder();
+		try {
+			new FileGridBuilderDirector(builder, file.getPath()).construct();
+			fail();
+		}
+		catch (InvalidGridFileException e) {
+			assertTrue(e.getMessage().contains("double starting positions"));
+		}
+	}
+	
+	@Test
+	public void testFileDirector_wideItems() throws IOException {
+		File file = File.createTempFile("grid", ".txt");
+		file.deleteOnExit();
+		List<String> lines = new ArrayList<String>();
+		lines.add("1                   ");
+		for (int i = 0; i < 3; i++)
+			lines.add("                    ");
+		lines.add("                   2");
+		Files.write(file.toPath(), lines);
+		
+		int maximumX = 0;
+		for (int seed = 0; seed < 10; seed++) {
+			TronGridBuilder builder = new TronGridBuilder(new RaceEffectFactory());
+			FileGridBuilderDirector director = new FileGridBuilderDirector(builder,
+					file.getPath());
+			director.setSeed(seed);
+			director.construct();
+			for (Coordinate coordinate : builder.getResult().getCoordinatesWithItem(
+					LightGrenade.class))
+				maximumX = Math.max(maximumX, coordinate.getX());
+		}
+		// the items are placed over the whole width of the grid
+		assertTrue(maximumX >= 10);
+	}
+	
+	@Test
+	public void testPlaceRandomItems_onCopy() throws IOException {
+		TronGridBuilder builder = new TronGridBuilder(new RaceEffectFactory());
+		FileGridBuilderDirector director = new FileGridBuilderDirector(builder, "gridtest.txt");
+		director.setSeed(11);
+		director.construct();
+		StringBuilder expected = new StringBuilder();
+		builder.getResult().writeTo(expected);
+		
+		director.constructWithoutRandomItems();
+		Grid prototype = builder.getResult();
+		assertTrue(prototype.getCoordinatesWithItem(LightGrenade.class).isEmpty());
+		assertEquals(4, prototype.getAllStartingPositions().size());
+		
+		// the same random items are placed on a copy of the prototype
+		TronGridBuilder copyBuilder = new TronGridBuilder(new RaceEffectFactory(), false,
+				prototype.copy(), director.getStartingCoordinates());
+		director.placeRandomItems(copyBuilder);
+		StringBuilder actual = new StringBuilder();
+		copyBuilder.getResult().writeTo(actual);
+		assertEquals(expected.toString(), actual.toString());
+		assertTrue(prototype.getCoordinatesWithItem(LightGrenade.class).isEmpty());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testPlaceRandomItems_notConstructed() throws FileNotFoundException {
+		new FileGridBuilderDirector(new DummyGridBuilder(), "gridtest.txt")
+				.placeRandomItems(new DummyGridBuilder());
+	}
+	
+	@Test
+	public void testFileDirectorTeleporters() throws IOException {
+		File file = File.createTempFile("grid", ".txt");
+		file.deleteOnExit();
+		useCompiledGridDirectory();
+		List<String> lines = Files.readAllLines(new File("gridtest.txt").toPath());
+		// the first teleporter refers to a square further in the file
+		lines.set(0, " :T.2.12" + lines.get(0).substring(1));
+		lines.set(12, "   :T.0.0" + lines.get(12).substring(3));
+		Files.write(file.toPath(), lines);
+		
+		final List<List<Coordinate>> teleporters = new ArrayList<List<Coordinate>>();
+		DummyGridBuilder builder = new DummyGridBuilder() {
+			
+			@Override
+			public void placeTeleporter(Coordinate from, Coordinate to) {
+				teleporters.add(Arrays.asList(from, to));
+			}
+		};
+		new FileGridBuilderDirector(builder, file.getPath()).construct();
+		
+		// the teleporters of the file are placed before the random ones
+		assertEquals(Arrays.asList(new Coordinate(0, 0), new Coordinate(2, 12)),
+				teleporters.get(0));
+		assertEquals(Arrays.asList(new Coordinate(2, 12), new Coordinate(0, 0)),
+				teleporters.get(1));
+	}
+	
+	@Test
+	public void testCompiledGridReplay() throws IOException {
+		DummyGridBuilder builder = new DummyGridBuilder();
+		CompiledGrid.Recorder recorder = new CompiledGrid.Recorder(builder);
+		recorder.addSquare(new Coordinate(0, 0));
+		recorder.addSquare(new Coordinate(300, 1));
+		recorder.addWall(new Coordinate(1, 0));
+		recorder.addPlayerStartingPosition(new Coordinate(2, 0), 2);
+		recorder.placeLightGrenade(new Coordinate(0, 0));
+		recorder.placeTeleporter(new Coordinate(0, 0), new Coordinate(300, 1));
+		
+		File file = File.createTempFile("grid", CompiledGrid.EXTENSION);
+		file.deleteOnExit();
+		byte[] hash = new byte[] { 1, 2, 3 };
+		recorder.compile(301, 2).write(file, hash);
+		assertNull(CompiledGrid.read(file, new byte[] { 1, 2, 4 }));
+		
+		CompiledGrid compiledGrid = CompiledGrid.read(file, hash);
+		assertEquals(301, compiledGrid.getWidth());
+		assertEquals(2, compiledGrid.getHeight());
+		
+		GridBuilder replayed = new DummyGridBuilder();
+		Map<Integer, Coordinate> startingCoordinates = new HashMap<Integer, Coordinate>();
+		compiledGrid.replay(replayed, startingCoordinates);
+		assertEquals(builder.getNumberOfSquares(), replayed.getNumberOfSquares());
+		assertEquals(new Coordinate(2, 0), startingCoordinates.get(2));
+		assertFalse(replayed.canPlaceItem(new Coordinate(1, 0)));
+		assertTrue(replayed.canPlaceItem(new Coordinate(300, 1)));
+	}
 }
@@ -6,8 +6,11 @@ import org.junit.runners.Suite.SuiteClasses;
 
 @SuppressWarnings("javadoc")
 @RunWith(Suite.class)
-@SuiteClasses({ DeterministicDirectorTest.class, FileDirectorTest.class,
-		RandomDirectorTest.class, TronGridBuilderTest.class})
+@SuiteClasses({ DeterministicDirectorTest.class, DistanceEngineTest.class,
+		FairGridGeneratorTest.class, FileDirectorTest.class, GridFilePoolTest.class,
+		GridTemplateTest.class, IslandFinderTest.class, ItemCandidatesTest.class,
+		RandomDirectorTest.class, RandomGridPoolTest.class, TronFileParserTest.class,
+		TronGridBuilderTest.class, WallPlacerTest.class })
 public class GridBuilderTestSuite {
 	
 }
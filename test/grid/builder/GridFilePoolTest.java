@@ -0,0 +1,116 @@
+package grid.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import effects.Effect;
+import effects.RaceEffectFactory;
+import item.lightgrenade.LightGrenade;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class GridFilePoolTest {
+	
+	private File			directory;
+	private GridFilePool	pool;
+	
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("grids").toFile();
+		for (String name : Arrays.asList("grid.txt", "grid_invalidCharacter.txt",
+				"grid_oneStartingPosition.txt", "grid_unreachableIsland.txt"))
+			Files.copy(new File(name).toPath(), new File(directory, name).toPath());
+		// compile the grid files into the same directory
+		FileGridBuilderDirector.setCompiledGridDirectory(directory);
+		
+		// a teleporter that leads to a wall
+		List<String> lines = Files.readAllLines(new File("gridtest.txt").toPath());
+		lines.set(0, " :T.2.1" + lines.get(0).substring(1));
+		Files.write(new File(directory, "grid_teleporterOnWall.txt").toPath(), lines);
+		
+		pool = GridFilePool.load(directory, new RaceEffectFactory());
+	}
+	
+	@After
+	public void tearDown() {
+		pool.release();
+		FileGridBuilderDirector.setCompiledGridDirectory(null);
+		for (File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+	
+	@Test
+	public void testLoad() {
+		List<GridFilePool.LoadResult> results = pool.getResults();
+		assertEquals(5, results.size());
+		assertEquals("grid.txt", results.get(0).getFile().getName());
+		assertTrue(results.get(0).isValid());
+		assertNull(results.get(0).getError());
+		for (GridFilePool.LoadResult result : results.subList(1, results.size())) {
+			assertFalse(result.isValid());
+			assertNotNull(result.getError());
+			assertTrue(result.getLoadTime(TimeUnit.NANOSECONDS) > 0);
+		}
+		assertEquals(Arrays.asList(new File(directory, "grid.txt")), pool.getValidFiles());
+	}
+	
+	@Test
+	public void testLoad_skipsCompiledGrids() throws FileNotFoundException {
+		// the first load compiled the valid grid file into the directory
+		assertTrue(CompiledGrid.getCompiledFile(directory, new File(directory, "grid.txt"))
+				.exists());
+		assertEquals(5, GridFilePool.load(directory, new RaceEffectFactory()).getResults()
+				.size());
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testLoad_runtimeException() throws FileNotFoundException {
+		// a bug is not reported as an invalid grid file
+		RaceEffectFactory brokenFactory = new RaceEffectFactory() {
+			
+			@Override
+			public Effect getExplodeEffect(LightGrenade lightGrenade) {
+				throw new UnsupportedOperationException("broken factory");
+			}
+		};
+		GridFilePool.load(directory, brokenFactory);
+	}
+	
+	@Test
+	public void testLoad_pinsTemplates() throws IOException {
+		for (GridFilePool.LoadResult result : pool.getResults())
+			assertNotNull(GridTemplate.get(result.getFile(), Files.readAttributes(result
+					.getFile().toPath(), BasicFileAttributes.class)));
+	}
+	
+	@Test
+	public void testGetReport() {
+		String report = pool.getReport();
+		assertTrue(report.contains("grid.txt"));
+		assertTrue(report.contains("grid_teleporterOnWall.txt"));
+		assertTrue(report.contains("1 of 5 grid files are valid"));
+	}
+	
+	@Test(expected = FileNotFoundException.class)
+	public void testLoad_noDirectory() throws FileNotFoundException {
+		GridFilePool.load(new File(directory, "missing"), new RaceEffectFactory());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testLoad_null() throws FileNotFoundException {
+		GridFilePool.load(null, new RaceEffectFactory());
+	}
+}
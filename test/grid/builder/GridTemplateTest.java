@@ -0,0 +1,101 @@
+package grid.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import grid.Coordinate;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import ObjectronExceptions.builderExceptions.InvalidGridFileException;
+
+@SuppressWarnings("javadoc")
+public class GridTemplateTest {
+	
+	private File			file;
+	private CompiledGrid	compiledGrid;
+	
+	@Before
+	public void setUp() throws IOException {
+		file = createFile();
+		
+		CompiledGrid.Recorder recorder = new CompiledGrid.Recorder(new DummyGridBuilder());
+		recorder.addSquare(new Coordinate(0, 0));
+		recorder.addPlayerStartingPosition(new Coordinate(1, 0), 1);
+		compiledGrid = recorder.compile(2, 1);
+	}
+	
+	private static File createFile() throws IOException {
+		File file = File.createTempFile("grid", ".txt");
+		file.deleteOnExit();
+		return file;
+	}
+	
+	private static BasicFileAttributes attributesOf(File file) throws IOException {
+		return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+	}
+	
+	@Test
+	public void testGet() throws IOException {
+		assertNull(GridTemplate.get(file, attributesOf(file)));
+		
+		GridTemplate template = new GridTemplate(attributesOf(file), compiledGrid);
+		GridTemplate.put(file, template);
+		assertSame(template, GridTemplate.get(file, attributesOf(file)));
+		assertSame(template, GridTemplate.get(new File(file.getAbsolutePath()),
+				attributesOf(file)));
+	}
+	
+	@Test
+	public void testGet_modifiedFile() throws IOException {
+		GridTemplate.put(file, new GridTemplate(attributesOf(file), compiledGrid));
+		Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(file.lastModified() + 1000));
+		
+		assertNull(GridTemplate.get(file, attributesOf(file)));
+	}
+	
+	@Test
+	public void testPut_leastRecentlyUsed() throws IOException {
+		GridTemplate.put(file, new GridTemplate(attributesOf(file), compiledGrid));
+		File[] files = new File[GridTemplate.MAXIMUM_NUMBER_OF_TEMPLATES];
+		for (int i = 0; i < files.length; i++) {
+			files[i] = createFile();
+			GridTemplate.put(files[i], new GridTemplate(attributesOf(files[i]), compiledGrid));
+			// keep using the first file
+			GridTemplate.get(file, attributesOf(file));
+		}
+		
+		File last = createFile();
+		GridTemplate.put(last, new GridTemplate(attributesOf(last), compiledGrid));
+		assertNull(GridTemplate.get(files[0], attributesOf(files[0])));
+		assertEquals(compiledGrid.getWidth(), GridTemplate.get(file, attributesOf(file))
+				.getWidth());
+	}
+	
+	@Test
+	public void testBuild() throws IOException {
+		GridTemplate template = new GridTemplate(attributesOf(file), compiledGrid);
+		DummyGridBuilder builder = new DummyGridBuilder();
+		Map<Integer, Coordinate> startingCoordinates = new HashMap<Integer, Coordinate>();
+		template.build(builder, startingCoordinates);
+		
+		assertEquals(2, builder.getNumberOfSquares());
+		assertEquals(new Coordinate(1, 0), startingCoordinates.get(1));
+		assertEquals(2, template.getWidth());
+		assertEquals(1, template.getHeight());
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testBuild_invalidGrid() throws IOException {
+		GridTemplate template = new GridTemplate(attributesOf(file), "not valid");
+		assertFalse(template.isValid());
+		template.build(new DummyGridBuilder(), new HashMap<Integer, Coordinate>());
+	}
+}
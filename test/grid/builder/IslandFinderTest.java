@@ -0,0 +1,59 @@
+package grid.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import grid.Coordinate;
+import java.util.List;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class IslandFinderTest {
+	
+	private static IslandFinder create(String... rows) {
+		IslandFinder islandFinder = new IslandFinder(rows[0].length(), rows.length);
+		for (int y = 0; y < rows.length; y++)
+			for (int x = 0; x < rows[y].length(); x++)
+				if (rows[y].charAt(x) == ' ')
+					islandFinder.addSquare(x, y);
+		return islandFinder;
+	}
+	
+	@Test
+	public void testGetIslands() {
+		List<IslandFinder.Island> islands = create(
+				"  ##  ",
+				"#    #",
+				"     #",
+				"######",
+				"#### #").getIslands();
+		
+		assertEquals(2, islands.size());
+		assertEquals(13, islands.get(0).getSize());
+		assertEquals(new Coordinate(0, 0), islands.get(0).getLocation());
+		assertEquals(1, islands.get(1).getSize());
+		assertEquals(new Coordinate(4, 4), islands.get(1).getLocation());
+		assertEquals("1 square at " + new Coordinate(4, 4), islands.get(1).toString());
+	}
+	
+	@Test
+	public void testGetIslands_diagonal() {
+		List<IslandFinder.Island> islands = create(
+				" ##",
+				"# #",
+				"## ").getIslands();
+		
+		assertEquals(1, islands.size());
+		assertEquals(3, islands.get(0).getSize());
+	}
+	
+	@Test
+	public void testGetIslands_noSquares() {
+		assertTrue(new IslandFinder(0, 0).getIslands().isEmpty());
+		assertTrue(create("###").getIslands().isEmpty());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddSquare_outsideGrid() {
+		new IslandFinder(2, 2).addSquare(2, 0);
+	}
+}
@@ -0,0 +1,90 @@
+package grid.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import grid.Coordinate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ItemCandidatesTest {
+	
+	private List<Coordinate>	squares;
+	private ItemCandidates		candidates;
+	
+	@Before
+	public void setUp() {
+		// all the squares of a 10x10 grid, except for the first column
+		squares = new ArrayList<Coordinate>();
+		for (int x = 1; x < 10; x++)
+			for (int y = 0; y < 10; y++)
+				squares.add(new Coordinate(x, y));
+		candidates = new ItemCandidates(10, 10, squares);
+	}
+	
+	@Test
+	public void testDraw() {
+		assertEquals(90, candidates.size());
+		Set<Coordinate> drawn = new HashSet<Coordinate>();
+		SplittableRandom random = new SplittableRandom();
+		for (int i = 0; i < 90; i++) {
+			Coordinate coordinate = candidates.draw(random);
+			assertTrue(squares.contains(coordinate));
+			assertTrue(drawn.add(coordinate));
+			assertFalse(candidates.contains(coordinate));
+		}
+		assertEquals(0, candidates.size());
+		assertNull(candidates.draw(random));
+	}
+	
+	@Test
+	public void testRemove() {
+		assertTrue(candidates.remove(new Coordinate(9, 9)));
+		assertTrue(candidates.remove(new Coordinate(1, 0)));
+		assertFalse(candidates.remove(new Coordinate(1, 0)));
+		assertFalse(candidates.remove(new Coordinate(0, 0)));
+		assertFalse(candidates.remove(new Coordinate(-1, 12)));
+		
+		assertEquals(88, candidates.size());
+		assertFalse(candidates.contains(new Coordinate(9, 9)));
+		assertTrue(candidates.contains(new Coordinate(9, 8)));
+	}
+	
+	@Test
+	public void testCopy() {
+		ItemCandidates copy = candidates.copy();
+		Coordinate coordinate = copy.draw(new SplittableRandom());
+		
+		assertFalse(copy.contains(coordinate));
+		assertTrue(candidates.contains(coordinate));
+		assertEquals(89, copy.size());
+		assertEquals(90, candidates.size());
+	}
+	
+	@Test
+	public void testDrawNear() {
+		SplittableRandom random = new SplittableRandom();
+		// only (1, 0) and (1, 1) are candidates in the area around the corner
+		Set<Coordinate> drawn = new HashSet<Coordinate>();
+		drawn.add(candidates.drawNear(new Coordinate(0, 0), 1, random));
+		drawn.add(candidates.drawNear(new Coordinate(0, 0), 1, random));
+		assertNull(candidates.drawNear(new Coordinate(0, 0), 1, random));
+		
+		assertTrue(drawn.contains(new Coordinate(1, 0)));
+		assertTrue(drawn.contains(new Coordinate(1, 1)));
+		assertEquals(88, candidates.size());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testItemCandidates_outsideArea() {
+		squares.add(new Coordinate(10, 3));
+		new ItemCandidates(10, 10, squares);
+	}
+}
@@ -3,14 +3,38 @@ package grid.builder;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import java.io.IOException;
 import java.util.Random;
 import org.junit.Test;
 import effects.RaceEffectFactory;
 import grid.Grid;
+import item.IItem;
+import item.identitydisk.ChargedIdentityDisk;
+import item.teleporter.Teleporter;
 
 @SuppressWarnings("javadoc")
 public class RandomDirectorTest {
 	
+	private static Grid construct(long seed, int width, int height) {
+		TronGridBuilder builder = new TronGridBuilder(new RaceEffectFactory());
+		RandomGridBuilderDirector director = new RandomGridBuilderDirector(builder);
+		director.setSeed(seed);
+		director.setWidth(width);
+		director.setHeight(height);
+		director.construct();
+		return builder.getResult();
+	}
+	
+	/**
+	 * Returns the grid file of a grid, which includes the destinations of its
+	 * teleporters.
+	 */
+	private static String write(Grid grid) throws IOException {
+		StringBuilder out = new StringBuilder();
+		grid.writeTo(out);
+		return out.toString();
+	}
+	
 	@Test
 	public void testRandomDirector() {
 		DummyGridBuilder builder = new DummyGridBuilder();
@@ -79,4 +103,36 @@ public class RandomDirectorTest {
 		}
 		assertTrue(exceptionThrown);
 	}
+	
+	@Test
+	public void testSeed() throws IOException {
+		Grid grid = construct(42, 30, 20);
+		Grid sameGrid = construct(42, 30, 20);
+		assertEquals(grid.toString(), sameGrid.toString());
+		assertEquals(write(grid), write(sameGrid));
+		assertEquals(grid.getCoordinatesWithItem(IItem.class),
+				sameGrid.getCoordinatesWithItem(IItem.class));
+		assertEquals(grid.getCoordinatesWithItem(Teleporter.class),
+				sameGrid.getCoordinatesWithItem(Teleporter.class));
+		assertEquals(grid.getCoordinatesWithItem(ChargedIdentityDisk.class),
+				sameGrid.getCoordinatesWithItem(ChargedIdentityDisk.class));
+		
+		assertFalse(grid.toString().equals(construct(43, 30, 20).toString()));
+	}
+	
+	@Test
+	public void testSeed_sameDirector() {
+		TronGridBuilder builder = new TronGridBuilder(new RaceEffectFactory());
+		RandomGridBuilderDirector director = new RandomGridBuilderDirector(builder);
+		director.setSeed(7);
+		director.construct();
+		String grid = builder.getResult().toString();
+		director.construct();
+		assertEquals(grid, builder.getResult().toString());
+		
+		director.clearSeed();
+		director.construct();
+		assertEquals(RandomGridBuilderDirector.MINIMUM_GRID_WIDTH, builder.getResult().getWidth());
+	}
+	
 }
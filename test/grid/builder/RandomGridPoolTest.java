@@ -0,0 +1,97 @@
+package grid.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import effects.CTFEffectFactory;
+import effects.RaceEffectFactory;
+import grid.Grid;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class RandomGridPoolTest {
+	
+	private RandomGridPool	pool;
+	
+	@Before
+	public void setUp() {
+		pool = new RandomGridPool(2, 1, 1);
+	}
+	
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+	
+	private void awaitReadyGrids(int expected, int width, int height) throws InterruptedException {
+		for (int i = 0; i < 500
+				&& pool.getNumberOfReadyGrids(new RaceEffectFactory(), width, height) < expected; i++)
+			Thread.sleep(10);
+		assertEquals(expected, pool.getNumberOfReadyGrids(new RaceEffectFactory(), width, height));
+	}
+	
+	@Test
+	public void testTake() throws InterruptedException {
+		Grid grid = pool.take(new RaceEffectFactory(), 12, 15);
+		assertEquals(12, grid.getWidth());
+		assertEquals(15, grid.getHeight());
+		
+		// the pool is filled in the background
+		awaitReadyGrids(2, 12, 15);
+		Grid next = pool.take(new RaceEffectFactory(), 12, 15);
+		assertNotSame(grid, next);
+		assertEquals(12, next.getWidth());
+		assertEquals(15, next.getHeight());
+		awaitReadyGrids(2, 12, 15);
+	}
+	
+	@Test
+	public void testFill_evictsStaleSizes() throws InterruptedException {
+		pool.fill(new RaceEffectFactory(), 10, 10);
+		awaitReadyGrids(2, 10, 10);
+		
+		pool.fill(new RaceEffectFactory(), 11, 11);
+		assertEquals(0, pool.getNumberOfReadyGrids(new RaceEffectFactory(), 10, 10));
+		awaitReadyGrids(2, 11, 11);
+	}
+	
+	@Test
+	public void testTake_differentEffectFactories() throws InterruptedException {
+		pool.fill(new RaceEffectFactory(), 10, 10);
+		awaitReadyGrids(2, 10, 10);
+		assertEquals(0, pool.getNumberOfReadyGrids(new CTFEffectFactory(), 10, 10));
+	}
+	
+	@Test
+	public void testShutdown() {
+		pool.shutdown();
+		Grid grid = pool.take(new RaceEffectFactory(), 10, 10);
+		assertEquals(10, grid.getWidth());
+		assertEquals(0, pool.getNumberOfReadyGrids(new RaceEffectFactory(), 10, 10));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testTake_tooSmall() {
+		pool.take(new RaceEffectFactory(), RandomGridBuilderDirector.MINIMUM_GRID_WIDTH - 1, 10);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testTake_nullFactory() {
+		pool.take(null, 10, 10);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testRandomGridPool_negativeDepth() {
+		new RandomGridPool(-1, 1, 1);
+	}
+	
+	@Test
+	public void testRandomGridPool_zeroDepth() {
+		RandomGridPool empty = new RandomGridPool(0, 1, 1);
+		assertTrue(empty.take(new RaceEffectFactory(), 10, 10) != null);
+		assertEquals(0, empty.getNumberOfReadyGrids(new RaceEffectFactory(), 10, 10));
+		empty.shutdown();
+	}
+}
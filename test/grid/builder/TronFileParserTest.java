@@ -0,0 +1,301 @@
+package grid.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import grid.Coordinate;
+import grid.Grid;
+import grid.builder.expressions.Expression;
+import item.DummyEffectFactory;
+import item.IItem;
+import item.identitydisk.ChargedIdentityDisk;
+import item.identitydisk.UnchargedIdentityDisk;
+import item.lightgrenade.LightGrenade;
+import item.teleporter.Teleporter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+import square.PropertyType;
+import ObjectronExceptions.builderExceptions.InvalidGridFileException;
+
+@SuppressWarnings("javadoc")
+public class TronFileParserTest {
+	
+	private static TronFileParser parserFor(String contents) {
+		return new TronFileParser(ByteBuffer.wrap(contents.getBytes(StandardCharsets.US_ASCII)));
+	}
+	
+	private static Grid build(TronFileParser parser) {
+		TronGridBuilder builder = new TronGridBuilder(new DummyEffectFactory(), true);
+		int y = 0;
+		while (parser.hasNextValidStatement()) {
+			int x = 0;
+			while (!parser.isAtEndOfLine())
+				parser.nextExpression().build(builder, new Coordinate(x++, y));
+			parser.readEndOfLine();
+			y++;
+		}
+		return builder.getResult();
+	}
+	
+	@Test
+	public void testNextExpression() {
+		TronFileParser parser = parserFor("1 :LG:UID#* :CID2\r\n");
+		Grid grid = build(parser);
+		
+		assertEquals(6, grid.getWidth());
+		assertEquals(1, grid.getHeight());
+		assertEquals(2, grid.getAllStartingPositions().size());
+		assertTrue(grid.getSquareAt(new Coordinate(2, 0)).hasProperty(PropertyType.WALL));
+		assertEquals(null, grid.getSquareAt(new Coordinate(3, 0)));
+		
+		List<IItem> items = grid.getSquareAt(new Coordinate(1, 0)).getAllItems();
+		assertEquals(2, items.size());
+		assertTrue(items.get(0) instanceof LightGrenade);
+		assertTrue(items.get(1) instanceof UnchargedIdentityDisk);
+		assertTrue(grid.getSquareAt(new Coordinate(4, 0)).getAllItems().get(0)
+				instanceof ChargedIdentityDisk);
+	}
+	
+	@Test
+	public void testNextExpression_teleporterWithLargeCoordinates() {
+		TronGridBuilder builder = new TronGridBuilder(new DummyEffectFactory(), true);
+		builder.addSquare(new Coordinate(12, 345));
+		
+		Expression expression = parserFor(" :T.12.345").nextExpression();
+		expression.build(builder, new Coordinate(0, 0));
+		builder.placeTeleporter(new Coordinate(12, 345), new Coordinate(0, 0));
+		
+		Teleporter teleporter = (Teleporter) builder.getResult()
+				.getSquareAt(new Coordinate(0, 0)).getAllItems().get(0);
+		assertEquals(builder.getResult().getSquareAt(new Coordinate(12, 345)), teleporter
+				.getDestination().getSquare());
+	}
+	
+	@Test
+	public void testEndOfLine() {
+		TronFileParser parser = parserFor("# \n *");
+		assertTrue(parser.hasNextValidStatement());
+		parser.nextExpression();
+		assertFalse(parser.isAtEndOfLine());
+		parser.nextExpression();
+		assertTrue(parser.isAtEndOfLine());
+		parser.readEndOfLine();
+		
+		parser.nextExpression();
+		parser.nextExpression();
+		// the end of the file also ends the last line
+		assertTrue(parser.isAtEndOfLine());
+		parser.readEndOfLine();
+		assertFalse(parser.hasNextValidStatement());
+	}
+	
+	@Test
+	public void testReadRows() {
+		TronFileParser parser = parserFor("# 1\n :LG*\n\n  ");
+		List<Expression[]> rows = parser.readRows();
+		assertEquals(2, rows.size());
+		assertEquals(3, rows.get(0).length);
+		assertEquals(2, rows.get(1).length);
+		// reading stops at the empty line
+		assertTrue(parser.isAtEndOfLine());
+	}
+	
+	@Test
+	public void testReadRows_parallel() {
+		StringBuilder contents = new StringBuilder();
+		int numberOfRows = 4 * TronFileParser.PARALLEL_THRESHOLD / 100;
+		for (int i = 0; i < numberOfRows; i++)
+			contents.append(String.format("%-98s\r\n", "#" + i % 10 + " :T.12.345:LG*"));
+		contents.append("j\n #\n");
+		
+		List<Expression[]> rows = parserFor(contents.toString()).readRows();
+		assertEquals(numberOfRows, rows.size());
+		for (Expression[] row : rows)
+			assertEquals(86, row.length);
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testReadRows_parallelInvalidCharacter() {
+		StringBuilder contents = new StringBuilder();
+		for (int i = 0; i < 4 * TronFileParser.PARALLEL_THRESHOLD / 10; i++)
+			contents.append("     :LG \n");
+		contents.append("  j\n");
+		parserFor(contents.toString()).readRows();
+	}
+	
+	@Test
+	public void testNextExpression_run() {
+		Grid grid = build(parserFor("1~3 :LG~2#\n~4 2#"));
+		
+		assertEquals(6, grid.getWidth());
+		assertEquals(2, grid.getHeight());
+		for (int x = 1; x <= 3; x++)
+			assertTrue(grid.getSquareAt(new Coordinate(x, 0)).getAllItems().get(0)
+					instanceof LightGrenade);
+		assertTrue(grid.getSquareAt(new Coordinate(5, 0)).hasProperty(PropertyType.WALL));
+		assertEquals(2, grid.getAllStartingPositions().size());
+	}
+	
+	@Test
+	public void testReadRows_run() {
+		List<Expression[]> rows = parserFor("~40#\r\n#~38 #\n~1#~39#\n").readRows();
+		assertEquals(3, rows.size());
+		for (Expression[] row : rows)
+			assertEquals(40, row.length);
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testNextExpression_runWithoutLength() {
+		parserFor("~#").nextExpression();
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testNextExpression_emptyRun() {
+		parserFor("~0#").nextExpression();
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testNextExpression_runWithoutCell() {
+		parserFor("~12").nextExpression();
+	}
+	
+	@Test
+	public void testNextExpression_longestRun() {
+		TronFileParser parser = parserFor("~" + TronFileParser.MAXIMUM_RUN_LENGTH + "#");
+		for (int i = 0; i < TronFileParser.MAXIMUM_RUN_LENGTH; i++)
+			parser.nextExpression();
+		assertTrue(parser.isAtEndOfLine());
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testNextExpression_runTooLong() {
+		parserFor("~" + (TronFileParser.MAXIMUM_RUN_LENGTH + 1) + "#").nextExpression();
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testNextExpression_runOfMaximumInteger() {
+		parserFor("~" + Integer.MAX_VALUE + "#").nextExpression();
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testReadRows_inRun() {
+		TronFileParser parser = parserFor("~3#\n");
+		parser.nextExpression();
+		parser.readRows();
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testNextExpression_invalidCharacter() {
+		parserFor("j").nextExpression();
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testNextExpression_unknownItem() {
+		parserFor(" :XYZ").nextExpression();
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testNextExpression_teleporterWithoutDestination() {
+		parserFor(" :T.1").nextExpression();
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testReadEndOfLine_notAtEndOfLine() {
+		parserFor("  \n").readEndOfLine();
+	}
+	
+	@Test
+	public void testFile() throws IOException {
+		File file = File.createTempFile("grid", ".txt");
+		file.deleteOnExit();
+		FileOutputStream output = new FileOutputStream(file);
+		output.write("1 2\n".getBytes(StandardCharsets.US_ASCII));
+		output.close();
+		
+		TronFileParser parser = new TronFileParser(file);
+		assertEquals(file, parser.getFile());
+		assertEquals(3, build(parser).getAllGridCoordinates().size());
+	}
+	
+	@Test
+	public void testFile_gzip() throws IOException {
+		File file = File.createTempFile("grid", ".txt.gz");
+		file.deleteOnExit();
+		GZIPOutputStream output = new GZIPOutputStream(new FileOutputStream(file));
+		for (int i = 0; i < 2 * TronFileParser.PARALLEL_THRESHOLD / 10; i++)
+			output.write("~5 :LG~3#\n".getBytes(StandardCharsets.US_ASCII));
+		output.write("1~6 2\n".getBytes(StandardCharsets.US_ASCII));
+		output.close();
+		
+		List<Expression[]> rows = new TronFileParser(file).readRows();
+		assertEquals(2 * TronFileParser.PARALLEL_THRESHOLD / 10 + 1, rows.size());
+		for (Expression[] row : rows)
+			assertEquals(8, row.length);
+	}
+	
+	@Test
+	public void testFile_gzipMembers() throws IOException {
+		// the trailer only holds the size of the last member, which is too
+		// small for the whole file
+		File file = File.createTempFile("grid", ".txt.gz");
+		file.deleteOnExit();
+		FileOutputStream output = new FileOutputStream(file);
+		GZIPOutputStream member = new GZIPOutputStream(output);
+		for (int i = 0; i < 1000; i++)
+			member.write("~5 :LG~3#\n".getBytes(StandardCharsets.US_ASCII));
+		member.finish();
+		member = new GZIPOutputStream(output);
+		member.write("1~6 2\n".getBytes(StandardCharsets.US_ASCII));
+		member.close();
+		
+		List<Expression[]> rows = new TronFileParser(file).readRows();
+		assertEquals(1001, rows.size());
+		for (Expression[] row : rows)
+			assertEquals(8, row.length);
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testFile_gzipWrongSize() throws IOException {
+		File file = File.createTempFile("grid", ".txt.gz");
+		file.deleteOnExit();
+		GZIPOutputStream output = new GZIPOutputStream(new FileOutputStream(file));
+		output.write("1~6 2\n".getBytes(StandardCharsets.US_ASCII));
+		output.close();
+		
+		// claim the largest possible size in the trailer
+		RandomAccessFile trailer = new RandomAccessFile(file, "rw");
+		trailer.seek(file.length() - 4);
+		trailer.writeInt(0xffffffff);
+		trailer.close();
+		new TronFileParser(file);
+	}
+	
+	@Test(expected = InvalidGridFileException.class)
+	public void testFile_corruptGzip() throws IOException {
+		File file = File.createTempFile("grid", ".txt.gz");
+		file.deleteOnExit();
+		FileOutputStream output = new FileOutputStream(file);
+		output.write(new byte[] { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 0, 1, 2, 3, 4, 5, 6,
+				7, 8, 9, 10 });
+		output.close();
+		new TronFileParser(file);
+	}
+	
+	@Test(expected = FileNotFoundException.class)
+	public void testFile_notFound() throws FileNotFoundException {
+		new TronFileParser(new File("doesNotExist.txt"));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testFile_null() throws FileNotFoundException {
+		new TronFileParser((File) null);
+	}
+}
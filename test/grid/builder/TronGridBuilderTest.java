@@ -4,8 +4,11 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 import square.Direction;
@@ -35,13 +38,47 @@ public class TronGridBuilderTest {
 		builder.addSquare(c);
 		Grid result2 = builder.getResult();
 		assertNotSame(result2, result);
-		assertEquals(1, result.getAllGridCoordinates().size());
-		assertNotNull(result.getSquareAt(c));
+		assertEquals(0, result.getAllGridCoordinates().size());
+		assertEquals(1, result2.getAllGridCoordinates().size());
+		assertNotNull(result2.getSquareAt(c));
 		
 		builder.createNewEmptyGrid();
 		assertEquals(0, builder.getResult().getAllGridCoordinates().size());
 	}
 	
+	@Test
+	public void testBuilderOnGrid_keepsStartingNumbers() {
+		Coordinate start1 = new Coordinate(0, 0);
+		Coordinate start2 = new Coordinate(1, 0);
+		builder.addPlayerStartingPosition(start1, 1);
+		builder.addPlayerStartingPosition(start2, 2);
+		Map<Integer, Coordinate> startingCoordinates = new HashMap<Integer, Coordinate>();
+		startingCoordinates.put(1, start1);
+		startingCoordinates.put(2, start2);
+		
+		TronGridBuilder copyBuilder = new TronGridBuilder(new RaceEffectFactory(), true,
+				builder.getResult().copy(), startingCoordinates);
+		copyBuilder.addPlayerStartingPosition(start1, 1);
+		copyBuilder.placeFlag(start1, 1);
+		copyBuilder.placeFlag(start2, 2);
+		Grid result = copyBuilder.getResult();
+		assertEquals(2, result.getAllStartingPositions().size());
+		assertSame(result.getSquareAt(start1), result.getAllStartingPositions().get(0));
+		assertSame(result.getSquareAt(start2), result.getAllStartingPositions().get(1));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuilderOnGrid_notAStartingPosition() {
+		builder.addPlayerStartingPosition(new Coordinate(0, 0), 1);
+		builder.addPlayerStartingPosition(new Coordinate(1, 0), 2);
+		builder.addSquare(new Coordinate(2, 0));
+		Map<Integer, Coordinate> startingCoordinates = new HashMap<Integer, Coordinate>();
+		startingCoordinates.put(1, new Coordinate(0, 0));
+		startingCoordinates.put(2, new Coordinate(2, 0));
+		new TronGridBuilder(new RaceEffectFactory(), false, builder.getResult(),
+				startingCoordinates);
+	}
+	
 	@Test
 	public void testNumberOfSquares() {
 		int numberOfSquares = 0;
@@ -83,6 +120,59 @@ public class TronGridBuilderTest {
 		}
 	}
 	
+	@Test
+	public void testAddCells() {
+		// a 5x4 area with some walls and some positions without a square
+		CellKind[] cells = new CellKind[20];
+		for (int i = 0; i < cells.length; i++)
+			cells[i] = CellKind.values()[(i * 7) % 3];
+		builder.addCells(cells, 5, 4);
+		Grid bulk = builder.getResult();
+		
+		TronGridBuilder incremental = new TronGridBuilder(new RaceEffectFactory());
+		for (int i = 0; i < cells.length; i++)
+			if (cells[i] == CellKind.SQUARE)
+				incremental.addSquare(new Coordinate(i % 5, i / 5));
+			else if (cells[i] == CellKind.WALL)
+				incremental.addWall(new Coordinate(i % 5, i / 5));
+		Grid expected = incremental.getResult();
+		
+		assertEquals(incremental.getNumberOfSquares(), builder.getNumberOfSquares());
+		assertEquals(expected.getAllGridCoordinates(), bulk.getAllGridCoordinates());
+		assertEquals(expected.getWidth(), bulk.getWidth());
+		assertEquals(expected.getHeight(), bulk.getHeight());
+		for (Coordinate coordinate : expected.getAllGridCoordinates()) {
+			SquareContainer square = bulk.getSquareAt(coordinate);
+			assertEquals(expected.getSquareAt(coordinate).canAddPlayer(), square.canAddPlayer());
+			for (Direction dir : Direction.values()) {
+				SquareContainer neighbour = square.getNeighbourIn(dir);
+				assertEquals(bulk.getSquareAt(coordinate.getCoordinateInDirection(dir)), neighbour);
+				if (neighbour != null)
+					assertSame(square, neighbour.getNeighbourIn(dir.getOppositeDirection()));
+			}
+			assertEquals(incremental.getAllReachableNeighboursOf(coordinate),
+					builder.getAllReachableNeighboursOf(coordinate));
+		}
+	}
+	
+	@Test
+	public void testAddCells_nonEmptyGrid() {
+		builder.addSquare(new Coordinate(2, 0));
+		builder.addCells(new CellKind[] { CellKind.SQUARE, CellKind.WALL, CellKind.NONE }, 3, 1);
+		
+		Grid grid = builder.getResult();
+		assertEquals(2, builder.getNumberOfSquares());
+		assertSame(grid.getSquareAt(new Coordinate(0, 0)),
+				grid.getSquareAt(new Coordinate(1, 0)).getNeighbourIn(Direction.WEST));
+		assertSame(grid.getSquareAt(new Coordinate(2, 0)),
+				grid.getSquareAt(new Coordinate(1, 0)).getNeighbourIn(Direction.EAST));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddCells_invalidDimensions() {
+		builder.addCells(new CellKind[6], 4, 2);
+	}
+	
 	@Test(expected = IllegalArgumentException.class)
 	public void testNullInputSquare() {
 		builder.addSquare(null);
@@ -0,0 +1,73 @@
+package grid.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import grid.Coordinate;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class WallPlacerTest {
+	
+	private WallPlacer	placer;
+	
+	@Before
+	public void setUp() {
+		placer = new WallPlacer(10, 10, Arrays.asList(new Coordinate(0, 0), new Coordinate(9, 9)));
+	}
+	
+	@Test
+	public void testPlaceWall() {
+		List<Coordinate> positions = placer.placeWall(new Coordinate(5, 4), new Coordinate(2, 4));
+		assertEquals(Arrays.asList(new Coordinate(5, 4), new Coordinate(4, 4),
+				new Coordinate(3, 4), new Coordinate(2, 4)), positions);
+		assertEquals(4, placer.getNumberOfWallParts());
+		
+		placer.placeWall(new Coordinate(8, 0), new Coordinate(8, 2));
+		assertEquals(7, placer.getNumberOfWallParts());
+	}
+	
+	@Test
+	public void testCanPlaceWall_touchingWalls() {
+		placer.placeWall(new Coordinate(2, 4), new Coordinate(5, 4));
+		
+		// overlapping, adjacent and diagonally adjacent walls
+		assertFalse(placer.canPlaceWall(new Coordinate(3, 2), new Coordinate(3, 6)));
+		assertFalse(placer.canPlaceWall(new Coordinate(2, 5), new Coordinate(2, 7)));
+		assertFalse(placer.canPlaceWall(new Coordinate(6, 5), new Coordinate(6, 8)));
+		assertFalse(placer.canPlaceWall(new Coordinate(0, 3), new Coordinate(1, 3)));
+		assertFalse(placer.canPlaceWall(new Coordinate(6, 1), new Coordinate(6, 3)));
+		
+		assertTrue(placer.canPlaceWall(new Coordinate(2, 6), new Coordinate(5, 6)));
+		assertTrue(placer.canPlaceWall(new Coordinate(7, 4), new Coordinate(7, 1)));
+		assertTrue(placer.canPlaceWall(new Coordinate(0, 1), new Coordinate(0, 2)));
+	}
+	
+	@Test
+	public void testCanPlaceWall_startingPositions() {
+		assertFalse(placer.canPlaceWall(new Coordinate(0, 0), new Coordinate(0, 3)));
+		assertFalse(placer.canPlaceWall(new Coordinate(6, 9), new Coordinate(9, 9)));
+		assertTrue(placer.canPlaceWall(new Coordinate(1, 0), new Coordinate(3, 0)));
+		assertTrue(placer.canPlaceWall(new Coordinate(9, 6), new Coordinate(9, 8)));
+	}
+	
+	@Test
+	public void testCanPlaceWall_outsideGrid() {
+		assertFalse(placer.canPlaceWall(new Coordinate(8, 5), new Coordinate(10, 5)));
+		assertFalse(placer.canPlaceWall(new Coordinate(3, 8), new Coordinate(3, 10)));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testPlaceWall_touchingWalls() {
+		placer.placeWall(new Coordinate(2, 4), new Coordinate(5, 4));
+		placer.placeWall(new Coordinate(6, 5), new Coordinate(6, 8));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testCanPlaceWall_notAligned() {
+		placer.canPlaceWall(new Coordinate(2, 4), new Coordinate(5, 5));
+	}
+}
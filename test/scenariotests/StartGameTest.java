@@ -43,6 +43,15 @@ public class StartGameTest {
 		newGameCont.newRaceGame(-1, 10);
 	}
 	
+	@Test
+	public void testPrepareRandomGames() {
+		// dimensions that are still being typed are ignored
+		newGameCont.prepareRandomGames(1, RandomGridBuilderDirector.MINIMUM_GRID_HEIGHT);
+		newGameCont.prepareRandomGames(15, 15);
+		newGameCont.newRaceGame(15, 15);
+		newGameCont.newCTFGame(15, 15, NUMBER_OF_PLAYERS);
+	}
+	
 	// ############## test newCTFGame(int, int) ################
 	@Test
 	public void testNewCTFGameCorrectDimensions() {
@@ -1,6 +1,9 @@
 package unittests;
 
+import grid.ChunkedGridStorageTest;
+import grid.CoordinateCacheTest;
 import grid.CoordinateTest;
+import grid.GridSnapshotTest;
 import grid.GridTest;
 import grid.builder.DeterministicDirectorTest;
 import grid.builder.FileDirectorTest;
@@ -47,7 +50,8 @@ import square.WallTest;
 		PowerFailureTest.class, PrimaryPowerFailureTest.class, SecondaryPowerFailureTest.class,
 		CaptureTheFlagTest.class, scenariotests.IdentityDiskTest.class, TeleportationTest.class,
 		ASquareTest.class, DirectionTest.class, square.PowerFailureTest.class, SquareTest.class,
-		WallPartTest.class,ForceFieldGeneratorTest.class, WallTest.class
+		WallPartTest.class,ForceFieldGeneratorTest.class, WallTest.class,
+		CoordinateCacheTest.class, ChunkedGridStorageTest.class, GridSnapshotTest.class
 		})
 public class TestSuite {
 	